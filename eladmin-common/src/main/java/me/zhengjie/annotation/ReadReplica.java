@@ -0,0 +1,35 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ *   开启读写分离时，标记的方法在只读事务(@Transactional(readOnly = true))中查询从库，
+ *   只用于列表、导出等允许读到稍旧数据的查询；未标记的只读事务(如 Spring Data 的 findById)仍然使用主库，
+ *   避免从库的旧数据被写入缓存；标记的方法中只读取二级缓存，查询从库加载的实体与集合不会写入二级缓存
+ * </p>
+ * @author Zheng Jie
+ * @date 2026-10-19
+ **/
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReadReplica {
+}
@@ -15,9 +15,9 @@
  */
 package me.zhengjie.aspect;
 
-import com.google.common.collect.ImmutableList;
 import me.zhengjie.annotation.Limit;
 import me.zhengjie.exception.BadRequestException;
+import me.zhengjie.utils.CacheBackend;
 import me.zhengjie.utils.RequestHolder;
 import me.zhengjie.utils.StringUtils;
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -27,9 +27,6 @@ import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
-import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 import javax.servlet.http.HttpServletRequest;
 import java.lang.reflect.Method;
@@ -41,11 +38,11 @@ import java.lang.reflect.Method;
 @Component
 public class LimitAspect {
 
-    private final RedisTemplate<Object,Object> redisTemplate;
+    private final CacheBackend cacheBackend;
     private static final Logger logger = LoggerFactory.getLogger(LimitAspect.class);
 
-    public LimitAspect(RedisTemplate<Object,Object> redisTemplate) {
-        this.redisTemplate = redisTemplate;
+    public LimitAspect(CacheBackend cacheBackend) {
+        this.cacheBackend = cacheBackend;
     }
 
     @Pointcut("@annotation(me.zhengjie.annotation.Limit)")
@@ -68,32 +65,14 @@ public class LimitAspect {
             }
         }
 
-        ImmutableList<Object> keys = ImmutableList.of(StringUtils.join(limit.prefix(), "_", key, "_", request.getRequestURI().replace("/","_")));
+        String limitKey = StringUtils.join(limit.prefix(), "_", key, "_", request.getRequestURI().replace("/","_"));
 
-        String luaScript = buildLuaScript();
-        RedisScript<Number> redisScript = new DefaultRedisScript<>(luaScript, Number.class);
-        Number count = redisTemplate.execute(redisScript, keys, limit.count(), limit.period());
-        if (null != count && count.intValue() <= limit.count()) {
-            logger.info("第{}次访问key为 {}，描述为 [{}] 的接口", count, keys, limit.name());
+        long count = cacheBackend.incrWithLimit(limitKey, limit.count(), limit.period());
+        if (count <= limit.count()) {
+            logger.info("第{}次访问key为 {}，描述为 [{}] 的接口", count, limitKey, limit.name());
             return joinPoint.proceed();
         } else {
             throw new BadRequestException("访问次数受限制");
         }
     }
-
-    /**
-     * 限流脚本
-     */
-    private String buildLuaScript() {
-        return "local c" +
-                "\nc = redis.call('get',KEYS[1])" +
-                "\nif c and tonumber(c) > tonumber(ARGV[1]) then" +
-                "\nreturn c;" +
-                "\nend" +
-                "\nc = redis.call('incr',KEYS[1])" +
-                "\nif tonumber(c) == 1 then" +
-                "\nredis.call('expire',KEYS[1],ARGV[2])" +
-                "\nend" +
-                "\nreturn c;";
-    }
 }
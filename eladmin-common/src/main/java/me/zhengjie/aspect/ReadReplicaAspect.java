@@ -0,0 +1,62 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.aspect;
+
+import lombok.RequiredArgsConstructor;
+import me.zhengjie.config.ReadWriteRoutingDataSource;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 执行 @ReadReplica 标记的方法时允许读写分离数据源使用从库，
+ * 同时将当前会话的缓存模式设为 CacheMode.GET，只读取二级缓存，不把从库查到的实体和集合写入二级缓存。
+ * 需要在事务或 open-in-view 绑定的会话中执行，事务切面的顺序见 AppRun
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class ReadReplicaAspect {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Around("@annotation(me.zhengjie.annotation.ReadReplica)")
+    public Object around(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean previous = ReadWriteRoutingDataSource.setReplica(true);
+        EntityManager em = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+        Session session = em == null ? null : em.unwrap(Session.class);
+        CacheMode cacheMode = session == null ? null : session.getCacheMode();
+        if (session != null) {
+            session.setCacheMode(CacheMode.GET);
+        }
+        try {
+            return joinPoint.proceed();
+        } finally {
+            if (session != null) {
+                session.setCacheMode(cacheMode);
+            }
+            ReadWriteRoutingDataSource.setReplica(previous);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.config;
+
+import me.zhengjie.utils.CacheBackend;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.SimpleValueWrapper;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 CacheBackend 的缓存管理，@Cacheable 与 RedisUtils 共用同一个存储，同样受熔断保护，
+ * key 的格式与 RedisCacheManager 一致(cacheName::key)，因此 CacheCleaner 等直接按 key 删除缓存的代码无需区分。
+ * 返回值为 null 时不缓存
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+public class BackendCacheManager implements CacheManager {
+
+    private final CacheBackend cacheBackend;
+
+    private final Duration ttl;
+
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>(16);
+
+    public BackendCacheManager(CacheBackend cacheBackend, Duration ttl) {
+        this.cacheBackend = cacheBackend;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, BackendCache::new);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    private class BackendCache implements Cache {
+
+        private final String name;
+
+        private BackendCache(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return cacheBackend;
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            Object value = cacheBackend.get(key(key));
+            return value == null ? null : new SimpleValueWrapper(value);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T get(Object key, Class<T> type) {
+            Object value = cacheBackend.get(key(key));
+            if (value != null && type != null && !type.isInstance(value)) {
+                throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+            }
+            return (T) value;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public synchronized <T> T get(Object key, Callable<T> valueLoader) {
+            Object value = cacheBackend.get(key(key));
+            if (value != null) {
+                return (T) value;
+            }
+            T loaded;
+            try {
+                loaded = valueLoader.call();
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            put(key, loaded);
+            return loaded;
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            if (value == null) {
+                evict(key);
+                return;
+            }
+            cacheBackend.set(key(key), value, ttl.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void evict(Object key) {
+            cacheBackend.del(Collections.singleton(key(key)));
+        }
+
+        @Override
+        public void clear() {
+            List<String> keys = new ArrayList<>();
+            cacheBackend.scan(name + TwoLevelCacheManager.SEPARATOR + "*", keys::add);
+            cacheBackend.del(keys);
+        }
+
+        private String key(Object key) {
+            return name + TwoLevelCacheManager.SEPARATOR + key;
+        }
+    }
+}
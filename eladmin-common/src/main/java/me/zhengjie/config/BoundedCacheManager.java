@@ -0,0 +1,131 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.configuration.CompleteConfiguration;
+import javax.cache.configuration.Configuration;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate 二级缓存使用的 JCache 管理器，Hibernate 按默认配置创建的缓存区域没有容量与过期限制，
+ * 这里统一改为有界的 Caffeine 缓存；时间戳区域用于判断查询缓存是否过期，不能被淘汰，保持不变
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+class BoundedCacheManager implements CacheManager {
+
+    /** Hibernate 查询缓存的时间戳区域 */
+    static final String TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    private final CacheManager delegate;
+
+    private final long maximumSize;
+
+    private final long expireSeconds;
+
+    BoundedCacheManager(CacheManager delegate, long maximumSize, long expireSeconds) {
+        this.delegate = delegate;
+        this.maximumSize = maximumSize;
+        this.expireSeconds = expireSeconds;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V, C extends Configuration<K, V>> Cache<K, V> createCache(String cacheName, C configuration) {
+        if (TIMESTAMPS_REGION.equals(cacheName) || !(configuration instanceof CompleteConfiguration)) {
+            return delegate.createCache(cacheName, configuration);
+        }
+        CaffeineConfiguration<K, V> config = new CaffeineConfiguration<>((CompleteConfiguration<K, V>) configuration);
+        config.setMaximumSize(OptionalLong.of(maximumSize));
+        config.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(expireSeconds)));
+        return delegate.createCache(cacheName, config);
+    }
+
+    @Override
+    public CachingProvider getCachingProvider() {
+        return delegate.getCachingProvider();
+    }
+
+    @Override
+    public URI getURI() {
+        return delegate.getURI();
+    }
+
+    @Override
+    public ClassLoader getClassLoader() {
+        return delegate.getClassLoader();
+    }
+
+    @Override
+    public Properties getProperties() {
+        return delegate.getProperties();
+    }
+
+    @Override
+    public <K, V> Cache<K, V> getCache(String cacheName, Class<K> keyType, Class<V> valueType) {
+        return delegate.getCache(cacheName, keyType, valueType);
+    }
+
+    @Override
+    public <K, V> Cache<K, V> getCache(String cacheName) {
+        return delegate.getCache(cacheName);
+    }
+
+    @Override
+    public Iterable<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    @Override
+    public void destroyCache(String cacheName) {
+        delegate.destroyCache(cacheName);
+    }
+
+    @Override
+    public void enableManagement(String cacheName, boolean enabled) {
+        delegate.enableManagement(cacheName, enabled);
+    }
+
+    @Override
+    public void enableStatistics(String cacheName, boolean enabled) {
+        delegate.enableStatistics(cacheName, enabled);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return delegate.isClosed();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> clazz) {
+        if (clazz.isInstance(this)) {
+            return clazz.cast(this);
+        }
+        return delegate.unwrap(clazz);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.config;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Value 压缩序列化，超过阈值的数据使用 LZ4 压缩后再写入 Redis
+ * 压缩数据格式：[头字节 0xC1][原始长度 4 字节][LZ4 数据]，
+ * 0xC1 不可能是合法 UTF-8 的首字节，因此历史未压缩的 JSON 数据仍可直接读取
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+public class CompressRedisSerializer implements RedisSerializer<Object> {
+
+    static final byte MAGIC = (byte) 0xC1;
+
+    private static final int HEADER_LENGTH = 5;
+
+    private final RedisSerializer<Object> delegate;
+
+    private final int threshold;
+
+    private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+
+    private final LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+
+    /** 压缩次数、压缩后未变小而跳过的次数 */
+    private final LongAdder compressCount = new LongAdder();
+    private final LongAdder skipCount = new LongAdder();
+    /** 压缩前后字节数 */
+    private final LongAdder rawBytes = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    /** 压缩与解压耗时(纳秒) */
+    private final LongAdder compressNanos = new LongAdder();
+    private final LongAdder decompressCount = new LongAdder();
+    private final LongAdder decompressNanos = new LongAdder();
+
+    /**
+     * @param delegate 实际的序列化器
+     * @param threshold 压缩阈值(字节)，小于等于 0 表示不压缩，只兼容读取压缩数据
+     */
+    public CompressRedisSerializer(RedisSerializer<Object> delegate, int threshold) {
+        this.delegate = delegate;
+        this.threshold = threshold > 0 ? threshold : Integer.MAX_VALUE;
+    }
+
+    @Override
+    public byte[] serialize(Object t) throws SerializationException {
+        byte[] bytes = delegate.serialize(t);
+        if (bytes == null || bytes.length < threshold) {
+            return bytes;
+        }
+        long start = System.nanoTime();
+        int maxLength = compressor.maxCompressedLength(bytes.length);
+        byte[] out = new byte[HEADER_LENGTH + maxLength];
+        out[0] = MAGIC;
+        out[1] = (byte) (bytes.length >>> 24);
+        out[2] = (byte) (bytes.length >>> 16);
+        out[3] = (byte) (bytes.length >>> 8);
+        out[4] = (byte) bytes.length;
+        int length = compressor.compress(bytes, 0, bytes.length, out, HEADER_LENGTH, maxLength);
+        compressNanos.add(System.nanoTime() - start);
+        // 压缩后没有变小，直接存原始数据
+        if (HEADER_LENGTH + length >= bytes.length) {
+            skipCount.increment();
+            return bytes;
+        }
+        compressCount.increment();
+        rawBytes.add(bytes.length);
+        compressedBytes.add(HEADER_LENGTH + length);
+        return Arrays.copyOf(out, HEADER_LENGTH + length);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length <= HEADER_LENGTH || bytes[0] != MAGIC) {
+            return delegate.deserialize(bytes);
+        }
+        long start = System.nanoTime();
+        int length = ((bytes[1] & 0xFF) << 24) | ((bytes[2] & 0xFF) << 16) | ((bytes[3] & 0xFF) << 8) | (bytes[4] & 0xFF);
+        byte[] raw;
+        try {
+            raw = decompressor.decompress(bytes, HEADER_LENGTH, length);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Could not decompress redis value", e);
+        }
+        decompressCount.increment();
+        decompressNanos.add(System.nanoTime() - start);
+        return delegate.deserialize(raw);
+    }
+
+    /**
+     * 压缩统计
+     * @return /
+     */
+    public Map<String, Object> getStats() {
+        long count = compressCount.sum();
+        long raw = rawBytes.sum();
+        long compressed = compressedBytes.sum();
+        long decompress = decompressCount.sum();
+        Map<String, Object> stats = new LinkedHashMap<>(8);
+        stats.put("threshold", threshold == Integer.MAX_VALUE ? 0 : threshold);
+        stats.put("compressCount", count);
+        stats.put("skipCount", skipCount.sum());
+        stats.put("rawBytes", raw);
+        stats.put("compressedBytes", compressed);
+        stats.put("ratio", raw == 0 ? 1D : (double) compressed / raw);
+        long attempts = count + skipCount.sum();
+        stats.put("avgCompressMicros", attempts == 0 ? 0 : compressNanos.sum() / attempts / 1000);
+        stats.put("avgDecompressMicros", decompress == 0 ? 0 : decompressNanos.sum() / decompress / 1000);
+        return stats;
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.config;
+
+import me.zhengjie.utils.DataScopeTable;
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 注册数据权限物化表的 SQL 函数，data_scope(部门列, key) 在部门属于该数据权限时为 1
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+@Configuration
+public class DataScopeConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer dataScopeFunctionCustomizer() {
+        SQLFunctionTemplate function = new SQLFunctionTemplate(StandardBasicTypes.INTEGER,
+                "(exists (select 1 from sys_data_scope ds where ds.scope_key = ?2 and ds.dept_id = ?1))");
+        return properties -> properties.put("hibernate.metadata_builder_contributor",
+                (MetadataBuilderContributor) builder -> builder.applySqlFunction(DataScopeTable.FUNCTION, function));
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读写分离配置
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "datasource.routing")
+public class DataSourceRoutingProperties {
+
+    /** 是否开启读写分离 */
+    private boolean enabled;
+
+    /** 从库复制延迟超过该时间(秒)时读请求回到主库 */
+    private long maxLagSeconds = 5;
+
+    /** 检查从库延迟的间隔(秒) */
+    private long checkIntervalSeconds = 5;
+
+    /** 查询复制延迟的 SQL，结果中读取 Seconds_Behind_Master 或 Seconds_Behind_Source */
+    private String lagQuery = "SHOW SLAVE STATUS";
+
+    /** 从库，连接池配置与主库相同 */
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Data
+    public static class Replica {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import me.zhengjie.utils.CacheBackend;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import javax.persistence.SharedCacheMode;
+import java.util.Collections;
+
+/**
+ * Hibernate 二级缓存，只缓存标注了 @Cacheable 的实体，缓存区域使用进程内的 Caffeine，
+ * 各节点间通过 EntityCacheSync 同步失效
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+@Configuration
+public class EntityCacheConfig {
+
+    /**
+     * 未开启二级缓存时同样注册，业务代码调用 evict 时不做处理
+     */
+    @Bean
+    public EntityCacheSync entityCacheSync(CacheBackend cacheBackend) {
+        return new EntityCacheSync(cacheBackend);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "jpa.cache.enabled", havingValue = "true", matchIfMissing = true)
+    public HibernatePropertiesCustomizer entityCacheCustomizer(EntityCacheSync entityCacheSync,
+                                                               @Value("${jpa.cache.maximum-size:10000}") long maximumSize,
+                                                               @Value("${jpa.cache.expire-seconds:3600}") long expireSeconds,
+                                                               @Value("${jpa.cache.statistics:true}") boolean statistics) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = new BoundedCacheManager(provider.getCacheManager(), maximumSize, expireSeconds);
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put("hibernate.javax.cache.cache_manager", cacheManager);
+            properties.put("hibernate.javax.cache.missing_cache_strategy", "create");
+            properties.put(AvailableSettings.JPA_SHARED_CACHE_MODE, SharedCacheMode.ENABLE_SELECTIVE);
+            properties.put(AvailableSettings.GENERATE_STATISTICS, statistics);
+            properties.put("hibernate.integrator_provider",
+                    (IntegratorProvider) () -> Collections.singletonList(entityCacheSync));
+        };
+    }
+}
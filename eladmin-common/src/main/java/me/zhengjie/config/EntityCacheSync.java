@@ -0,0 +1,276 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.config;
+
+import lombok.extern.slf4j.Slf4j;
+import me.zhengjie.utils.CacheBackend;
+import me.zhengjie.utils.CacheKey;
+import org.hibernate.boot.Metadata;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.hibernate.type.Type;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Hibernate 二级缓存在各节点间的同步，二级缓存保存在进程内，本节点的变更由 Hibernate 维护，
+ * 事务提交后通过 Redis 发布订阅通知其他节点失效对应的实体、集合以及查询缓存。
+ * 消息格式：节点ID|E:实体#ID,C:集合#所属实体ID,A:实体
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+@Slf4j
+public class EntityCacheSync implements Integrator, MessageListener, PostInsertEventListener,
+        PostUpdateEventListener, PostDeleteEventListener, PostCollectionRecreateEventListener,
+        PostCollectionUpdateEventListener, PostCollectionRemoveEventListener {
+
+    private static final String ENTITY = "E:";
+
+    private static final String COLLECTION = "C:";
+
+    private static final String ALL = "A:";
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final CacheBackend cacheBackend;
+
+    /** 未开启二级缓存时为 null */
+    private volatile SessionFactoryImplementor sessionFactory;
+
+    public EntityCacheSync(CacheBackend cacheBackend) {
+        this.cacheBackend = cacheBackend;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                          SessionFactoryServiceRegistry serviceRegistry) {
+        this.sessionFactory = sessionFactory;
+        EventListenerRegistry registry = serviceRegistry.getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, this);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        this.sessionFactory = null;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        entityChanged(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        entityChanged(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        entityChanged(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        collectionChanged(event);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        collectionChanged(event);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        collectionChanged(event);
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * 通过 SQL 直接修改了某个实体时调用，其他节点失效该实体的缓存，事务中调用时在提交后通知
+     * @param type 实体
+     * @param id ID
+     */
+    public void evict(Class<?> type, Serializable id) {
+        if (sessionFactory != null) {
+            changed(ENTITY + type.getName() + "#" + id);
+        }
+    }
+
+    /**
+     * 通过 SQL 批量修改了实体或中间表时调用，其他节点失效该实体及其集合的全部缓存
+     * @param type 实体
+     */
+    public void evictAll(Class<?> type) {
+        if (sessionFactory != null) {
+            changed(ALL + type.getName());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        SessionFactoryImplementor factory = sessionFactory;
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int index = body.indexOf('|');
+        if (factory == null || index < 0 || nodeId.equals(body.substring(0, index))) {
+            return;
+        }
+        CacheImplementor cache = factory.getCache();
+        for (String item : body.substring(index + 1).split(",")) {
+            try {
+                evictLocal(factory, cache, item);
+            } catch (Exception e) {
+                log.warn("Evict entity cache failed：item -> [{}]", item, e);
+            }
+        }
+        // 其他节点的变更没有更新本地的时间戳区域，查询缓存全部失效
+        cache.evictQueryRegions();
+    }
+
+    /**
+     * 各缓存区域的命中统计，需要开启 jpa.cache.statistics
+     * @return /
+     */
+    public Map<String, Object> getStats() {
+        SessionFactoryImplementor factory = sessionFactory;
+        Map<String, Object> stats = new TreeMap<>();
+        if (factory == null || !factory.getStatistics().isStatisticsEnabled()) {
+            return stats;
+        }
+        Statistics statistics = factory.getStatistics();
+        for (String region : factory.getCache().getCacheRegionNames()) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+            if (regionStatistics == null) {
+                continue;
+            }
+            Map<String, Object> map = new LinkedHashMap<>(4);
+            map.put("hit", regionStatistics.getHitCount());
+            map.put("miss", regionStatistics.getMissCount());
+            map.put("put", regionStatistics.getPutCount());
+            map.put("size", regionStatistics.getElementCountInMemory());
+            stats.put(region, map);
+        }
+        return stats;
+    }
+
+    private void entityChanged(EntityPersister persister, Serializable id) {
+        if (persister.canWriteToCache()) {
+            changed(ENTITY + persister.getEntityName() + "#" + id);
+        }
+    }
+
+    private void collectionChanged(AbstractCollectionEvent event) {
+        String role = event.getCollection().getRole();
+        Serializable ownerId = event.getAffectedOwnerIdOrNull();
+        if (role != null && ownerId != null
+                && event.getSession().getFactory().getMetamodel().collectionPersister(role).hasCache()) {
+            changed(COLLECTION + role + "#" + ownerId);
+        }
+    }
+
+    /**
+     * 事务中的变更在提交后合并为一条消息发送
+     */
+    @SuppressWarnings("unchecked")
+    private void changed(String item) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(Collections.singleton(item));
+            return;
+        }
+        Set<String> items = (Set<String>) TransactionSynchronizationManager.getResource(this);
+        if (items == null) {
+            Set<String> pending = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(EntityCacheSync.this);
+                    if (status == STATUS_COMMITTED) {
+                        publish(pending);
+                    }
+                }
+            });
+            items = pending;
+        }
+        items.add(item);
+    }
+
+    private void publish(Collection<String> items) {
+        try {
+            cacheBackend.publish(CacheKey.ENTITY_EVICT_CHANNEL, nodeId + "|" + String.join(",", items));
+        } catch (Exception e) {
+            log.error("Publish entity cache evict message failed：items -> {}", items, e);
+        }
+    }
+
+    private void evictLocal(SessionFactoryImplementor factory, CacheImplementor cache, String item) {
+        String name = item.substring(2);
+        if (item.startsWith(ALL)) {
+            cache.evictEntityData(name);
+            for (Map.Entry<String, CollectionPersister> entry : factory.getMetamodel().collectionPersisters().entrySet()) {
+                if (name.equals(entry.getValue().getOwnerEntityPersister().getEntityName())) {
+                    cache.evictCollectionData(entry.getKey());
+                }
+            }
+            return;
+        }
+        int separator = name.lastIndexOf('#');
+        if (separator < 0) {
+            return;
+        }
+        String role = name.substring(0, separator);
+        String id = name.substring(separator + 1);
+        if (item.startsWith(ENTITY)) {
+            EntityPersister persister = factory.getMetamodel().entityPersister(role);
+            cache.evictEntityData(role, id(persister.getIdentifierType(), id));
+        } else if (item.startsWith(COLLECTION)) {
+            CollectionPersister persister = factory.getMetamodel().collectionPersister(role);
+            cache.evictCollectionData(role, id(persister.getOwnerEntityPersister().getIdentifierType(), id));
+        }
+    }
+
+    private static Serializable id(Type type, String value) {
+        Class<?> idClass = type.getReturnedClass();
+        if (idClass == Long.class) {
+            return Long.valueOf(value);
+        }
+        if (idClass == Integer.class) {
+            return Integer.valueOf(value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.config;
+
+import com.alibaba.druid.filter.Filter;
+import com.alibaba.druid.pool.DruidDataSource;
+import com.alibaba.druid.spring.boot.autoconfigure.DruidDataSourceBuilder;
+import me.zhengjie.utils.StringUtils;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 读写分离，开启后替代 Druid 自动配置的数据源：主库与从库都使用 spring.datasource.druid 的连接池配置，
+ * 从库只替换连接地址与账号；@ReadReplica 标记且为 @Transactional(readOnly = true) 的方法使用从库
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.routing.enabled", havingValue = "true")
+public class ReadWriteDataSourceConfig {
+
+    private static final String DRUID_PREFIX = "spring.datasource.druid";
+
+    @Bean(destroyMethod = "close")
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(Environment environment,
+                                                                 DataSourceRoutingProperties properties,
+                                                                 ObjectProvider<Filter> filters) throws SQLException {
+        List<Filter> filterList = filters.orderedStream().collect(Collectors.toList());
+        DruidDataSource primary = create(environment, "primary", filterList);
+        primary.init();
+        List<DruidDataSource> replicas = new ArrayList<>();
+        for (DataSourceRoutingProperties.Replica config : properties.getReplicas()) {
+            DruidDataSource replica = create(environment, "replica-" + replicas.size(), filterList);
+            replica.setUrl(config.getUrl());
+            if (StringUtils.isNotBlank(config.getUsername())) {
+                replica.setUsername(config.getUsername());
+                replica.setPassword(config.getPassword());
+            }
+            replicas.add(replica);
+        }
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replicas,
+                properties.getMaxLagSeconds(), properties.getLagQuery());
+        routing.start(properties.getCheckIntervalSeconds());
+        return routing;
+    }
+
+    /**
+     * 实际连接在执行第一条 SQL 时获取，此时已经可以确定事务是否只读、是否在 @ReadReplica 标记的方法中
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+
+    /**
+     * 默认一个会话在关闭前一直持有连接，开启 open-in-view 时同一请求中只读事务取得的从库连接会被后续写操作使用，
+     * 改为事务结束(非事务查询执行完)后释放连接，每个事务重新选择数据源
+     */
+    @Bean
+    public HibernatePropertiesCustomizer readWriteRoutingCustomizer() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    private DruidDataSource create(Environment environment, String name, List<Filter> filters) {
+        DruidDataSource dataSource = DruidDataSourceBuilder.create().build();
+        Binder.get(environment).bind(DRUID_PREFIX, Bindable.ofInstance(dataSource));
+        dataSource.setName(name);
+        // 连接池不是 Bean，不会自动注入 Filter，这里加入一次
+        for (Filter filter : filters) {
+            if (!dataSource.getProxyFilters().contains(filter)) {
+                dataSource.getProxyFilters().add(filter);
+            }
+        }
+        return dataSource;
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.config;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.io.Closeable;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 读写分离数据源，@ReadReplica 标记的方法在只读事务中获取的连接轮询分配到可用的从库，其他连接使用主库；
+ * 只判断只读事务会把 Spring Data 默认只读的 findById 等查询也分配到从库，从库的旧数据会被写入缓存。
+ * 后台定时查询各从库的复制延迟，延迟超过 maxLagSeconds、复制停止或无法连接的从库暂停使用，
+ * 没有可用的从库时读请求回到主库；查询结果为空(未配置复制)的库视为没有延迟。
+ * 需要通过 LazyConnectionDataSourceProxy 使用，事务开始时还不能确定是否只读
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final String[] LAG_COLUMNS = {"Seconds_Behind_Master", "Seconds_Behind_Source"};
+
+    /** 当前线程是否在 @ReadReplica 标记的方法中 */
+    private static final ThreadLocal<Boolean> REPLICA = new ThreadLocal<>();
+
+    private final DruidDataSource primary;
+
+    private final List<Replica> replicas = new ArrayList<>();
+
+    /** 允许的最大复制延迟(秒) */
+    private final long maxLagSeconds;
+
+    private final String lagQuery;
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "el-replica-lag");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReadWriteRoutingDataSource(DruidDataSource primary, List<DruidDataSource> replicas,
+                                      long maxLagSeconds, String lagQuery) {
+        this.primary = primary;
+        for (DruidDataSource replica : replicas) {
+            this.replicas.add(new Replica(replica));
+        }
+        this.maxLagSeconds = maxLagSeconds;
+        this.lagQuery = lagQuery;
+    }
+
+    /**
+     * 检查一次从库延迟后开始定时检查，检查前从库不可用
+     * @param intervalSeconds 检查间隔(秒)
+     */
+    public void start(long intervalSeconds) {
+        check();
+        long interval = Math.max(intervalSeconds, 1);
+        scheduler.scheduleWithFixedDelay(this::check, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 设置当前线程是否允许使用从库
+     * @param replica 是否允许
+     * @return 设置前的值
+     */
+    public static boolean setReplica(boolean replica) {
+        boolean previous = Boolean.TRUE.equals(REPLICA.get());
+        if (replica) {
+            REPLICA.set(Boolean.TRUE);
+        } else {
+            REPLICA.remove();
+        }
+        return previous;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        // 标记的方法中开启的写事务(如 REQUIRES_NEW)仍然使用主库
+        boolean readOnly = Boolean.TRUE.equals(REPLICA.get()) && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        Replica replica = readOnly ? select() : null;
+        if (replica != null) {
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                replica.update(null, e.getMessage());
+            }
+        }
+        return primary.getConnection();
+    }
+
+    /**
+     * 指定账号的连接只能使用主库
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * 各从库的状态
+     * @return /
+     */
+    public List<Map<String, Object>> getReplicas() {
+        List<Map<String, Object>> list = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            Map<String, Object> map = new LinkedHashMap<>(4);
+            map.put("url", replica.dataSource.getUrl());
+            map.put("available", replica.available);
+            map.put("lagSeconds", replica.lagSeconds);
+            map.put("error", replica.error);
+            list.add(map);
+        }
+        return list;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        for (Replica replica : replicas) {
+            replica.dataSource.close();
+        }
+        primary.close();
+    }
+
+    /**
+     * 从上次的位置开始轮询可用的从库
+     * @return 没有可用的从库时返回 null
+     */
+    private Replica select() {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        int start = Math.floorMod(counter.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.available) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    void check() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                if (!resultSet.next()) {
+                    replica.update(0L, null);
+                    continue;
+                }
+                Long lag = lag(resultSet);
+                replica.update(lag, lag == null ? "复制已停止" : null);
+            } catch (Exception e) {
+                replica.update(null, e.getMessage());
+            }
+        }
+    }
+
+    private Long lag(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData meta = resultSet.getMetaData();
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            String label = meta.getColumnLabel(i);
+            for (String column : LAG_COLUMNS) {
+                if (column.equalsIgnoreCase(label)) {
+                    long lag = resultSet.getLong(i);
+                    return resultSet.wasNull() ? null : lag;
+                }
+            }
+        }
+        throw new SQLException("No replication lag column in result of " + lagQuery);
+    }
+
+    /**
+     * 从库及其最近一次检查的状态
+     */
+    private class Replica {
+
+        private final DruidDataSource dataSource;
+
+        private volatile boolean available;
+
+        private volatile Long lagSeconds;
+
+        private volatile String error;
+
+        private Replica(DruidDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        /**
+         * @param lag 复制延迟，无法获取时为 null
+         * @param error 错误信息
+         */
+        private void update(Long lag, String error) {
+            boolean usable = lag != null && lag <= maxLagSeconds;
+            if (usable != available) {
+                if (usable) {
+                    log.info("从库 {} 可用，复制延迟 {} 秒", dataSource.getUrl(), lag);
+                } else {
+                    log.warn("从库 {} 暂停使用，复制延迟 {} 秒: {}", dataSource.getUrl(), lag, error);
+                }
+            }
+            this.lagSeconds = lag;
+            this.error = error;
+            this.available = usable;
+        }
+    }
+}
@@ -20,9 +20,17 @@ import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.parser.ParserConfig;
 import com.alibaba.fastjson.serializer.SerializerFeature;
 import lombok.extern.slf4j.Slf4j;
+import me.zhengjie.utils.CacheBackend;
+import me.zhengjie.utils.CacheKey;
+import me.zhengjie.utils.CircuitBreaker;
+import me.zhengjie.utils.CircuitBreakerCacheBackend;
+import me.zhengjie.utils.EmbeddedCacheBackend;
+import me.zhengjie.utils.RedisCacheBackend;
 import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.Cache;
@@ -36,12 +44,15 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.RedisSerializer;
 import reactor.util.annotation.Nullable;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -57,29 +68,104 @@ import java.util.Map;
 @EnableConfigurationProperties(RedisProperties.class)
 public class RedisConfig extends CachingConfigurerSupport {
 
+    /**
+     * value 序列化，超过阈值的数据压缩后存储，阈值小于等于 0 时不压缩
+     */
+    @Bean
+    public CompressRedisSerializer compressRedisSerializer(@Value("${redis.compress.threshold:4096}") int threshold){
+        return new CompressRedisSerializer(new FastJsonRedisSerializer<>(Object.class), threshold);
+    }
+
     /**
      *  设置 redis 数据默认过期时间，默认2小时
      *  设置@cacheable 序列化方式
      */
     @Bean
-    public RedisCacheConfiguration redisCacheConfiguration(){
-        FastJsonRedisSerializer<Object> fastJsonRedisSerializer = new FastJsonRedisSerializer<>(Object.class);
+    public RedisCacheConfiguration redisCacheConfiguration(CompressRedisSerializer compressRedisSerializer){
         RedisCacheConfiguration configuration = RedisCacheConfiguration.defaultCacheConfig();
         configuration = configuration.serializeValuesWith(RedisSerializationContext.
-                SerializationPair.fromSerializer(fastJsonRedisSerializer)).entryTtl(Duration.ofHours(2));
+                SerializationPair.fromSerializer(compressRedisSerializer)).entryTtl(Duration.ofHours(2));
         return configuration;
     }
 
+    /**
+     * 缓存存储，默认使用 Redis，Redis 连续出错或变慢时熔断并改用本地存储
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "redis.embedded", havingValue = "false", matchIfMissing = true)
+    public CircuitBreakerCacheBackend redisCacheBackend(RedisTemplate<Object, Object> redisTemplate,
+                                                        CompressRedisSerializer compressRedisSerializer,
+                                                        @Value("${redis.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                                                        @Value("${redis.circuit-breaker.slow-call-millis:1000}") long slowCallMillis,
+                                                        @Value("${redis.circuit-breaker.open-seconds:10}") long openSeconds,
+                                                        @Value("${redis.circuit-breaker.fallback:true}") boolean fallback,
+                                                        @Value("${redis.circuit-breaker.mirror-prefixes:}") String[] mirrorPrefixes,
+                                                        @Value("${redis.circuit-breaker.mirror-seconds:1800}") long mirrorSeconds) {
+        CircuitBreaker breaker = new CircuitBreaker("Redis", failureThreshold, slowCallMillis, openSeconds * 1000);
+        return new CircuitBreakerCacheBackend(new RedisCacheBackend(redisTemplate), new EmbeddedCacheBackend(compressRedisSerializer),
+                breaker, fallback, mirrorPrefixes, mirrorSeconds);
+    }
+
+    /**
+     * redis.embedded=true 时使用进程内存储，无需部署 Redis，只适用于单机
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "redis.embedded", havingValue = "true")
+    public CacheBackend embeddedCacheBackend(CompressRedisSerializer compressRedisSerializer) {
+        log.info("初始化 -> [{}]", "Embedded CacheBackend");
+        return new EmbeddedCacheBackend(compressRedisSerializer);
+    }
+
+    /**
+     * redis.embedded=true 时 @Cacheable 的缓存同样存储在进程内
+     */
+    @Bean
+    @ConditionalOnProperty(name = "redis.embedded", havingValue = "true")
+    public BackendCacheManager embeddedCacheManager(CacheBackend cacheBackend, RedisCacheConfiguration redisCacheConfiguration) {
+        return new BackendCacheManager(cacheBackend, redisCacheConfiguration.getTtl());
+    }
+
+    /**
+     * 二级缓存管理，redis.local-cache.names 中的缓存开启本地缓存
+     */
+    @Bean
+    @ConditionalOnProperty(name = "redis.embedded", havingValue = "false", matchIfMissing = true)
+    public TwoLevelCacheManager twoLevelCacheManager(CacheBackend cacheBackend,
+                                                     RedisCacheConfiguration redisCacheConfiguration,
+                                                     @Value("${redis.local-cache.names:}") String[] names,
+                                                     @Value("${redis.local-cache.maximum-size:2000}") long maximumSize,
+                                                     @Value("${redis.local-cache.expire-seconds:300}") long expireSeconds) {
+        // 二级缓存同样经过熔断器
+        BackendCacheManager redisCacheManager = new BackendCacheManager(cacheBackend, redisCacheConfiguration.getTtl());
+        return new TwoLevelCacheManager(redisCacheManager, cacheBackend, Arrays.asList(names), maximumSize, expireSeconds);
+    }
+
+    /**
+     * 订阅本地缓存、熔断本地副本与 Hibernate 二级缓存的失效通知
+     */
+    @Bean
+    @ConditionalOnProperty(name = "redis.embedded", havingValue = "false", matchIfMissing = true)
+    public RedisMessageListenerContainer cacheEvictListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                     TwoLevelCacheManager twoLevelCacheManager,
+                                                                     CircuitBreakerCacheBackend circuitBreakerCacheBackend,
+                                                                     EntityCacheSync entityCacheSync) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(twoLevelCacheManager, new ChannelTopic(CacheKey.EVICT_CHANNEL));
+        container.addMessageListener(circuitBreakerCacheBackend, new ChannelTopic(CacheKey.EVICT_CHANNEL));
+        container.addMessageListener(entityCacheSync, new ChannelTopic(CacheKey.ENTITY_EVICT_CHANNEL));
+        return container;
+    }
+
     @SuppressWarnings("all")
     @Bean(name = "redisTemplate")
     @ConditionalOnMissingBean(name = "redisTemplate")
-    public RedisTemplate<Object, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory) {
+    public RedisTemplate<Object, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory,
+                                                       CompressRedisSerializer compressRedisSerializer) {
         RedisTemplate<Object, Object> template = new RedisTemplate<>();
-        //序列化
-        FastJsonRedisSerializer<Object> fastJsonRedisSerializer = new FastJsonRedisSerializer<>(Object.class);
-        // value值的序列化采用fastJsonRedisSerializer
-        template.setValueSerializer(fastJsonRedisSerializer);
-        template.setHashValueSerializer(fastJsonRedisSerializer);
+        // value值的序列化采用fastJsonRedisSerializer，大数据压缩存储
+        template.setValueSerializer(compressRedisSerializer);
+        template.setHashValueSerializer(compressRedisSerializer);
         // fastjson 升级到 1.2.83 后需要指定序列化白名单
         ParserConfig.getGlobalInstance().addAccept("me.zhengjie.domain");
         ParserConfig.getGlobalInstance().addAccept("me.zhengjie.service.dto");
@@ -0,0 +1,37 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * SQL 执行统计与采样日志，SqlMetricsFilter 只需注册为 Bean：
+ * Druid 自动配置的数据源(DruidDataSourceWrapper#autoAddFilters)会注入所有 Filter 类型的 Bean，
+ * 读写分离的数据源在创建时加入，不需要再单独添加，否则同一条 SQL 会被统计两次
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+@Configuration
+public class SqlMetricsConfig {
+
+    @Bean
+    public SqlMetricsFilter sqlMetricsFilter(@Value("${sql.metrics.sample-rate:0}") double sampleRate,
+                                             @Value("${sql.metrics.max-sql:1000}") int maxSql) {
+        return new SqlMetricsFilter(sampleRate, maxSql);
+    }
+}
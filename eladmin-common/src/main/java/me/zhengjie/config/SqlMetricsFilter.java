@@ -0,0 +1,326 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.config;
+
+import com.alibaba.druid.filter.FilterChain;
+import com.alibaba.druid.filter.FilterEventAdapter;
+import com.alibaba.druid.proxy.jdbc.JdbcParameter;
+import com.alibaba.druid.proxy.jdbc.PreparedStatementProxy;
+import com.alibaba.druid.proxy.jdbc.ResultSetProxy;
+import com.alibaba.druid.proxy.jdbc.StatementProxy;
+import lombok.extern.slf4j.Slf4j;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * SQL 执行统计，Druid 过滤器：按归一化后的 SQL(常量替换为 ?，IN 列表合并)统计执行次数、失败次数、
+ * 耗时分布与行数，并按 sampleRate 的比例输出带参数的完整 SQL。
+ * 未采样的语句只记录开始时间，不格式化 SQL；Hibernate 生成的 SQL 文本固定，归一化结果按原始 SQL 缓存
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+@Slf4j
+public class SqlMetricsFilter extends FilterEventAdapter {
+
+    /** 耗时分布各区间的上限/毫秒，最后一个区间为超过 1000 毫秒 */
+    private static final long[] BUCKETS = {1, 5, 10, 50, 100, 500, 1000};
+
+    private static final String EXECUTION = SqlMetricsFilter.class.getName();
+
+    /** 超过 maxSql 后新出现的 SQL 计入该项 */
+    private static final String OTHER = "other";
+
+    private static final Pattern LITERAL = Pattern.compile("'(?:[^']|'')*'|\\b\\d+(?:\\.\\d+)?\\b");
+
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+
+    private static final Pattern SPACE = Pattern.compile("\\s+");
+
+    /** 输出完整 SQL 的比例 */
+    private final double sampleRate;
+
+    /** 统计的 SQL 数量上限 */
+    private final int maxSql;
+
+    /** 原始 SQL -> 归一化的 SQL */
+    private final Map<String, String> normalized = new ConcurrentHashMap<>();
+
+    /** 归一化的 SQL -> 统计 */
+    private final Map<String, SqlStat> stats = new ConcurrentHashMap<>();
+
+    public SqlMetricsFilter(double sampleRate, int maxSql) {
+        this.sampleRate = sampleRate;
+        this.maxSql = maxSql;
+    }
+
+    /**
+     * 按总耗时排序的统计
+     * @param top 返回的数量
+     * @return /
+     */
+    public List<Map<String, Object>> getStats(int top) {
+        List<SqlStat> list = new ArrayList<>(stats.values());
+        list.sort(Comparator.comparingLong((SqlStat stat) -> stat.totalNanos.sum()).reversed());
+        List<Map<String, Object>> result = new ArrayList<>(Math.min(top, list.size()));
+        for (int i = 0; i < list.size() && i < top; i++) {
+            result.add(list.get(i).toMap());
+        }
+        return result;
+    }
+
+    /**
+     * 清空统计
+     */
+    public void reset() {
+        stats.clear();
+        normalized.clear();
+    }
+
+    @Override
+    protected void statementExecuteBefore(StatementProxy statement, String sql) {
+        before(statement);
+    }
+
+    @Override
+    protected void statementExecuteBatchBefore(StatementProxy statement) {
+        before(statement);
+    }
+
+    @Override
+    protected void statementExecuteQueryBefore(StatementProxy statement, String sql) {
+        before(statement);
+    }
+
+    @Override
+    protected void statementExecuteUpdateBefore(StatementProxy statement, String sql) {
+        before(statement);
+    }
+
+    @Override
+    protected void statementExecuteAfter(StatementProxy statement, String sql, boolean result) {
+        // 返回结果集时在结果集关闭后记录行数
+        after(statement, sql, result ? -1 : 0);
+    }
+
+    @Override
+    protected void statementExecuteBatchAfter(StatementProxy statement, int[] result) {
+        int rows = 0;
+        for (int count : result) {
+            rows += Math.max(count, 0);
+        }
+        String sql = statement instanceof PreparedStatementProxy ?
+                ((PreparedStatementProxy) statement).getSql() : statement.getBatchSql();
+        after(statement, sql, rows);
+    }
+
+    @Override
+    protected void statementExecuteQueryAfter(StatementProxy statement, String sql, ResultSetProxy resultSet) {
+        after(statement, sql, -1);
+    }
+
+    @Override
+    protected void statementExecuteUpdateAfter(StatementProxy statement, String sql, int updateCount) {
+        after(statement, sql, updateCount);
+    }
+
+    @Override
+    protected void statement_executeErrorAfter(StatementProxy statement, String sql, Throwable error) {
+        Execution execution = (Execution) statement.getAttribute(EXECUTION);
+        if (execution == null || execution.stat != null) {
+            return;
+        }
+        long nanos = System.nanoTime() - execution.start;
+        execution.stat = stat(sql);
+        execution.stat.errors.increment();
+        execution.stat.record(nanos, 0);
+        if (execution.sampled) {
+            log.warn("{} ms, error: {} {} {}", millis(nanos), error.getMessage(), sql, parameters(statement));
+        }
+    }
+
+    @Override
+    public void resultSet_close(FilterChain chain, ResultSetProxy resultSet) throws SQLException {
+        super.resultSet_close(chain, resultSet);
+        StatementProxy statement = resultSet.getStatementProxy();
+        Execution execution = (Execution) statement.getAttribute(EXECUTION);
+        if (execution == null || execution.stat == null || execution.rowsRecorded) {
+            return;
+        }
+        execution.rowsRecorded = true;
+        int rows = resultSet.getFetchRowCount();
+        execution.stat.rows.add(rows);
+        if (execution.sampled) {
+            log.info("{} ms, {} rows: {} {}", millis(execution.nanos), rows,
+                    resultSet.getSql(), parameters(statement));
+        }
+    }
+
+    private void before(StatementProxy statement) {
+        boolean sampled = sampleRate > 0 && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+        statement.putAttribute(EXECUTION, new Execution(System.nanoTime(), sampled));
+    }
+
+    /**
+     * @param rows 影响的行数，-1 表示返回结果集
+     */
+    private void after(StatementProxy statement, String sql, int rows) {
+        Execution execution = (Execution) statement.getAttribute(EXECUTION);
+        if (execution == null || execution.stat != null) {
+            return;
+        }
+        execution.nanos = System.nanoTime() - execution.start;
+        execution.stat = stat(sql);
+        execution.stat.record(execution.nanos, Math.max(rows, 0));
+        if (execution.sampled && rows >= 0) {
+            log.info("{} ms, {} rows: {} {}", millis(execution.nanos), rows, sql, parameters(statement));
+        }
+    }
+
+    private SqlStat stat(String sql) {
+        String key = normalized.get(sql);
+        if (key == null) {
+            key = normalize(sql);
+            if (normalized.size() < maxSql * 4) {
+                normalized.put(sql, key);
+            }
+        }
+        SqlStat stat = stats.get(key);
+        if (stat != null) {
+            return stat;
+        }
+        if (stats.size() >= maxSql) {
+            key = OTHER;
+        }
+        return stats.computeIfAbsent(key, SqlStat::new);
+    }
+
+    /**
+     * 常量替换为 ?，IN 列表合并为 (?)，连续空白合并为一个空格
+     * @param sql /
+     * @return /
+     */
+    static String normalize(String sql) {
+        if (sql == null) {
+            return OTHER;
+        }
+        String result = LITERAL.matcher(sql).replaceAll("?");
+        result = IN_LIST.matcher(result).replaceAll("(?)");
+        return SPACE.matcher(result).replaceAll(" ").trim();
+    }
+
+    private static List<Object> parameters(StatementProxy statement) {
+        if (!(statement instanceof PreparedStatementProxy)) {
+            return Collections.emptyList();
+        }
+        PreparedStatementProxy prepared = (PreparedStatementProxy) statement;
+        List<Object> values = new ArrayList<>(prepared.getParametersSize());
+        for (int i = 0; i < prepared.getParametersSize(); i++) {
+            JdbcParameter parameter = prepared.getParameter(i);
+            values.add(parameter == null ? null : parameter.getValue());
+        }
+        return values;
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1_000_000D);
+    }
+
+    /**
+     * 一次执行，保存在语句的属性中
+     */
+    private static class Execution {
+
+        private final long start;
+
+        private final boolean sampled;
+
+        private long nanos;
+
+        private SqlStat stat;
+
+        private boolean rowsRecorded;
+
+        private Execution(long start, boolean sampled) {
+            this.start = start;
+            this.sampled = sampled;
+        }
+    }
+
+    /**
+     * 一条归一化 SQL 的统计
+     */
+    private static class SqlStat {
+
+        private final String sql;
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder errors = new LongAdder();
+
+        private final LongAdder rows = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private final LongAdder[] histogram = new LongAdder[BUCKETS.length + 1];
+
+        private SqlStat(String sql) {
+            this.sql = sql;
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] = new LongAdder();
+            }
+        }
+
+        private void record(long nanos, int rows) {
+            count.increment();
+            this.rows.add(rows);
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            int bucket = 0;
+            while (bucket < BUCKETS.length && millis >= BUCKETS[bucket]) {
+                bucket++;
+            }
+            histogram[bucket].increment();
+        }
+
+        private Map<String, Object> toMap() {
+            long executed = count.sum();
+            Map<String, Object> map = new LinkedHashMap<>(12);
+            map.put("sql", sql);
+            map.put("count", executed);
+            map.put("errors", errors.sum());
+            map.put("rows", rows.sum());
+            map.put("totalMillis", millis(totalNanos.sum()));
+            map.put("avgMillis", executed == 0 ? "0.00" : millis(totalNanos.sum() / executed));
+            map.put("maxMillis", millis(maxNanos.get()));
+            Map<String, Long> distribution = new LinkedHashMap<>(12);
+            for (int i = 0; i < BUCKETS.length; i++) {
+                distribution.put("<" + BUCKETS[i] + "ms", histogram[i].sum());
+            }
+            distribution.put(">=" + BUCKETS[BUCKETS.length - 1] + "ms", histogram[BUCKETS.length].sum());
+            map.put("histogram", distribution);
+            return map;
+        }
+    }
+}
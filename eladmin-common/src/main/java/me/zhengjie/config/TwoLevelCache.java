@@ -0,0 +1,163 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.config;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 二级缓存，一级为本地 Caffeine 缓存，二级为 Redis 缓存
+ * 本地缓存直接返回缓存的对象，调用方不能修改返回值
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+public class TwoLevelCache implements Cache {
+
+    private final Cache redisCache;
+
+    private final com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> localCache;
+
+    /** 通知其他节点清理本地缓存，参数为 Redis 中的完整 key */
+    private final Consumer<String> publisher;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    TwoLevelCache(Cache redisCache, com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> localCache,
+                  Consumer<String> publisher) {
+        this.redisCache = redisCache;
+        this.localCache = localCache;
+        this.publisher = publisher;
+    }
+
+    @Override
+    public String getName() {
+        return redisCache.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = String.valueOf(key);
+        ValueWrapper wrapper = localCache.getIfPresent(localKey);
+        if (wrapper != null) {
+            localHits.increment();
+            return wrapper;
+        }
+        wrapper = redisCache.get(key);
+        if (wrapper != null) {
+            redisHits.increment();
+            localCache.put(localKey, wrapper);
+        } else {
+            misses.increment();
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper == null ? null : wrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        redisCache.put(key, value);
+        localCache.put(String.valueOf(key), new SimpleValueWrapper(value));
+        publisher.accept(redisKey(key));
+    }
+
+    @Override
+    public void evict(Object key) {
+        redisCache.evict(key);
+        localCache.invalidate(String.valueOf(key));
+        publisher.accept(redisKey(key));
+    }
+
+    @Override
+    public void clear() {
+        redisCache.clear();
+        localCache.invalidateAll();
+        publisher.accept(redisKey(TwoLevelCacheManager.ALL));
+    }
+
+    /**
+     * 收到其他节点的通知后只清理本地缓存
+     * @param key 缓存 key，为 * 时清空
+     */
+    void evictLocal(String key) {
+        if (TwoLevelCacheManager.ALL.equals(key)) {
+            localCache.invalidateAll();
+        } else {
+            localCache.invalidate(key);
+        }
+    }
+
+    /**
+     * 各级命中统计
+     * @return /
+     */
+    Map<String, Object> getStats() {
+        long local = localHits.sum();
+        long redis = redisHits.sum();
+        long miss = misses.sum();
+        long total = local + redis + miss;
+        Map<String, Object> stats = new LinkedHashMap<>(8);
+        stats.put("size", localCache.estimatedSize());
+        stats.put("localHits", local);
+        stats.put("redisHits", redis);
+        stats.put("misses", miss);
+        stats.put("localHitRatio", total == 0 ? 0D : (double) local / total);
+        stats.put("redisHitRatio", total == 0 ? 0D : (double) redis / total);
+        return stats;
+    }
+
+    private String redisKey(Object key) {
+        return getName() + TwoLevelCacheManager.SEPARATOR + key;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import me.zhengjie.utils.CacheBackend;
+import me.zhengjie.utils.CacheKey;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 二级缓存管理，开启本地缓存的 cacheName 使用 Caffeine + Redis，其余直接使用 Redis
+ * 本地缓存通过 Redis 发布订阅在各节点间失效，消息格式：节点ID|key1,key2，
+ * 节点ID为空的消息(如 CacheCleaner 直接删除 Redis key 时)所有节点都会处理
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+
+    static final String SEPARATOR = "::";
+
+    static final String ALL = "*";
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final CacheManager redisCacheManager;
+
+    private final CacheBackend cacheBackend;
+
+    private final Set<String> localCacheNames;
+
+    private final long maximumSize;
+
+    private final long expireSeconds;
+
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>(16);
+
+    public TwoLevelCacheManager(CacheManager redisCacheManager, CacheBackend cacheBackend,
+                                Collection<String> localCacheNames, long maximumSize, long expireSeconds) {
+        this.redisCacheManager = redisCacheManager;
+        this.cacheBackend = cacheBackend;
+        this.localCacheNames = new HashSet<>(localCacheNames);
+        this.maximumSize = maximumSize;
+        this.expireSeconds = expireSeconds;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache redisCache = redisCacheManager.getCache(name);
+        if (redisCache == null || !localCacheNames.contains(name)) {
+            return redisCache;
+        }
+        return caches.computeIfAbsent(name, key -> new TwoLevelCache(redisCache,
+                Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(expireSeconds, TimeUnit.SECONDS).build(),
+                this::publish));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return redisCacheManager.getCacheNames();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int index = body.indexOf('|');
+        if (index < 0 || nodeId.equals(body.substring(0, index))) {
+            return;
+        }
+        for (String key : body.substring(index + 1).split(",")) {
+            int separator = key.indexOf(SEPARATOR);
+            if (separator < 0) {
+                continue;
+            }
+            TwoLevelCache cache = caches.get(key.substring(0, separator));
+            if (cache != null) {
+                cache.evictLocal(key.substring(separator + SEPARATOR.length()));
+            }
+        }
+    }
+
+    /**
+     * 各缓存的命中统计
+     * @return /
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new TreeMap<>();
+        caches.forEach((name, cache) -> stats.put(name, cache.getStats()));
+        return stats;
+    }
+
+    private void publish(String key) {
+        try {
+            cacheBackend.publish(CacheKey.EVICT_CHANNEL, nodeId + "|" + key);
+        } catch (Exception e) {
+            log.error("Publish cache evict message failed：key -> [{}]", key, e);
+        }
+    }
+}
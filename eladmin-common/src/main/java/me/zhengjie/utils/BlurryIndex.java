@@ -0,0 +1,277 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.*;
+import javax.persistence.metamodel.EntityType;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * 多字段模糊搜索的进程内倒排索引，以字段值中每两个相邻字符(bigram)为词项，
+ * 模糊搜索时先通过索引得到候选ID，再与 LIKE 条件一起查询，避免全表扫描。
+ * 索引在首次搜索时从数据库加载，实体变更时由 BlurryIndexListener 在事务提交后增量更新；
+ * 每个实体的索引版本号保存在 cache::version 中，其他节点或批量更新导致版本号不一致时重新加载，见 {@link VersionedIndex}
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+@Slf4j
+@Component
+public class BlurryIndex {
+
+    private static final String VERSION_PREFIX = "blurry:";
+
+    /** 词项长度，更短的关键字不使用索引 */
+    private static final int GRAM = 2;
+
+    /** LIKE 的通配符与转义符，关键字包含时不使用索引 */
+    private static final String WILDCARDS = "%_\\";
+
+    /** 分解后的重音等组合字符 */
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final IndexVersionManager indexVersionManager;
+
+    private final boolean enabled;
+
+    /** 候选ID超过该数量时不使用索引 */
+    private final int maxCandidates;
+
+    /** 实体 -> 模糊搜索的字段 -> 索引 */
+    private final Map<Class<?>, Map<String, VersionedIndex<Index>>> indexes = new ConcurrentHashMap<>();
+
+    public BlurryIndex(IndexVersionManager indexVersionManager,
+                       @Value("${query.blurry-index.enabled:true}") boolean enabled,
+                       @Value("${query.blurry-index.max-candidates:1000}") int maxCandidates) {
+        this.indexVersionManager = indexVersionManager;
+        this.enabled = enabled;
+        this.maxCandidates = maxCandidates;
+    }
+
+    /**
+     * 根据索引得到候选ID的查询条件
+     * @param root /
+     * @param cb /
+     * @param fields 模糊搜索的字段
+     * @param value 关键字
+     * @return 不能使用索引时返回 null
+     */
+    public Predicate predicate(Root<?> root, CriteriaBuilder cb, String[] fields, String value) {
+        if (!enabled || value.chars().anyMatch(c -> WILDCARDS.indexOf(c) >= 0)) {
+            return null;
+        }
+        String keyword = fold(value);
+        if (keyword.length() < GRAM) {
+            return null;
+        }
+        Class<?> type = root.getJavaType();
+        VersionedIndex<Index> index = indexes.computeIfAbsent(type, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(String.join(",", fields), k -> new VersionedIndex<>(new Index(fields), idx -> load(type, idx)));
+        Long version = indexVersionManager.current(version(type));
+        if (version == null) {
+            return null;
+        }
+        Set<Object> ids;
+        try {
+            ids = index.read(version, idx -> idx.search(keyword));
+        } catch (Exception e) {
+            log.warn("模糊搜索索引不可用: {}", e.getMessage());
+            return null;
+        }
+        if (ids.size() > maxCandidates) {
+            return null;
+        }
+        return ids.isEmpty() ? cb.disjunction() : root.get(index.getIndex().idAttribute).in(ids);
+    }
+
+    /**
+     * 实体保存或删除，事务中调用时在提交后更新索引
+     * @param entity 实体
+     * @param removed 是否删除
+     */
+    public void onChange(Object entity, boolean removed) {
+        if (!enabled) {
+            return;
+        }
+        Class<?> type = entity.getClass();
+        // 在回调时读取字段值，提交时实体可能已被修改
+        Map<VersionedIndex<Index>, Consumer<Index>> changes = new HashMap<>();
+        Map<String, VersionedIndex<Index>> typeIndexes = indexes.getOrDefault(type, Collections.emptyMap());
+        BeanWrapperImpl wrapper = new BeanWrapperImpl(entity);
+        for (VersionedIndex<Index> versioned : typeIndexes.values()) {
+            Index index = versioned.getIndex();
+            if (index.idAttribute == null) {
+                continue;
+            }
+            Object[] row = new Object[index.fields.length + 1];
+            row[0] = wrapper.getPropertyValue(index.idAttribute);
+            for (int i = 0; i < index.fields.length; i++) {
+                row[i + 1] = removed ? null : wrapper.getPropertyValue(index.fields[i]);
+            }
+            changes.put(versioned, removed ? idx -> idx.remove(row[0]) : idx -> idx.put(row));
+        }
+        indexVersionManager.change(version(type), changes);
+    }
+
+    /**
+     * 通过 SQL 批量修改实体时调用，所有节点在下次搜索时重新加载索引，事务中调用时在提交后生效
+     * @param type 实体
+     */
+    public void invalidate(Class<?> type) {
+        indexVersionManager.invalidate(version(type));
+    }
+
+    private static String version(Class<?> type) {
+        return VERSION_PREFIX + type.getSimpleName();
+    }
+
+    private void load(Class<?> type, Index index) {
+        EntityType<?> entityType = em.getMetamodel().entity(type);
+        index.idAttribute = idAttribute(entityType);
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<?> root = query.from(type);
+        List<Selection<?>> selections = new ArrayList<>(index.fields.length + 1);
+        selections.add(root.get(index.idAttribute));
+        for (String field : index.fields) {
+            selections.add(root.get(field));
+        }
+        query.multiselect(selections);
+        index.clear();
+        for (Object[] row : em.createQuery(query).getResultList()) {
+            index.put(row);
+        }
+        log.debug("加载 {} 的模糊搜索索引 {}，共 {} 条", type.getSimpleName(), index.key(), index.tokens.size());
+    }
+
+    private static <X> String idAttribute(EntityType<X> entityType) {
+        return entityType.getId(entityType.getIdType().getJavaType()).getName();
+    }
+
+    /**
+     * 按 MySQL 默认排序规则的比较方式归一化：去除重音并转为小写，使索引结果是 LIKE 结果的超集
+     */
+    static String fold(String value) {
+        return MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("").toLowerCase();
+    }
+
+    /**
+     * 关键字或字段值的词项
+     */
+    static Set<String> grams(String value) {
+        Set<String> grams = new HashSet<>();
+        if (value.length() < GRAM) {
+            grams.add(value);
+            return grams;
+        }
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    /**
+     * 一组模糊搜索字段的索引，通过 VersionedIndex 同步访问
+     */
+    static class Index {
+
+        private final String[] fields;
+
+        private volatile String idAttribute;
+
+        /** 词项 -> ID */
+        private final Map<String, Set<Object>> postings = new HashMap<>();
+
+        /** ID -> 词项，用于更新与删除 */
+        private final Map<Object, Set<String>> tokens = new HashMap<>();
+
+        Index(String[] fields) {
+            this.fields = fields;
+        }
+
+        /**
+         * @param row ID 与各字段的值
+         */
+        void put(Object[] row) {
+            remove(row[0]);
+            Set<String> grams = new HashSet<>();
+            for (int i = 1; i < row.length; i++) {
+                if (row[i] != null) {
+                    grams.addAll(grams(fold(row[i].toString())));
+                }
+            }
+            tokens.put(row[0], grams);
+            for (String gram : grams) {
+                postings.computeIfAbsent(gram, k -> new HashSet<>()).add(row[0]);
+            }
+        }
+
+        void remove(Object id) {
+            Set<String> grams = tokens.remove(id);
+            if (grams == null) {
+                return;
+            }
+            for (String gram : grams) {
+                Set<Object> ids = postings.get(gram);
+                if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+
+        void clear() {
+            postings.clear();
+            tokens.clear();
+        }
+
+        /**
+         * 包含关键字所有词项的ID，是 LIKE 结果的超集
+         */
+        Set<Object> search(String keyword) {
+            List<Set<Object>> matches = new ArrayList<>();
+            for (String gram : grams(keyword)) {
+                Set<Object> ids = postings.get(gram);
+                if (ids == null) {
+                    return Collections.emptySet();
+                }
+                matches.add(ids);
+            }
+            // 从最小的集合开始求交集
+            matches.sort(Comparator.comparingInt(Set::size));
+            Set<Object> result = new HashSet<>(matches.get(0));
+            for (int i = 1; i < matches.size() && !result.isEmpty(); i++) {
+                result.retainAll(matches.get(i));
+            }
+            return result;
+        }
+
+        String key() {
+            return String.join(",", fields);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.utils;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * 实体保存与删除时维护 BlurryIndex，索引在事务提交后更新
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+public class BlurryIndexListener {
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        SpringContextHolder.getBean(BlurryIndex.class).onChange(entity, false);
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        SpringContextHolder.getBean(BlurryIndex.class).onChange(entity, true);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.utils;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * 缓存存储，RedisUtils 的底层实现
+ * 默认使用 Redis，单机部署或测试时可通过 redis.embedded=true 切换为进程内存储
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+public interface CacheBackend {
+
+    /**
+     * 设置过期时间
+     * @param key 键
+     * @param time 时间
+     * @param timeUnit 单位
+     */
+    void expire(String key, long time, TimeUnit timeUnit);
+
+    /**
+     * 获取过期时间
+     * @param key 键
+     * @return 剩余时间(秒)，-1 表示永久有效，-2 表示不存在
+     */
+    long getExpire(String key);
+
+    /**
+     * 遍历匹配的 key，consumer 返回 false 时停止遍历
+     * @param pattern 匹配规则，与 Redis SCAN 的 MATCH 一致
+     * @param consumer /
+     */
+    void scan(String pattern, Predicate<String> consumer);
+
+    /**
+     * 判断key是否存在
+     * @param key 键
+     * @return /
+     */
+    boolean hasKey(String key);
+
+    /**
+     * 删除
+     * @param keys 键
+     * @return 删除的数量
+     */
+    long del(Collection<String> keys);
+
+    /**
+     * 批量删除 key、递增 hash 中的项并发布消息，Redis 中通过 pipeline 一次执行
+     * @param keys 待删除的键
+     * @param increments 待递增的项，key -> items
+     * @param channel 发布频道
+     * @param message 发布的消息，为空时不发布
+     */
+    void batch(Collection<String> keys, Map<String, Set<String>> increments, String channel, String message);
+
+    /**
+     * 发布消息
+     * @param channel 频道
+     * @param message 消息
+     */
+    void publish(String channel, String message);
+
+    // ============================String=============================
+
+    Object get(String key);
+
+    List<Object> multiGet(Collection<String> keys);
+
+    /**
+     * 放入缓存
+     * @param key 键
+     * @param value 值
+     * @param time 时间，小于等于0时永久有效
+     * @param timeUnit 单位
+     */
+    void set(String key, Object value, long time, TimeUnit timeUnit);
+
+    /**
+     * 原子递增，未超过上限时加一，第一次递增时设置过期时间，等价于 LimitAspect 中的限流脚本
+     * @param key 键
+     * @param limit 上限，当前值已超过上限时不再递增
+     * @param seconds 过期时间(秒)
+     * @return 递增后的值
+     */
+    long incrWithLimit(String key, long limit, long seconds);
+
+    // ================================Map=================================
+
+    Object hget(String key, String item);
+
+    List<Object> hmget(String key, Collection<Object> items);
+
+    Map<Object, Object> hgetAll(String key);
+
+    void hmset(String key, Map<String, Object> map);
+
+    void hset(String key, String item, Object value);
+
+    void hdel(String key, Object... items);
+
+    boolean hHasKey(String key, String item);
+
+    double hincr(String key, String item, double by);
+
+    // ============================set=============================
+
+    Set<Object> sMembers(String key);
+
+    boolean sIsMember(String key, Object value);
+
+    long sAdd(String key, Object... values);
+
+    long sSize(String key);
+
+    long sRemove(String key, Object... values);
+
+    // ===============================list=================================
+
+    List<Object> lRange(String key, long start, long end);
+
+    long lSize(String key);
+
+    Object lIndex(String key, long index);
+
+    void rightPush(String key, Object value);
+
+    void rightPushAll(String key, List<Object> values);
+
+    void lSet(String key, long index, Object value);
+
+    long lRemove(String key, long count, Object value);
+}
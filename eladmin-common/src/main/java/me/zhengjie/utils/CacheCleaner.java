@@ -0,0 +1,163 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存清理，在事务中调用时先收集并去重，事务提交后一次性执行(Redis 中使用 pipeline)，
+ * 并在短暂延迟后再删除一次，避免并发读取在提交前把旧数据重新写入缓存
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+@Slf4j
+@Component
+public class CacheCleaner {
+
+    private final CacheBackend cacheBackend;
+
+    /** 延迟双删的间隔(毫秒)，小于等于 0 时不做第二次删除 */
+    private final long delay;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "el-cache-cleaner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CacheCleaner(CacheBackend cacheBackend, @Value("${redis.delay-delete:500}") long delay) {
+        this.cacheBackend = cacheBackend;
+        this.delay = delay;
+    }
+
+    /**
+     * 删除缓存，事务中调用时在提交后执行
+     * @param keys 键
+     */
+    public void del(String... keys) {
+        del(Arrays.asList(keys));
+    }
+
+    /**
+     * 删除缓存，事务中调用时在提交后执行
+     * @param keys 键
+     */
+    public void del(Collection<String> keys) {
+        Buffer buffer = currentBuffer();
+        if (buffer != null) {
+            buffer.keys.addAll(keys);
+        } else {
+            flushNow(new LinkedHashSet<>(keys), Collections.emptyMap());
+        }
+    }
+
+    /**
+     * 根据前缀与ID删除缓存，事务中调用时在提交后执行
+     * @param prefix 前缀
+     * @param ids    id
+     */
+    public void delByIds(String prefix, Collection<Long> ids) {
+        List<String> keys = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            keys.add(prefix + id);
+        }
+        del(keys);
+    }
+
+    /**
+     * hash 中的项加一，用于递增缓存版本号，同一事务中的多次递增只执行一次
+     * @param key  键
+     * @param item 项
+     */
+    public void hincr(String key, String item) {
+        Buffer buffer = currentBuffer();
+        if (buffer != null) {
+            buffer.increments.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(item);
+        } else {
+            flushNow(Collections.emptySet(), Collections.singletonMap(key, Collections.singleton(item)));
+        }
+    }
+
+    private Buffer currentBuffer() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Buffer buffer = (Buffer) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            buffer = new Buffer();
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(buffer);
+        }
+        return buffer;
+    }
+
+    private void flushNow(Set<String> keys, Map<String, Set<String>> increments) {
+        if (keys.isEmpty() && increments.isEmpty()) {
+            return;
+        }
+        // 通知所有节点清理本地缓存
+        String message = keys.isEmpty() ? null : "|" + String.join(",", keys);
+        try {
+            cacheBackend.batch(keys, increments, CacheKey.EVICT_CHANNEL, message);
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+        }
+        log.debug("清理缓存：{}，递增版本号：{}", keys, increments);
+        if (!keys.isEmpty() && delay > 0) {
+            scheduler.schedule(() -> {
+                try {
+                    cacheBackend.batch(keys, Collections.emptyMap(), CacheKey.EVICT_CHANNEL, message);
+                } catch (Exception e) {
+                    log.error(e.getMessage(), e);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * 事务内收集的待清理缓存
+     */
+    private class Buffer implements TransactionSynchronization {
+
+        private final Set<String> keys = new LinkedHashSet<>();
+
+        private final Map<String, Set<String>> increments = new LinkedHashMap<>();
+
+        @Override
+        public void afterCommit() {
+            flushNow(keys, increments);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(CacheCleaner.this);
+        }
+    }
+}
@@ -55,4 +55,20 @@ public interface CacheKey {
      * 数据字典
      */
     String DICT_NAME = "dict::name:";
+    /**
+     * 缓存版本号，hash 结构，field 如 role:1、dept
+     */
+    String VERSION = "cache::version";
+    /**
+     * 本地缓存失效通知频道
+     */
+    String EVICT_CHANNEL = "cache::evict";
+    /**
+     * Hibernate 二级缓存失效通知频道
+     */
+    String ENTITY_EVICT_CHANNEL = "cache::entity-evict";
+    /**
+     * 分页查询的总数
+     */
+    String PAGE_COUNT = "page::count:";
 }
@@ -0,0 +1,187 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 熔断器，连续失败或慢调用达到阈值后打开，打开期间直接拒绝调用；
+ * 打开一段时间后进入半开状态，只放行一个探测调用，成功则关闭，失败则重新打开
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        /** 正常 */
+        CLOSED,
+        /** 熔断 */
+        OPEN,
+        /** 探测中 */
+        HALF_OPEN
+    }
+
+    private final String name;
+
+    /** 连续失败多少次后熔断，小于等于 0 时不熔断 */
+    private final int failureThreshold;
+
+    /** 超过该耗时(毫秒)的调用视为失败 */
+    private final long slowCallMillis;
+
+    /** 熔断后多久(毫秒)进入半开状态 */
+    private final long openMillis;
+
+    /** 探测成功后、关闭前执行，返回 false 时重新熔断 */
+    private volatile BooleanSupplier beforeClose = () -> true;
+
+    private volatile State state = State.CLOSED;
+
+    private volatile long openedAt;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private final AtomicBoolean probing = new AtomicBoolean();
+
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder slowCalls = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder trips = new LongAdder();
+
+    public CircuitBreaker(String name, int failureThreshold, long slowCallMillis, long openMillis) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.slowCallMillis = slowCallMillis;
+        this.openMillis = openMillis;
+    }
+
+    public void setBeforeClose(BooleanSupplier beforeClose) {
+        this.beforeClose = beforeClose;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * 是否允许调用，允许时调用结束后必须调用 onSuccess 或 onError
+     * @return /
+     */
+    public boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            synchronized (this) {
+                if (state == State.OPEN) {
+                    state = State.HALF_OPEN;
+                }
+            }
+        }
+        if (state == State.HALF_OPEN && probing.compareAndSet(false, true)) {
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * 调用成功
+     * @param elapsedMillis 耗时
+     */
+    public void onSuccess(long elapsedMillis) {
+        if (slowCallMillis > 0 && elapsedMillis >= slowCallMillis) {
+            slowCalls.increment();
+            onFailure();
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            close();
+        } else {
+            consecutiveFailures.set(0);
+        }
+    }
+
+    /**
+     * 调用失败
+     */
+    public void onError() {
+        errors.increment();
+        onFailure();
+    }
+
+    private void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (failureThreshold > 0 && consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            open();
+        }
+    }
+
+    private synchronized void open() {
+        if (state != State.OPEN) {
+            trips.increment();
+            log.warn("{} 熔断，{} 毫秒后尝试恢复", name, openMillis);
+        }
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        consecutiveFailures.set(0);
+        probing.set(false);
+    }
+
+    private synchronized void close() {
+        if (state != State.HALF_OPEN) {
+            return;
+        }
+        boolean ready;
+        try {
+            ready = beforeClose.getAsBoolean();
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            ready = false;
+        }
+        if (!ready) {
+            open();
+            return;
+        }
+        state = State.CLOSED;
+        consecutiveFailures.set(0);
+        probing.set(false);
+        log.info("{} 已恢复", name);
+    }
+
+    /**
+     * 熔断器状态
+     * @return /
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(8);
+        stats.put("state", state);
+        stats.put("openedAt", openedAt == 0 ? null : DateUtil.localDateTimeFormatyMdHms(DateUtil.fromTimeStamp(openedAt / 1000)));
+        stats.put("trips", trips.sum());
+        stats.put("errors", errors.sum());
+        stats.put("slowCalls", slowCalls.sum());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,515 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 带熔断的缓存存储，Redis 异常或变慢时熔断，熔断期间不再等待 Redis 超时，改用本地存储：
+ * 1、熔断期间的删除、版本号递增、写入会被记录，恢复时先回放到 Redis 再关闭熔断，避免 Redis 中残留旧数据；
+ * 2、mirrorPrefixes 中的 key(如在线用户、登录用户缓存)在正常时同步一份到本地，熔断期间用户不会被强制下线，
+ *    删除这些 key(如退出登录、踢出用户)时通过 {@link CacheKey#EVICT_CHANNEL} 通知其他节点删除本地副本；
+ * 3、fallback 为 false 时熔断期间直接抛出异常
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+@Slf4j
+public class CircuitBreakerCacheBackend implements CacheBackend, MessageListener {
+
+    /** 熔断期间最多记录的变更数量 */
+    private static final int MAX_PENDING = 10000;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final CacheBackend redis;
+
+    private final EmbeddedCacheBackend local;
+
+    private final CircuitBreaker breaker;
+
+    private final boolean fallback;
+
+    private final String[] mirrorPrefixes;
+
+    /** 读取时同步到本地的 key 的过期时间(秒) */
+    private final long mirrorSeconds;
+
+    /** 以下待回放的变更在 this 上同步 */
+    private Set<String> pendingDeletes = new LinkedHashSet<>();
+    private Map<String, Set<String>> pendingIncrements = new LinkedHashMap<>();
+    private Set<String> pendingWrites = new LinkedHashSet<>();
+    private boolean overflow;
+
+    private volatile boolean hasPending;
+
+    private final AtomicBoolean replaying = new AtomicBoolean();
+
+    public CircuitBreakerCacheBackend(CacheBackend redis, EmbeddedCacheBackend local, CircuitBreaker breaker,
+                                      boolean fallback, String[] mirrorPrefixes, long mirrorSeconds) {
+        this.redis = redis;
+        this.local = local;
+        this.breaker = breaker;
+        this.fallback = fallback;
+        this.mirrorPrefixes = mirrorPrefixes;
+        this.mirrorSeconds = mirrorSeconds;
+        breaker.setBeforeClose(this::replay);
+    }
+
+    @Override
+    public void expire(String key, long time, TimeUnit timeUnit) {
+        call(backend -> {
+            backend.expire(key, time, timeUnit);
+            if (isMirrored(key)) {
+                local.expire(key, time, timeUnit);
+            }
+            return null;
+        }, backend -> {
+            backend.expire(key, time, timeUnit);
+            recordWrite(key);
+            return null;
+        });
+    }
+
+    @Override
+    public long getExpire(String key) {
+        return read(backend -> backend.getExpire(key));
+    }
+
+    @Override
+    public void scan(String pattern, Predicate<String> consumer) {
+        boolean[] emitted = {false};
+        call(backend -> {
+            backend.scan(pattern, key -> {
+                emitted[0] = true;
+                return consumer.test(key);
+            });
+            return null;
+        }, backend -> {
+            // 已经返回过部分结果时不再从本地补充，避免重复
+            if (emitted[0]) {
+                throw new IllegalStateException("Scan interrupted：" + pattern);
+            }
+            backend.scan(pattern, consumer);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean hasKey(String key) {
+        return read(backend -> backend.hasKey(key));
+    }
+
+    @Override
+    public long del(Collection<String> keys) {
+        return call(backend -> {
+            local.del(keys);
+            long count = backend.del(keys);
+            publishMirrorEvict(keys);
+            return count;
+        }, backend -> {
+            recordDeletes(keys);
+            return backend.del(keys);
+        });
+    }
+
+    @Override
+    public void batch(Collection<String> keys, Map<String, Set<String>> increments, String channel, String message) {
+        call(backend -> {
+            local.del(keys);
+            backend.batch(keys, increments, channel, message);
+            publishMirrorEvict(keys);
+            return null;
+        }, backend -> {
+            recordDeletes(keys);
+            increments.forEach((key, items) -> items.forEach(item -> recordIncrement(key, item)));
+            backend.batch(keys, increments, channel, message);
+            return null;
+        });
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        read(backend -> {
+            backend.publish(channel, message);
+            return null;
+        });
+    }
+
+    /**
+     * 删除其他节点发布的本地副本，消息格式与 TwoLevelCacheManager 相同：节点ID|key1,key2
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int index = body.indexOf('|');
+        if (index < 0 || nodeId.equals(body.substring(0, index))) {
+            return;
+        }
+        List<String> keys = new ArrayList<>();
+        for (String key : body.substring(index + 1).split(",")) {
+            if (isMirrored(key)) {
+                keys.add(key);
+            }
+        }
+        if (!keys.isEmpty()) {
+            local.del(keys);
+        }
+    }
+
+    // ============================String=============================
+
+    @Override
+    public Object get(String key) {
+        return call(backend -> {
+            Object value = backend.get(key);
+            if (value != null && isMirrored(key) && !local.hasKey(key)) {
+                local.set(key, value, mirrorSeconds, TimeUnit.SECONDS);
+            }
+            return value;
+        }, backend -> backend.get(key));
+    }
+
+    @Override
+    public List<Object> multiGet(Collection<String> keys) {
+        return read(backend -> backend.multiGet(keys));
+    }
+
+    @Override
+    public void set(String key, Object value, long time, TimeUnit timeUnit) {
+        call(backend -> {
+            backend.set(key, value, time, timeUnit);
+            if (isMirrored(key)) {
+                local.set(key, value, time, timeUnit);
+            }
+            return null;
+        }, backend -> {
+            backend.set(key, value, time, timeUnit);
+            recordWrite(key);
+            return null;
+        });
+    }
+
+    @Override
+    public long incrWithLimit(String key, long limit, long seconds) {
+        // 熔断期间按节点限流
+        return read(backend -> backend.incrWithLimit(key, limit, seconds));
+    }
+
+    // ================================Map=================================
+
+    @Override
+    public Object hget(String key, String item) {
+        return read(backend -> backend.hget(key, item));
+    }
+
+    @Override
+    public List<Object> hmget(String key, Collection<Object> items) {
+        return read(backend -> backend.hmget(key, items));
+    }
+
+    @Override
+    public Map<Object, Object> hgetAll(String key) {
+        return read(backend -> backend.hgetAll(key));
+    }
+
+    @Override
+    public void hmset(String key, Map<String, Object> map) {
+        write(key, backend -> {
+            backend.hmset(key, map);
+            return null;
+        });
+    }
+
+    @Override
+    public void hset(String key, String item, Object value) {
+        write(key, backend -> {
+            backend.hset(key, item, value);
+            return null;
+        });
+    }
+
+    @Override
+    public void hdel(String key, Object... items) {
+        write(key, backend -> {
+            backend.hdel(key, items);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean hHasKey(String key, String item) {
+        return read(backend -> backend.hHasKey(key, item));
+    }
+
+    @Override
+    public double hincr(String key, String item, double by) {
+        return call(backend -> backend.hincr(key, item, by), backend -> {
+            recordIncrement(key, item);
+            return backend.hincr(key, item, by);
+        });
+    }
+
+    // ============================set=============================
+
+    @Override
+    public Set<Object> sMembers(String key) {
+        return read(backend -> backend.sMembers(key));
+    }
+
+    @Override
+    public boolean sIsMember(String key, Object value) {
+        return read(backend -> backend.sIsMember(key, value));
+    }
+
+    @Override
+    public long sAdd(String key, Object... values) {
+        return write(key, backend -> backend.sAdd(key, values));
+    }
+
+    @Override
+    public long sSize(String key) {
+        return read(backend -> backend.sSize(key));
+    }
+
+    @Override
+    public long sRemove(String key, Object... values) {
+        return write(key, backend -> backend.sRemove(key, values));
+    }
+
+    // ===============================list=================================
+
+    @Override
+    public List<Object> lRange(String key, long start, long end) {
+        return read(backend -> backend.lRange(key, start, end));
+    }
+
+    @Override
+    public long lSize(String key) {
+        return read(backend -> backend.lSize(key));
+    }
+
+    @Override
+    public Object lIndex(String key, long index) {
+        return read(backend -> backend.lIndex(key, index));
+    }
+
+    @Override
+    public void rightPush(String key, Object value) {
+        write(key, backend -> {
+            backend.rightPush(key, value);
+            return null;
+        });
+    }
+
+    @Override
+    public void rightPushAll(String key, List<Object> values) {
+        write(key, backend -> {
+            backend.rightPushAll(key, values);
+            return null;
+        });
+    }
+
+    @Override
+    public void lSet(String key, long index, Object value) {
+        write(key, backend -> {
+            backend.lSet(key, index, value);
+            return null;
+        });
+    }
+
+    @Override
+    public long lRemove(String key, long count, Object value) {
+        return write(key, backend -> backend.lRemove(key, count, value));
+    }
+
+    /**
+     * 熔断器与待回放变更的状态
+     * @return /
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(breaker.getStats());
+        synchronized (this) {
+            stats.put("pendingDeletes", pendingDeletes.size());
+            stats.put("pendingIncrements", pendingIncrements.values().stream().mapToInt(Set::size).sum());
+            stats.put("pendingWrites", pendingWrites.size());
+            stats.put("pendingOverflow", overflow);
+        }
+        stats.put("localKeys", local.size());
+        return stats;
+    }
+
+    public void shutdown() {
+        local.shutdown();
+    }
+
+    private <T> T read(Function<CacheBackend, T> operation) {
+        return call(operation, operation);
+    }
+
+    /**
+     * hash、set、list 在熔断期间的修改不回放，恢复时删除 Redis 中对应的 key
+     */
+    private <T> T write(String key, Function<CacheBackend, T> operation) {
+        return call(operation, backend -> {
+            recordDeletes(Collections.singleton(key));
+            return operation.apply(backend);
+        });
+    }
+
+    private <T> T call(Function<CacheBackend, T> operation, Function<CacheBackend, T> fallbackOperation) {
+        if (breaker.tryAcquire()) {
+            long start = System.nanoTime();
+            try {
+                T result = operation.apply(redis);
+                breaker.onSuccess(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                if (hasPending && breaker.getState() == CircuitBreaker.State.CLOSED) {
+                    // 半开期间被拒绝的调用产生的变更
+                    replay();
+                }
+                return result;
+            } catch (RuntimeException e) {
+                breaker.onError();
+                if (!fallback) {
+                    throw e;
+                }
+                log.warn("Redis 调用失败，使用本地缓存：{}", e.getMessage());
+            }
+        } else if (!fallback) {
+            throw new IllegalStateException("Redis 熔断中");
+        }
+        return fallbackOperation.apply(local);
+    }
+
+    private boolean isMirrored(String key) {
+        for (String prefix : mirrorPrefixes) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 通知其他节点删除同步到本地的 key，避免熔断后仍能读取到已删除的在线用户
+     */
+    private void publishMirrorEvict(Collection<String> keys) {
+        StringJoiner joiner = new StringJoiner(",", nodeId + "|", "");
+        joiner.setEmptyValue("");
+        for (String key : keys) {
+            if (isMirrored(key)) {
+                joiner.add(key);
+            }
+        }
+        if (joiner.length() == 0) {
+            return;
+        }
+        try {
+            redis.publish(CacheKey.EVICT_CHANNEL, joiner.toString());
+        } catch (RuntimeException e) {
+            log.error("Publish mirror evict message failed：{}", joiner, e);
+        }
+    }
+
+    private synchronized void recordDeletes(Collection<String> keys) {
+        for (String key : keys) {
+            if (pendingDeletes.size() >= MAX_PENDING) {
+                overflow = true;
+                break;
+            }
+            pendingDeletes.add(key);
+        }
+        hasPending = true;
+    }
+
+    private synchronized void recordIncrement(String key, String item) {
+        pendingIncrements.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(item);
+        hasPending = true;
+    }
+
+    private synchronized void recordWrite(String key) {
+        if (pendingWrites.size() >= MAX_PENDING) {
+            overflow = true;
+        } else {
+            pendingWrites.add(key);
+        }
+        hasPending = true;
+    }
+
+    /**
+     * 将熔断期间的变更回放到 Redis，成功后清空本地存储
+     * @return 是否成功
+     */
+    private boolean replay() {
+        if (!replaying.compareAndSet(false, true)) {
+            return true;
+        }
+        Set<String> deletes;
+        Map<String, Set<String>> increments;
+        Set<String> writes;
+        boolean lost;
+        synchronized (this) {
+            deletes = pendingDeletes;
+            increments = pendingIncrements;
+            writes = pendingWrites;
+            lost = overflow;
+            pendingDeletes = new LinkedHashSet<>();
+            pendingIncrements = new LinkedHashMap<>();
+            pendingWrites = new LinkedHashSet<>();
+            overflow = false;
+            hasPending = false;
+        }
+        try {
+            if (!deletes.isEmpty() || !increments.isEmpty()) {
+                // 同时通知各节点清理本地缓存
+                redis.batch(deletes, increments, CacheKey.EVICT_CHANNEL, deletes.isEmpty() ? null : "|" + String.join(",", deletes));
+            }
+            for (String key : writes) {
+                Object value = local.get(key);
+                if (value != null) {
+                    long ttl = local.getExpire(key);
+                    redis.set(key, value, ttl > 0 ? ttl : 0, TimeUnit.SECONDS);
+                }
+            }
+            if (lost) {
+                log.warn("熔断期间的缓存变更超过 {} 条，部分缓存在过期前可能不一致", MAX_PENDING);
+            }
+            // 本地数据只在熔断期间使用，需要同步的 key 之后读取时重新写入
+            local.clear();
+            log.info("回放熔断期间的缓存变更：删除 {}，递增 {}，写入 {}", deletes.size(), increments.size(), writes.size());
+            return true;
+        } catch (RuntimeException e) {
+            log.error("回放熔断期间的缓存变更失败：{}", e.getMessage());
+            synchronized (this) {
+                pendingDeletes.addAll(deletes);
+                increments.forEach((key, items) -> pendingIncrements.computeIfAbsent(key, k -> new LinkedHashSet<>()).addAll(items));
+                pendingWrites.addAll(writes);
+                overflow |= lost;
+                hasPending = true;
+            }
+            return false;
+        } finally {
+            replaying.set(false);
+        }
+    }
+}
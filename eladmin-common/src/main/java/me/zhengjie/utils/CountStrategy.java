@@ -0,0 +1,36 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.utils;
+
+/**
+ * 分页查询总数的统计方式，见 {@link PageUtil#page}
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+public enum CountStrategy {
+
+    /** 每次执行 COUNT 查询 */
+    EXACT,
+
+    /** 执行 COUNT 查询，结果按查询条件缓存一段时间 */
+    CACHED,
+
+    /** 没有查询条件时使用表统计信息估算，有查询条件时同 CACHED */
+    ESTIMATED,
+
+    /** 不统计总数，只判断是否有下一页，总数为已翻过的数量加当前页数量，有下一页时再加 1 */
+    HAS_NEXT
+}
@@ -0,0 +1,25 @@
+package me.zhengjie.utils;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 游标分页结果，不统计总数，totalElements 固定为 -1；
+ * 通过 nextCursor、prevCursor 查询下一页与上一页，没有更多数据时为 null
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+@Getter
+public class CursorPageResult<T> extends PageResult<T> {
+
+    private final String nextCursor;
+
+    private final String prevCursor;
+
+    CursorPageResult(List<T> content, String nextCursor, String prevCursor) {
+        super(content, -1);
+        this.nextCursor = nextCursor;
+        this.prevCursor = prevCursor;
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据权限的部门集合物化到 sys_data_scope 表，以部门ID排序后的摘要为 key，内容相同的数据权限共用一份且写入后不再修改。
+ * 部门数量较多时查询条件由 dept_id IN (?, ?, ...) 改为按 key 关联该表，只有一个绑定参数，执行计划可以复用。
+ * 首次出现的集合写入主库后，本次查询仍使用 IN；之后在当前连接(可能是从库)上确认数据已可见才使用该表。
+ * 每个 key 的最近使用时间记录在 sys_data_scope_key 中(每个节点每小时最多更新一次)，
+ * 后台定时删除超过 retentionDays 未使用的 key，角色调整后不再使用的部门集合不会一直保留
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+@Slf4j
+@Component
+public class DataScopeTable {
+
+    /** 在 DataScopeConfig 中注册的 SQL 函数，参数为部门列与 key */
+    public static final String FUNCTION = "data_scope";
+
+    private static final String INSERT_SQL = "insert ignore into sys_data_scope (scope_key, dept_id) values (?, ?)";
+
+    private static final String COUNT_SQL = "select count(*) from sys_data_scope where scope_key = ?";
+
+    private static final String TOUCH_SQL = "insert into sys_data_scope_key (scope_key, last_used) values (?, now()) " +
+            "on duplicate key update last_used = now()";
+
+    private static final String STALE_SQL = "select scope_key from sys_data_scope_key " +
+            "where last_used < date_sub(now(), interval ? day) limit ?";
+
+    private static final String DELETE_KEY_SQL = "delete from sys_data_scope_key " +
+            "where scope_key = ? and last_used < date_sub(now(), interval ? day)";
+
+    private static final String DELETE_SQL = "delete from sys_data_scope where scope_key = ?";
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate writeTemplate;
+
+    private final boolean enabled;
+
+    /** 部门数量不少于该值时使用物化表 */
+    private final int threshold;
+
+    /** 超过该天数未使用的 key 被删除，不小于 2 天，大于已确认可见的 key 在本地保留的时间 */
+    private final int retentionDays;
+
+    /** 清理的间隔(分钟) */
+    private final long cleanupMinutes;
+
+    /** 已确认可见的 key */
+    private final Cache<String, Boolean> visible = Caffeine.newBuilder()
+            .maximumSize(10000).expireAfterAccess(1, TimeUnit.DAYS).build();
+
+    /** 本节点已写入的 key，等待复制期间不重复写入 */
+    private final Cache<String, Boolean> written = Caffeine.newBuilder()
+            .maximumSize(10000).expireAfterWrite(10, TimeUnit.MINUTES).build();
+
+    /** 本节点已更新使用时间的 key */
+    private final Cache<String, Boolean> touched = Caffeine.newBuilder()
+            .maximumSize(10000).expireAfterWrite(1, TimeUnit.HOURS).build();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "el-data-scope-cleaner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DataScopeTable(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                          @Value("${query.data-scope.enabled:true}") boolean enabled,
+                          @Value("${query.data-scope.threshold:200}") int threshold,
+                          @Value("${query.data-scope.retention-days:30}") int retentionDays,
+                          @Value("${query.data-scope.cleanup-interval-minutes:60}") long cleanupMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        // 在新的读写事务中写入，避免使用只读事务的从库连接
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.threshold = Math.max(threshold, 1);
+        this.retentionDays = Math.max(retentionDays, 2);
+        this.cleanupMinutes = Math.max(cleanupMinutes, 1);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            scheduler.scheduleWithFixedDelay(this::cleanup, cleanupMinutes, cleanupMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 数据权限的查询条件
+     * @param cb /
+     * @param column 部门ID
+     * @param deptIds 数据权限
+     * @return 不能使用物化表时返回 null，由调用方使用 IN
+     */
+    public Predicate predicate(CriteriaBuilder cb, Expression<?> column, List<Long> deptIds) {
+        if (!enabled || deptIds.size() < threshold) {
+            return null;
+        }
+        List<Long> ids = new ArrayList<>(new TreeSet<>(deptIds));
+        if (ids.size() < threshold) {
+            return null;
+        }
+        String key = key(ids);
+        try {
+            if (visible.getIfPresent(key) == null) {
+                Long count = jdbcTemplate.queryForObject(COUNT_SQL, Long.class, key);
+                if (count == null || count < ids.size()) {
+                    if (written.getIfPresent(key) == null) {
+                        materialize(key, ids);
+                        written.put(key, true);
+                    }
+                    return null;
+                }
+                visible.put(key, true);
+            }
+        } catch (Exception e) {
+            log.warn("数据权限物化表不可用: {}", e.getMessage());
+            return null;
+        }
+        touch(key);
+        return cb.equal(cb.function(FUNCTION, Integer.class, column, cb.literal(key)), 1);
+    }
+
+    /**
+     * 删除超过保留天数未使用的 key，各节点都会执行，删除前再次检查使用时间
+     */
+    void cleanup() {
+        try {
+            List<String> keys = jdbcTemplate.queryForList(STALE_SQL, String.class, retentionDays, BATCH_SIZE);
+            int deleted = 0;
+            for (String key : keys) {
+                Boolean removed = writeTemplate.execute(status -> {
+                    if (jdbcTemplate.update(DELETE_KEY_SQL, key, retentionDays) == 0) {
+                        return false;
+                    }
+                    jdbcTemplate.update(DELETE_SQL, key);
+                    return true;
+                });
+                if (Boolean.TRUE.equals(removed)) {
+                    visible.invalidate(key);
+                    deleted++;
+                }
+            }
+            if (deleted > 0) {
+                log.info("清理 {} 天未使用的数据权限物化数据，共 {} 个", retentionDays, deleted);
+            }
+        } catch (Exception e) {
+            log.warn("清理数据权限物化表失败: {}", e.getMessage());
+        }
+    }
+
+    private void materialize(String key, List<Long> ids) {
+        writeTemplate.execute(status -> {
+            jdbcTemplate.batchUpdate(INSERT_SQL, ids, BATCH_SIZE, (ps, id) -> {
+                ps.setString(1, key);
+                ps.setLong(2, id);
+            });
+            jdbcTemplate.update(TOUCH_SQL, key);
+            return null;
+        });
+        touched.put(key, true);
+        log.debug("物化数据权限 {}，共 {} 个部门", key, ids.size());
+    }
+
+    /**
+     * 更新 key 的使用时间，失败时不影响查询
+     */
+    private void touch(String key) {
+        if (touched.getIfPresent(key) != null) {
+            return;
+        }
+        try {
+            writeTemplate.execute(status -> jdbcTemplate.update(TOUCH_SQL, key));
+            touched.put(key, true);
+        } catch (Exception e) {
+            log.warn("更新数据权限物化数据的使用时间失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 部门ID去重排序后的摘要，与顺序和重复无关
+     */
+    static String key(Collection<Long> deptIds) {
+        StringBuilder builder = new StringBuilder(deptIds.size() * 4);
+        for (Long id : new TreeSet<>(deptIds)) {
+            builder.append(id).append(',');
+        }
+        return DigestUtils.md5DigestAsHex(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,493 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.utils;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 进程内的缓存存储，用于单机部署或测试，语义与 Redis 保持一致：
+ * 值使用与 Redis 相同的序列化方式存储，读取时得到的是副本；过期的 key 在访问时删除，并定期清理；
+ * 只有一个节点，发布的消息直接丢弃
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+public class EmbeddedCacheBackend implements CacheBackend {
+
+    private final RedisSerializer<Object> serializer;
+
+    /** 所有操作在 this 上同步 */
+    private final Map<String, Entry> store = new HashMap<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "el-embedded-cache");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public EmbeddedCacheBackend(RedisSerializer<Object> serializer) {
+        this.serializer = serializer;
+        scheduler.scheduleWithFixedDelay(this::purge, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public synchronized void expire(String key, long time, TimeUnit timeUnit) {
+        Entry entry = entry(key);
+        if (entry == null) {
+            return;
+        }
+        if (time > 0) {
+            entry.expireAt = System.currentTimeMillis() + timeUnit.toMillis(time);
+        } else {
+            store.remove(key);
+        }
+    }
+
+    @Override
+    public synchronized long getExpire(String key) {
+        Entry entry = entry(key);
+        if (entry == null) {
+            return -2;
+        }
+        if (entry.expireAt == 0) {
+            return -1;
+        }
+        return TimeUnit.MILLISECONDS.toSeconds(entry.expireAt - System.currentTimeMillis());
+    }
+
+    @Override
+    public void scan(String pattern, Predicate<String> consumer) {
+        Pattern regex = glob(pattern);
+        List<String> keys = new ArrayList<>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            store.forEach((key, entry) -> {
+                if (!entry.isExpired(now) && regex.matcher(key).matches()) {
+                    keys.add(key);
+                }
+            });
+        }
+        for (String key : keys) {
+            if (!consumer.test(key)) {
+                break;
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean hasKey(String key) {
+        return entry(key) != null;
+    }
+
+    @Override
+    public synchronized long del(Collection<String> keys) {
+        long count = 0;
+        for (String key : keys) {
+            if (entry(key) != null) {
+                store.remove(key);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized void batch(Collection<String> keys, Map<String, Set<String>> increments, String channel, String message) {
+        del(keys);
+        increments.forEach((key, items) -> items.forEach(item -> hincr(key, item, 1)));
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        // 只有一个节点，无需通知
+    }
+
+    // ============================String=============================
+
+    @Override
+    public synchronized Object get(String key) {
+        byte[] value = value(key, byte[].class);
+        return value == null ? null : serializer.deserialize(value);
+    }
+
+    @Override
+    public synchronized List<Object> multiGet(Collection<String> keys) {
+        List<Object> values = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            Entry entry = entry(key);
+            values.add(entry != null && entry.value instanceof byte[] ? serializer.deserialize((byte[]) entry.value) : null);
+        }
+        return values;
+    }
+
+    @Override
+    public synchronized void set(String key, Object value, long time, TimeUnit timeUnit) {
+        Entry entry = new Entry(serializer.serialize(value));
+        if (time > 0) {
+            entry.expireAt = System.currentTimeMillis() + timeUnit.toMillis(time);
+        }
+        store.put(key, entry);
+    }
+
+    @Override
+    public synchronized long incrWithLimit(String key, long limit, long seconds) {
+        byte[] value = value(key, byte[].class);
+        long count = value == null ? 0 : number(value).longValue();
+        if (count > limit) {
+            return count;
+        }
+        count++;
+        Entry entry = store.computeIfAbsent(key, k -> new Entry(null));
+        entry.value = String.valueOf(count).getBytes(StandardCharsets.UTF_8);
+        if (count == 1) {
+            entry.expireAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(seconds);
+        }
+        return count;
+    }
+
+    // ================================Map=================================
+
+    @Override
+    public synchronized Object hget(String key, String item) {
+        Map<String, byte[]> hash = value(key, Map.class);
+        return hash == null ? null : deserialize(hash.get(item));
+    }
+
+    @Override
+    public synchronized List<Object> hmget(String key, Collection<Object> items) {
+        Map<String, byte[]> hash = value(key, Map.class);
+        List<Object> values = new ArrayList<>(items.size());
+        for (Object item : items) {
+            values.add(hash == null ? null : deserialize(hash.get(String.valueOf(item))));
+        }
+        return values;
+    }
+
+    @Override
+    public synchronized Map<Object, Object> hgetAll(String key) {
+        Map<String, byte[]> hash = value(key, Map.class);
+        Map<Object, Object> entries = new LinkedHashMap<>();
+        if (hash != null) {
+            hash.forEach((item, value) -> entries.put(item, deserialize(value)));
+        }
+        return entries;
+    }
+
+    @Override
+    public synchronized void hmset(String key, Map<String, Object> map) {
+        Map<String, byte[]> hash = valueOrCreate(key, Map.class, LinkedHashMap::new);
+        map.forEach((item, value) -> hash.put(item, serializer.serialize(value)));
+    }
+
+    @Override
+    public synchronized void hset(String key, String item, Object value) {
+        Map<String, byte[]> hash = valueOrCreate(key, Map.class, LinkedHashMap::new);
+        hash.put(item, serializer.serialize(value));
+    }
+
+    @Override
+    public synchronized void hdel(String key, Object... items) {
+        Map<String, byte[]> hash = value(key, Map.class);
+        if (hash == null) {
+            return;
+        }
+        for (Object item : items) {
+            hash.remove(String.valueOf(item));
+        }
+        removeIfEmpty(key, hash.isEmpty());
+    }
+
+    @Override
+    public synchronized boolean hHasKey(String key, String item) {
+        Map<String, byte[]> hash = value(key, Map.class);
+        return hash != null && hash.containsKey(item);
+    }
+
+    @Override
+    public synchronized double hincr(String key, String item, double by) {
+        Map<String, byte[]> hash = valueOrCreate(key, Map.class, LinkedHashMap::new);
+        byte[] value = hash.get(item);
+        double result = (value == null ? 0 : number(value).doubleValue()) + by;
+        // 与 Redis 一致，整数不带小数位
+        String str = result == Math.rint(result) && !Double.isInfinite(result) ? String.valueOf((long) result) : String.valueOf(result);
+        hash.put(item, str.getBytes(StandardCharsets.UTF_8));
+        return result;
+    }
+
+    // ============================set=============================
+
+    @Override
+    public synchronized Set<Object> sMembers(String key) {
+        Set<ByteBuffer> set = value(key, Set.class);
+        Set<Object> members = new LinkedHashSet<>();
+        if (set != null) {
+            set.forEach(member -> members.add(serializer.deserialize(member.array())));
+        }
+        return members;
+    }
+
+    @Override
+    public synchronized boolean sIsMember(String key, Object value) {
+        Set<ByteBuffer> set = value(key, Set.class);
+        return set != null && set.contains(ByteBuffer.wrap(serializer.serialize(value)));
+    }
+
+    @Override
+    public synchronized long sAdd(String key, Object... values) {
+        Set<ByteBuffer> set = valueOrCreate(key, Set.class, LinkedHashSet::new);
+        long count = 0;
+        for (Object value : values) {
+            if (set.add(ByteBuffer.wrap(serializer.serialize(value)))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized long sSize(String key) {
+        Set<ByteBuffer> set = value(key, Set.class);
+        return set == null ? 0 : set.size();
+    }
+
+    @Override
+    public synchronized long sRemove(String key, Object... values) {
+        Set<ByteBuffer> set = value(key, Set.class);
+        if (set == null) {
+            return 0;
+        }
+        long count = 0;
+        for (Object value : values) {
+            if (set.remove(ByteBuffer.wrap(serializer.serialize(value)))) {
+                count++;
+            }
+        }
+        removeIfEmpty(key, set.isEmpty());
+        return count;
+    }
+
+    // ===============================list=================================
+
+    @Override
+    public synchronized List<Object> lRange(String key, long start, long end) {
+        List<byte[]> list = value(key, List.class);
+        List<Object> values = new ArrayList<>();
+        if (list == null) {
+            return values;
+        }
+        int size = list.size();
+        long from = Math.max(start < 0 ? size + start : start, 0);
+        long to = Math.min(end < 0 ? size + end : end, size - 1);
+        for (long i = from; i <= to; i++) {
+            values.add(serializer.deserialize(list.get((int) i)));
+        }
+        return values;
+    }
+
+    @Override
+    public synchronized long lSize(String key) {
+        List<byte[]> list = value(key, List.class);
+        return list == null ? 0 : list.size();
+    }
+
+    @Override
+    public synchronized Object lIndex(String key, long index) {
+        List<byte[]> list = value(key, List.class);
+        if (list == null) {
+            return null;
+        }
+        long i = index < 0 ? list.size() + index : index;
+        return i < 0 || i >= list.size() ? null : serializer.deserialize(list.get((int) i));
+    }
+
+    @Override
+    public synchronized void rightPush(String key, Object value) {
+        List<byte[]> list = valueOrCreate(key, List.class, ArrayList::new);
+        list.add(serializer.serialize(value));
+    }
+
+    @Override
+    public synchronized void rightPushAll(String key, List<Object> values) {
+        List<byte[]> list = valueOrCreate(key, List.class, ArrayList::new);
+        for (Object value : values) {
+            list.add(serializer.serialize(value));
+        }
+    }
+
+    @Override
+    public synchronized void lSet(String key, long index, Object value) {
+        List<byte[]> list = value(key, List.class);
+        if (list == null) {
+            throw new IllegalStateException("ERR no such key");
+        }
+        long i = index < 0 ? list.size() + index : index;
+        if (i < 0 || i >= list.size()) {
+            throw new IllegalStateException("ERR index out of range");
+        }
+        list.set((int) i, serializer.serialize(value));
+    }
+
+    @Override
+    public synchronized long lRemove(String key, long count, Object value) {
+        List<byte[]> list = value(key, List.class);
+        if (list == null) {
+            return 0;
+        }
+        byte[] bytes = serializer.serialize(value);
+        long limit = count == 0 ? Long.MAX_VALUE : Math.abs(count);
+        long removed = 0;
+        ListIterator<byte[]> iterator = count < 0 ? list.listIterator(list.size()) : list.listIterator();
+        while (removed < limit && (count < 0 ? iterator.hasPrevious() : iterator.hasNext())) {
+            if (Arrays.equals(bytes, count < 0 ? iterator.previous() : iterator.next())) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        removeIfEmpty(key, list.isEmpty());
+        return removed;
+    }
+
+    /**
+     * 当前存储的 key 数量
+     * @return /
+     */
+    public synchronized int size() {
+        return store.size();
+    }
+
+    /**
+     * 清空
+     */
+    public synchronized void clear() {
+        store.clear();
+    }
+
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * 清理已过期的 key
+     */
+    synchronized void purge() {
+        long now = System.currentTimeMillis();
+        store.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    /**
+     * 将 Redis 的匹配规则转换为正则，支持 *、?、[] 与 \ 转义
+     * @param pattern /
+     * @return /
+     */
+    static Pattern glob(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else if (c == '[' && pattern.indexOf(']', i + 1) > i + 1) {
+                int end = pattern.indexOf(']', i + 1);
+                regex.append('[').append(pattern, i + 1, end).append(']');
+                i = end;
+            } else if (c == '\\' && i + 1 < pattern.length()) {
+                regex.append(Pattern.quote(String.valueOf(pattern.charAt(++i))));
+            } else if (Character.isLetterOrDigit(c)) {
+                regex.append(c);
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    private Entry entry(String key) {
+        Entry entry = store.get(key);
+        if (entry != null && entry.isExpired(System.currentTimeMillis())) {
+            store.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T value(String key, Class<?> type) {
+        Entry entry = entry(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!type.isInstance(entry.value)) {
+            throw new IllegalStateException("WRONGTYPE Operation against a key holding the wrong kind of value");
+        }
+        return (T) entry.value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T valueOrCreate(String key, Class<?> type, Supplier<?> creator) {
+        T value = value(key, type);
+        if (value == null) {
+            value = (T) creator.get();
+            store.put(key, new Entry(value));
+        }
+        return value;
+    }
+
+    private void removeIfEmpty(String key, boolean empty) {
+        // 与 Redis 一致，集合为空时删除 key
+        if (empty) {
+            store.remove(key);
+        }
+    }
+
+    private Object deserialize(byte[] value) {
+        return value == null ? null : serializer.deserialize(value);
+    }
+
+    private Number number(byte[] value) {
+        // 计数器与 Redis 一样以字符串形式存储
+        try {
+            return new BigDecimal(new String(value, StandardCharsets.UTF_8));
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("ERR value is not a number");
+        }
+    }
+
+    private static class Entry {
+
+        private Object value;
+
+        /** 过期时间戳，0 表示永久有效 */
+        private long expireAt;
+
+        private Entry(Object value) {
+            this.value = value;
+        }
+
+        private boolean isExpired(long now) {
+            return expireAt != 0 && expireAt <= now;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 进程内索引(VersionedIndex)的版本号，保存在 cache::version 中，
+ * 版本号通过 CacheCleaner 递增，与缓存清理一起在事务提交后执行
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+@Slf4j
+@Component
+public class IndexVersionManager {
+
+    private final RedisUtils redisUtils;
+
+    private final CacheCleaner cacheCleaner;
+
+    public IndexVersionManager(RedisUtils redisUtils, CacheCleaner cacheCleaner) {
+        this.redisUtils = redisUtils;
+        this.cacheCleaner = cacheCleaner;
+    }
+
+    /**
+     * 当前版本号
+     * @param item 版本号在 cache::version 中的项
+     * @return 获取失败时返回 null
+     */
+    public Long current(String item) {
+        try {
+            Object value = redisUtils.hget(CacheKey.VERSION, item);
+            return value == null ? 0 : new BigDecimal(value.toString()).longValue();
+        } catch (Exception e) {
+            log.warn("索引版本号 {} 获取失败: {}", item, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 递增版本号并增量更新本节点的索引，事务中调用时在提交后执行
+     * @param item 版本号在 cache::version 中的项
+     * @param changes 索引 -> 变更，变更中使用的字段值需要在调用时读取
+     */
+    public <T> void change(String item, Map<VersionedIndex<T>, Consumer<T>> changes) {
+        // 先递增，CacheCleaner 的事务同步先于下面注册的同步执行
+        cacheCleaner.hincr(CacheKey.VERSION, item);
+        Runnable apply = () -> {
+            Long current = current(item);
+            changes.forEach((index, change) -> {
+                if (current == null) {
+                    index.invalidate();
+                    return;
+                }
+                try {
+                    index.apply(current, change);
+                } catch (Exception e) {
+                    log.error(e.getMessage(), e);
+                }
+            });
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    /**
+     * 递增版本号，所有节点在下次查询时重新加载索引，事务中调用时在提交后生效
+     * @param item 版本号在 cache::version 中的项
+     */
+    public void invalidate(String item) {
+        cacheCleaner.hincr(CacheKey.VERSION, item);
+    }
+}
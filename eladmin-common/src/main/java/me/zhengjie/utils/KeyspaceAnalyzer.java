@@ -0,0 +1,287 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.ConvertingCursor;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Redis 内存分析，按 key 的前缀(如 user::id、menu::user、online-token)统计数量、内存占用、过期时间分布与最大的 key。
+ * 后台单线程通过 SCAN 分批遍历，每批通过一次脚本获取 MEMORY USAGE 与 PTTL，批次间暂停，避免影响线上 Redis；
+ * sample-every 大于 1 时每 N 个 key 取一个计算内存，总内存按比例估算
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "redis.embedded", havingValue = "false", matchIfMissing = true)
+public class KeyspaceAnalyzer {
+
+    /**
+     * 返回 key 依次对应的内存占用与剩余过期时间(毫秒)
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> USAGE_SCRIPT = new DefaultRedisScript<>("local result = {}" +
+            "\nfor i, key in ipairs(KEYS) do" +
+            "\nresult[#result + 1] = redis.call('MEMORY', 'USAGE', key) or 0" +
+            "\nresult[#result + 1] = redis.call('PTTL', key)" +
+            "\nend" +
+            "\nreturn result", List.class);
+
+    private static final String[] TTL_BUCKETS = {"none", "lt1m", "lt1h", "lt1d", "gte1d"};
+
+    private static final int TOP = 10;
+
+    private final RedisTemplate<Object, Object> redisTemplate;
+
+    /** 每批处理的 key 数量 */
+    private final int batchSize;
+
+    /** 批次间暂停时间(毫秒) */
+    private final long pauseMillis;
+
+    /** 每 N 个 key 计算一次内存 */
+    private final int sampleEvery;
+
+    /** 最多遍历的 key 数量 */
+    private final long maxKeys;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "el-keyspace-analyzer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile Map<String, Object> report = Collections.singletonMap("status", "none");
+
+    public KeyspaceAnalyzer(RedisTemplate<Object, Object> redisTemplate,
+                            @Value("${redis.keyspace.batch-size:200}") int batchSize,
+                            @Value("${redis.keyspace.pause-millis:50}") long pauseMillis,
+                            @Value("${redis.keyspace.sample-every:1}") int sampleEvery,
+                            @Value("${redis.keyspace.max-keys:1000000}") long maxKeys) {
+        this.redisTemplate = redisTemplate;
+        this.batchSize = Math.max(batchSize, 1);
+        this.pauseMillis = pauseMillis;
+        this.sampleEvery = Math.max(sampleEvery, 1);
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * 开始分析，已在分析中时忽略
+     * @return 是否开始
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        executor.execute(() -> {
+            try {
+                analyze();
+            } catch (Exception e) {
+                log.error("Redis 内存分析失败", e);
+                Map<String, Object> failed = new LinkedHashMap<>(report);
+                failed.put("status", "failed");
+                failed.put("error", e.getMessage());
+                report = failed;
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 最近一次分析的结果，分析中时为当前进度
+     * @return /
+     */
+    public Map<String, Object> getReport() {
+        return report;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private void analyze() throws InterruptedException {
+        String startTime = DateUtil.localDateTimeFormatyMdHms(LocalDateTime.now());
+        Map<String, Family> families = new HashMap<>();
+        List<String> batch = new ArrayList<>(batchSize);
+        long scanned = 0;
+        ScanOptions options = ScanOptions.scanOptions().count(batchSize).build();
+        try (Cursor<String> cursor = redisTemplate.executeWithStickyConnection(
+                (RedisCallback<Cursor<String>>) connection -> new ConvertingCursor<>(
+                        connection.scan(options), bytes -> new String(bytes, StandardCharsets.UTF_8)))) {
+            while (cursor.hasNext() && scanned < maxKeys) {
+                String key = cursor.next();
+                Family family = families.computeIfAbsent(prefix(key), Family::new);
+                family.count++;
+                if (scanned++ % sampleEvery == 0) {
+                    batch.add(key);
+                }
+                if (batch.size() >= batchSize) {
+                    measure(batch, families);
+                    report = report("running", startTime, scanned, families);
+                    TimeUnit.MILLISECONDS.sleep(pauseMillis);
+                }
+            }
+        }
+        measure(batch, families);
+        report = report("finished", startTime, scanned, families);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void measure(List<String> keys, Map<String, Family> families) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<Object> result = redisTemplate.execute(USAGE_SCRIPT, new ArrayList<>(keys));
+        for (int i = 0; result != null && i < keys.size(); i++) {
+            String key = keys.get(i);
+            long bytes = ((Number) result.get(i * 2)).longValue();
+            long ttl = ((Number) result.get(i * 2 + 1)).longValue();
+            families.get(prefix(key)).sample(key, bytes, ttl);
+        }
+        keys.clear();
+    }
+
+    private Map<String, Object> report(String status, String startTime, long scanned, Map<String, Family> families) {
+        List<Map<String, Object>> list = new ArrayList<>(families.size());
+        families.values().stream()
+                .sorted(Comparator.comparingLong(Family::estimatedBytes).reversed())
+                .forEach(family -> list.add(family.toMap()));
+        Map<String, Object> map = new LinkedHashMap<>(8);
+        map.put("status", status);
+        map.put("startTime", startTime);
+        map.put("time", DateUtil.localDateTimeFormatyMdHms(LocalDateTime.now()));
+        map.put("scanned", scanned);
+        map.put("sampleEvery", sampleEvery);
+        map.put("families", list);
+        return map;
+    }
+
+    /**
+     * key 的分类，如 user::id:1 -> user::id，online-token:admin-xxx -> online-token，没有分隔符的归为 other
+     * @param key /
+     * @return /
+     */
+    static String prefix(String key) {
+        int separator = key.indexOf("::");
+        int from = separator < 0 ? 0 : separator + 2;
+        int end = key.indexOf(':', from);
+        if (end > 0) {
+            return key.substring(0, end);
+        }
+        return separator < 0 ? "other" : key;
+    }
+
+    /**
+     * 同一前缀的统计
+     */
+    private static class Family {
+
+        private final String prefix;
+
+        private long count;
+
+        private long sampled;
+
+        private long sampledBytes;
+
+        private final long[] ttl = new long[TTL_BUCKETS.length];
+
+        private final PriorityQueue<Map.Entry<String, Long>> largest = new PriorityQueue<>(Map.Entry.comparingByValue());
+
+        private Family(String prefix) {
+            this.prefix = prefix;
+        }
+
+        private void sample(String key, long bytes, long pttl) {
+            // 遍历过程中被删除的 key
+            if (pttl == -2) {
+                return;
+            }
+            sampled++;
+            sampledBytes += bytes;
+            ttl[bucket(pttl)]++;
+            largest.add(new AbstractMap.SimpleEntry<>(key, bytes));
+            if (largest.size() > TOP) {
+                largest.poll();
+            }
+        }
+
+        private int bucket(long pttl) {
+            if (pttl < 0) {
+                return 0;
+            }
+            if (pttl < TimeUnit.MINUTES.toMillis(1)) {
+                return 1;
+            }
+            if (pttl < TimeUnit.HOURS.toMillis(1)) {
+                return 2;
+            }
+            return pttl < TimeUnit.DAYS.toMillis(1) ? 3 : 4;
+        }
+
+        private long estimatedBytes() {
+            return sampled == 0 ? 0 : sampledBytes * count / sampled;
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>(8);
+            map.put("prefix", prefix);
+            map.put("count", count);
+            map.put("bytes", estimatedBytes());
+            map.put("size", FileUtil.getSize(estimatedBytes()));
+            map.put("avgBytes", sampled == 0 ? 0 : sampledBytes / sampled);
+            Map<String, Long> ttlMap = new LinkedHashMap<>(8);
+            for (int i = 0; i < TTL_BUCKETS.length; i++) {
+                ttlMap.put(TTL_BUCKETS[i], ttl[i]);
+            }
+            map.put("ttl", ttlMap);
+            List<Map.Entry<String, Long>> top = new ArrayList<>(largest);
+            top.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+            List<Map<String, Object>> keys = new ArrayList<>(top.size());
+            for (Map.Entry<String, Long> entry : top) {
+                Map<String, Object> item = new LinkedHashMap<>(2);
+                item.put("key", entry.getKey());
+                item.put("bytes", entry.getValue());
+                keys.add(item);
+            }
+            map.put("largest", keys);
+            return map;
+        }
+    }
+}
@@ -15,8 +15,24 @@
  */
 package me.zhengjie.utils;
 
+import com.alibaba.fastjson.JSON;
+import me.zhengjie.exception.BadRequestException;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.core.env.Environment;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.util.DigestUtils;
+import javax.persistence.EntityManager;
+import javax.persistence.Table;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * 分页工具
@@ -60,4 +76,252 @@ public class PageUtil extends cn.hutool.core.util.PageUtil {
     public static <T> PageResult<T> noData () {
         return new PageResult<>(null, 0);
     }
+
+    /**
+     * 分页查询，可选择总数的统计方式，避免大表每次翻页都执行完整的 COUNT 查询；
+     * 查询条件通过 QueryHelp 构建，不查询数据的 COUNT 查询不排序，也不会因为空的查询条件产生连接
+     * @param em /
+     * @param domainClass 实体类
+     * @param criteria 查询条件
+     * @param pageable 分页参数
+     * @param strategy 总数的统计方式
+     * @return /
+     */
+    public static <T> PageResult<T> page(EntityManager em, Class<T> domainClass, Object criteria,
+                                         Pageable pageable, CountStrategy strategy) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(domainClass);
+        Root<T> root = query.from(domainClass);
+        query.where(QueryHelp.getPredicate(root, criteria, cb));
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        }
+        // 只读查询，不保存实体快照，也不做脏检查
+        TypedQuery<T> typedQuery = em.createQuery(query).setHint(QueryHints.HINT_READONLY, true);
+        return page(em, domainClass, criteria, pageable, strategy, typedQuery);
+    }
+
+    /**
+     * 执行分页查询并按统计方式计算总数
+     */
+    static <T, R> PageResult<R> page(EntityManager em, Class<T> domainClass, Object criteria, Pageable pageable,
+                                     CountStrategy strategy, TypedQuery<R> typedQuery) {
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            // HAS_NEXT 多查一条判断是否有下一页
+            typedQuery.setMaxResults(pageable.getPageSize() + (strategy == CountStrategy.HAS_NEXT ? 1 : 0));
+        }
+        List<R> content = new ArrayList<>(typedQuery.getResultList());
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        if (strategy == CountStrategy.HAS_NEXT) {
+            boolean more = pageable.isPaged() && content.size() > pageable.getPageSize();
+            if (more) {
+                content.remove(content.size() - 1);
+            }
+            return new PageResult<>(content, offset + content.size() + (more ? 1 : 0));
+        }
+        // 最后一页不需要统计
+        if (pageable.isUnpaged() || (content.size() < pageable.getPageSize() && (offset == 0 || !content.isEmpty()))) {
+            return new PageResult<>(content, offset + content.size());
+        }
+        return new PageResult<>(content, count(em, domainClass, criteria, strategy));
+    }
+
+    private static <T> long count(EntityManager em, Class<T> domainClass, Object criteria, CountStrategy strategy) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<T> root = query.from(domainClass);
+        Predicate predicate = QueryHelp.getPredicate(root, criteria, cb);
+        query.where(predicate);
+        query.select(query.isDistinct() ? cb.countDistinct(root) : cb.count(root));
+        if (strategy == CountStrategy.EXACT) {
+            return em.createQuery(query).getSingleResult();
+        }
+        if (strategy == CountStrategy.ESTIMATED && predicate.getExpressions().isEmpty()) {
+            Long estimated = estimate(em, domainClass);
+            if (estimated != null) {
+                return estimated;
+            }
+        }
+        RedisUtils redisUtils = SpringContextHolder.getBean(RedisUtils.class);
+        String key = CacheKey.PAGE_COUNT + domainClass.getSimpleName() + ":" + countKey(criteria);
+        Object cached = redisUtils.get(key);
+        if (cached instanceof Number) {
+            return ((Number) cached).longValue();
+        }
+        long total = em.createQuery(query).getSingleResult();
+        int seconds = SpringContextHolder.getBean(Environment.class).getProperty("page.count-cache-seconds", Integer.class, 60);
+        redisUtils.set(key, total, seconds);
+        return total;
+    }
+
+    /**
+     * 查询条件的摘要，有数据权限时包含当前用户的数据权限
+     */
+    private static String countKey(Object criteria) {
+        String json = criteria == null ? "" : criteria.getClass().getName() + JSON.toJSONString(criteria);
+        if (criteria != null && QueryPlan.of(criteria.getClass()).getPermission() != null) {
+            json += SecurityUtils.getCurrentUserDataScope();
+        }
+        return DigestUtils.md5DigestAsHex(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * MySQL 表统计信息中的行数，InnoDB 为估算值，查询失败时返回 null
+     */
+    private static Long estimate(EntityManager em, Class<?> domainClass) {
+        Table table = domainClass.getAnnotation(Table.class);
+        if (table == null || table.name().isEmpty()) {
+            return null;
+        }
+        try {
+            Object rows = em.createNativeQuery("SELECT TABLE_ROWS FROM information_schema.TABLES " +
+                    "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?1")
+                    .setParameter(1, table.name()).getSingleResult();
+            return rows instanceof Number ? ((Number) rows).longValue() : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 游标分页，按 (createTime, id) 倒序，见 {@link #seek(EntityManager, Class, Specification, String, String, String, int)}
+     */
+    public static <T> CursorPageResult<T> seek(EntityManager em, Class<T> domainClass, Specification<T> spec, String cursor, int size) {
+        return seek(em, domainClass, spec, "createTime", "id", cursor, size);
+    }
+
+    /**
+     * 游标分页(keyset)，按 (时间, ID) 倒序，以上一页边界的值作为查询条件代替 OFFSET，
+     * 翻页耗时与页数无关，也不执行 COUNT 查询，适用于日志等只追加的大表
+     * @param em /
+     * @param domainClass 实体类
+     * @param spec 查询条件，如 QueryHelp.getPredicate，与游标条件一起使用
+     * @param timeAttribute 时间属性
+     * @param idAttribute ID 属性
+     * @param cursor 上次返回的 nextCursor 或 prevCursor，查询第一页时为 null 或空字符串
+     * @param size 每页数量
+     * @return /
+     */
+    public static <T> CursorPageResult<T> seek(EntityManager em, Class<T> domainClass, Specification<T> spec,
+                                               String timeAttribute, String idAttribute, String cursor, int size) {
+        Cursor from = StringUtils.isBlank(cursor) ? null : Cursor.decode(cursor);
+        boolean backward = from != null && from.previous;
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(domainClass);
+        Root<T> root = query.from(domainClass);
+        Path<Comparable<Object>> time = root.get(timeAttribute);
+        Path<Comparable<Object>> id = root.get(idAttribute);
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            predicates.add(predicate);
+        }
+        if (from != null) {
+            Comparable<Object> timeValue = from.time(time.getJavaType());
+            Comparable<Object> idValue = from.id(id.getJavaType());
+            // 上一页：(time, id) > 游标，下一页：(time, id) < 游标
+            predicates.add(backward
+                    ? cb.or(cb.greaterThan(time, timeValue), cb.and(cb.equal(time, timeValue), cb.greaterThan(id, idValue)))
+                    : cb.or(cb.lessThan(time, timeValue), cb.and(cb.equal(time, timeValue), cb.lessThan(id, idValue))));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+        query.orderBy(backward ? Arrays.asList(cb.asc(time), cb.asc(id)) : Arrays.asList(cb.desc(time), cb.desc(id)));
+        // 多查一条判断是否还有数据
+        List<T> list = new ArrayList<>(em.createQuery(query).setMaxResults(size + 1).getResultList());
+        boolean more = list.size() > size;
+        if (more) {
+            list.remove(size);
+        }
+        if (backward) {
+            Collections.reverse(list);
+        }
+        String next = null;
+        String prev = null;
+        if (!list.isEmpty()) {
+            if (backward || more) {
+                next = Cursor.encode(list.get(list.size() - 1), timeAttribute, idAttribute, false);
+            }
+            if (from != null && (!backward || more)) {
+                prev = Cursor.encode(list.get(0), timeAttribute, idAttribute, true);
+            }
+        }
+        return new CursorPageResult<>(list, next, prev);
+    }
+
+    /**
+     * 转换分页数据，保留总数与游标
+     */
+    public static <T, R> PageResult<R> map(PageResult<T> page, Function<? super T, ? extends R> mapper) {
+        List<T> source = page.getContent() == null ? Collections.emptyList() : page.getContent();
+        List<R> content = new ArrayList<>(source.size());
+        for (T item : source) {
+            content.add(mapper.apply(item));
+        }
+        if (page instanceof CursorPageResult) {
+            CursorPageResult<T> cursorPage = (CursorPageResult<T>) page;
+            return new CursorPageResult<>(content, cursorPage.getNextCursor(), cursorPage.getPrevCursor());
+        }
+        return new PageResult<>(content, page.getTotalElements());
+    }
+
+    /**
+     * 分页游标，格式为 Base64(方向:时间戳:ID)
+     */
+    private static class Cursor {
+
+        private final boolean previous;
+
+        private final long millis;
+
+        private final String id;
+
+        private Cursor(boolean previous, long millis, String id) {
+            this.previous = previous;
+            this.millis = millis;
+            this.id = id;
+        }
+
+        private static String encode(Object entity, String timeAttribute, String idAttribute, boolean previous) {
+            BeanWrapperImpl wrapper = new BeanWrapperImpl(entity);
+            Date time = (Date) wrapper.getPropertyValue(timeAttribute);
+            Object id = wrapper.getPropertyValue(idAttribute);
+            String value = (previous ? "p" : "n") + ":" + (time == null ? 0 : time.getTime()) + ":" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static Cursor decode(String cursor) {
+            try {
+                String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                String[] parts = value.split(":", 3);
+                if (parts.length != 3 || !("p".equals(parts[0]) || "n".equals(parts[0]))) {
+                    throw new IllegalArgumentException(value);
+                }
+                return new Cursor("p".equals(parts[0]), Long.parseLong(parts[1]), parts[2]);
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("分页游标无效");
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private Comparable<Object> time(Class<?> type) {
+            Date date = Timestamp.class.isAssignableFrom(type) ? new Timestamp(millis) : new Date(millis);
+            return (Comparable<Object>) (Comparable<?>) date;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Comparable<Object> id(Class<?> type) {
+            try {
+                if (Long.class == type || long.class == type) {
+                    return (Comparable<Object>) (Comparable<?>) Long.valueOf(id);
+                }
+                if (Integer.class == type || int.class == type) {
+                    return (Comparable<Object>) (Comparable<?>) Integer.valueOf(id);
+                }
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("分页游标无效");
+            }
+            return (Comparable<Object>) (Comparable<?>) id;
+        }
+    }
 }
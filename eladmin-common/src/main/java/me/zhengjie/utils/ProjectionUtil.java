@@ -0,0 +1,111 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.utils;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.*;
+import java.util.*;
+
+/**
+ * 投影查询，只查询列表需要的列并直接填充到 DTO 中，不加载实体及其关联，也没有持久化上下文中的快照；
+ * 属性名支持一级关联，如 dept.name，通过左连接查询并填充到 DTO 的 dept 属性中
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+public class ProjectionUtil {
+
+    /**
+     * 投影查询全部
+     * @param em /
+     * @param domainClass 实体类
+     * @param criteria 查询条件
+     * @param sort 排序
+     * @param dtoClass DTO 类，需要无参构造方法
+     * @param attributes 查询的属性，与 DTO 中的属性同名
+     * @return /
+     */
+    public static <T, D> List<D> list(EntityManager em, Class<T> domainClass, Object criteria, Sort sort,
+                                      Class<D> dtoClass, String... attributes) {
+        List<D> list = new ArrayList<>();
+        for (Tuple tuple : query(em, domainClass, criteria, sort, attributes).getResultList()) {
+            list.add(toDto(tuple, dtoClass, attributes));
+        }
+        return list;
+    }
+
+    /**
+     * 投影分页查询
+     * @param em /
+     * @param domainClass 实体类
+     * @param criteria 查询条件
+     * @param pageable 分页参数
+     * @param strategy 总数的统计方式
+     * @param dtoClass DTO 类，需要无参构造方法
+     * @param attributes 查询的属性，与 DTO 中的属性同名
+     * @return /
+     */
+    public static <T, D> PageResult<D> page(EntityManager em, Class<T> domainClass, Object criteria, Pageable pageable,
+                                            CountStrategy strategy, Class<D> dtoClass, String... attributes) {
+        PageResult<Tuple> page = PageUtil.page(em, domainClass, criteria, pageable, strategy,
+                query(em, domainClass, criteria, pageable.getSort(), attributes));
+        return PageUtil.map(page, tuple -> toDto(tuple, dtoClass, attributes));
+    }
+
+    private static <T> TypedQuery<Tuple> query(EntityManager em, Class<T> domainClass, Object criteria,
+                                              Sort sort, String... attributes) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(domainClass);
+        query.where(QueryHelp.getPredicate(root, criteria, cb));
+        Map<String, Join<T, ?>> joins = new HashMap<>();
+        List<Selection<?>> selections = new ArrayList<>(attributes.length);
+        for (String attribute : attributes) {
+            int dot = attribute.indexOf('.');
+            if (dot < 0) {
+                selections.add(root.get(attribute));
+            } else {
+                Join<T, ?> join = joins.computeIfAbsent(attribute.substring(0, dot), name -> root.join(name, JoinType.LEFT));
+                selections.add(join.get(attribute.substring(dot + 1)));
+            }
+        }
+        query.multiselect(selections);
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+        return em.createQuery(query);
+    }
+
+    private static <D> D toDto(Tuple tuple, Class<D> dtoClass, String[] attributes) {
+        D dto = BeanUtils.instantiateClass(dtoClass);
+        BeanWrapperImpl wrapper = new BeanWrapperImpl(dto);
+        wrapper.setAutoGrowNestedPaths(true);
+        for (int i = 0; i < attributes.length; i++) {
+            Object value = tuple.get(i);
+            // 关联不存在时保持为 null
+            if (value != null) {
+                wrapper.setPropertyValue(attributes[i], value);
+            }
+        }
+        return dto;
+    }
+}
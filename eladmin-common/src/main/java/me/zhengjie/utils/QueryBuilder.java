@@ -0,0 +1,40 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.utils;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+/**
+ * 查询条件类的查询构建器，由 eladmin-processor 在编译期为带有 @Query 注解的类生成，
+ * 类名为查询条件类名加 _QueryBuilder，QueryHelp 存在生成的构建器时优先使用，否则使用反射
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+public interface QueryBuilder<Q> {
+
+    /**
+     * 根据查询条件添加查询谓词，数据权限由 QueryHelp 处理
+     * @param root /
+     * @param query 查询条件
+     * @param cb /
+     * @param list 查询谓词
+     * @param <R> 实体类型
+     */
+    <R> void addPredicates(Root<R> root, Q query, CriteriaBuilder cb, List<Predicate> list);
+}
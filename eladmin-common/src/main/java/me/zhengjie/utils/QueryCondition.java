@@ -0,0 +1,75 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.utils;
+
+import me.zhengjie.annotation.Query;
+import javax.persistence.criteria.JoinType;
+
+/**
+ * 单个查询条件，即解析后的 @Query 注解。运行时由 QueryPlan 反射生成，
+ * 或由 eladmin-processor 在编译期生成到 XxxQueryCriteria_QueryBuilder 的常量中
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+public class QueryCondition {
+
+    /** 实体中的属性名 */
+    final String attributeName;
+
+    /** 查询条件字段的类型 */
+    final Class<?> fieldType;
+
+    final Query.Type type;
+
+    /** 多字段模糊搜索的字段，未设置时为 null */
+    final String[] blurry;
+
+    /** 原始的 joinName，用作连接的缓存 key，未设置时为 null */
+    final String joinName;
+
+    final String[] joinNames;
+
+    final JoinType joinType;
+
+    /**
+     * @param attributeName 实体中的属性名
+     * @param fieldType 查询条件字段的类型
+     * @param type 查询方式
+     * @param blurry 多字段模糊搜索，多个用逗号隔开
+     * @param joinName 连接查询的属性名，多级用 > 隔开
+     * @param join 连接方式
+     */
+    public QueryCondition(String attributeName, Class<?> fieldType, Query.Type type,
+                          String blurry, String joinName, Query.Join join) {
+        this.attributeName = attributeName;
+        this.fieldType = fieldType;
+        this.type = type;
+        this.blurry = blurry.isEmpty() ? null : blurry.split(",");
+        this.joinName = joinName.isEmpty() ? null : joinName;
+        this.joinNames = this.joinName == null ? null : this.joinName.split(">");
+        switch (join) {
+            case RIGHT:
+                this.joinType = JoinType.RIGHT;
+                break;
+            case INNER:
+                this.joinType = JoinType.INNER;
+                break;
+            default:
+                this.joinType = JoinType.LEFT;
+                break;
+        }
+    }
+}
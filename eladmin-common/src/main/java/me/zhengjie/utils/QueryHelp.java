@@ -19,6 +19,7 @@ import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.collection.CollectionUtil;
 import cn.hutool.core.util.ObjectUtil;
 import lombok.extern.slf4j.Slf4j;
+import me.zhengjie.annotation.BlurryIndexed;
 import me.zhengjie.annotation.DataPermission;
 import me.zhengjie.annotation.Query;
 import javax.persistence.criteria.*;
@@ -38,146 +39,29 @@ public class QueryHelp {
         if(query == null){
             return cb.and(list.toArray(new Predicate[0]));
         }
+        QueryPlan plan = QueryPlan.of(query.getClass());
         // 数据权限验证
-        DataPermission permission = query.getClass().getAnnotation(DataPermission.class);
+        DataPermission permission = plan.getPermission();
         if(permission != null){
             // 获取数据权限
             List<Long> dataScopes = SecurityUtils.getCurrentUserDataScope();
-            if(CollectionUtil.isNotEmpty(dataScopes)){
-                if(StringUtils.isNotBlank(permission.joinName()) && StringUtils.isNotBlank(permission.fieldName())) {
-                    Join join = root.join(permission.joinName(), JoinType.LEFT);
-                    list.add(getExpression(permission.fieldName(),join, root).in(dataScopes));
-                } else if (StringUtils.isBlank(permission.joinName()) && StringUtils.isNotBlank(permission.fieldName())) {
-                    list.add(getExpression(permission.fieldName(),null, root).in(dataScopes));
-                }
+            if(CollectionUtil.isNotEmpty(dataScopes) && StringUtils.isNotBlank(permission.fieldName())){
+                Join join = StringUtils.isNotBlank(permission.joinName()) ? root.join(permission.joinName(), JoinType.LEFT) : null;
+                Expression column = getExpression(permission.fieldName(), join, root);
+                // 部门较多时关联物化的数据权限表，避免大量绑定参数
+                Predicate scope = SpringContextHolder.getBean(DataScopeTable.class).predicate(cb, column, dataScopes);
+                list.add(scope != null ? scope : column.in(dataScopes));
             }
         }
         try {
-            Map<String, Join> joinKey = new HashMap<>();
-            List<Field> fields = getAllFields(query.getClass(), new ArrayList<>());
-            for (Field field : fields) {
-                boolean accessible = field.isAccessible();
-                // 设置对象的访问权限，保证对private的属性的访
-                field.setAccessible(true);
-                Query q = field.getAnnotation(Query.class);
-                if (q != null) {
-                    String propName = q.propName();
-                    String joinName = q.joinName();
-                    String blurry = q.blurry();
-                    String attributeName = isBlank(propName) ? field.getName() : propName;
-                    Class<?> fieldType = field.getType();
-                    Object val = field.get(query);
-                    if (ObjectUtil.isNull(val) || "".equals(val)) {
-                        continue;
-                    }
-                    Join join = null;
-                    // 模糊多字段
-                    if (ObjectUtil.isNotEmpty(blurry)) {
-                        String[] blurrys = blurry.split(",");
-                        List<Predicate> orPredicate = new ArrayList<>();
-                        for (String s : blurrys) {
-                            orPredicate.add(cb.like(root.get(s).as(String.class), "%" + val.toString() + "%"));
-                        }
-                        Predicate[] p = new Predicate[orPredicate.size()];
-                        list.add(cb.or(orPredicate.toArray(p)));
-                        continue;
-                    }
-                    if (ObjectUtil.isNotEmpty(joinName)) {
-                        join = joinKey.get(joinName);
-                        if(join == null){
-                            String[] joinNames = joinName.split(">");
-                            for (String name : joinNames) {
-                                switch (q.join()) {
-                                    case LEFT:
-                                        if(ObjectUtil.isNotNull(join) && ObjectUtil.isNotNull(val)){
-                                            join = join.join(name, JoinType.LEFT);
-                                        } else {
-                                            join = root.join(name, JoinType.LEFT);
-                                        }
-                                        break;
-                                    case RIGHT:
-                                        if(ObjectUtil.isNotNull(join) && ObjectUtil.isNotNull(val)){
-                                            join = join.join(name, JoinType.RIGHT);
-                                        } else {
-                                            join = root.join(name, JoinType.RIGHT);
-                                        }
-                                        break;
-                                    case INNER:
-                                        if(ObjectUtil.isNotNull(join) && ObjectUtil.isNotNull(val)){
-                                            join = join.join(name, JoinType.INNER);
-                                        } else {
-                                            join = root.join(name, JoinType.INNER);
-                                        }
-                                        break;
-                                    default: break;
-                                }
-                            }
-                            joinKey.put(joinName, join);
-                        }
-                    }
-                    switch (q.type()) {
-                        case EQUAL:
-                            list.add(cb.equal(getExpression(attributeName,join,root)
-                                    .as((Class<? extends Comparable>) fieldType),val));
-                            break;
-                        case GREATER_THAN:
-                            list.add(cb.greaterThanOrEqualTo(getExpression(attributeName,join,root)
-                                    .as((Class<? extends Comparable>) fieldType), (Comparable) val));
-                            break;
-                        case LESS_THAN:
-                            list.add(cb.lessThanOrEqualTo(getExpression(attributeName,join,root)
-                                    .as((Class<? extends Comparable>) fieldType), (Comparable) val));
-                            break;
-                        case LESS_THAN_NQ:
-                            list.add(cb.lessThan(getExpression(attributeName,join,root)
-                                    .as((Class<? extends Comparable>) fieldType), (Comparable) val));
-                            break;
-                        case INNER_LIKE:
-                            list.add(cb.like(getExpression(attributeName,join,root)
-                                    .as(String.class), "%" + val.toString() + "%"));
-                            break;
-                        case LEFT_LIKE:
-                            list.add(cb.like(getExpression(attributeName,join,root)
-                                    .as(String.class), "%" + val.toString()));
-                            break;
-                        case RIGHT_LIKE:
-                            list.add(cb.like(getExpression(attributeName,join,root)
-                                    .as(String.class), val.toString() + "%"));
-                            break;
-                        case IN:
-                            if (CollUtil.isNotEmpty((Collection<Object>)val)) {
-                                list.add(getExpression(attributeName,join,root).in((Collection<Object>) val));
-                            }
-                            break;
-                        case NOT_IN:
-                            if (CollUtil.isNotEmpty((Collection<Object>)val)) {
-                                list.add(getExpression(attributeName,join,root).in((Collection<Object>) val).not());
-                            }
-                            break;
-                        case NOT_EQUAL:
-                            list.add(cb.notEqual(getExpression(attributeName,join,root), val));
-                            break;
-                        case NOT_NULL:
-                            list.add(cb.isNotNull(getExpression(attributeName,join,root)));
-                            break;
-                        case IS_NULL:
-                            list.add(cb.isNull(getExpression(attributeName,join,root)));
-                            break;
-                        case BETWEEN:
-                            List<Object> between = new ArrayList<>((List<Object>)val);
-                            if(between.size() == 2){
-                                list.add(cb.between(getExpression(attributeName, join, root).as((Class<? extends Comparable>) between.get(0).getClass()),
-                                        (Comparable) between.get(0), (Comparable) between.get(1)));
-                            }
-                            break;
-                        case FIND_IN_SET:
-                            list.add(cb.greaterThan(cb.function("FIND_IN_SET", Integer.class,
-                                    cb.literal(val.toString()), root.get(attributeName)), 0));
-                            break;
-                        default: break;
-                    }
+            QueryBuilder<Object> builder = plan.getBuilder();
+            if (builder != null) {
+                builder.addPredicates(root, query, cb, list);
+            } else {
+                Map<String, Join> joinKey = new HashMap<>();
+                for (QueryPlan.Condition condition : plan.getConditions()) {
+                    addPredicate(list, root, cb, joinKey, condition, condition.accessor.get(query));
                 }
-                field.setAccessible(accessible);
             }
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -186,28 +70,152 @@ public class QueryHelp {
         return cb.and(list.toArray(new Predicate[size]));
     }
 
-    @SuppressWarnings("unchecked")
-    private static <T, R> Expression<T> getExpression(String attributeName, Join join, Root<R> root) {
-        if (ObjectUtil.isNotEmpty(join)) {
-            return join.get(attributeName);
-        } else {
-            return root.get(attributeName);
+    /**
+     * 根据单个查询条件添加查询谓词，值为 null 或空字符串时忽略
+     * @param list 查询谓词
+     * @param root /
+     * @param cb /
+     * @param joinKey 本次查询已创建的连接
+     * @param condition 查询条件
+     * @param val 查询条件的值
+     */
+    public static <R> void addPredicate(List<Predicate> list, Root<R> root, CriteriaBuilder cb,
+                                        Map<String, Join> joinKey, QueryCondition condition, Object val) {
+        if (ObjectUtil.isNull(val) || "".equals(val)) {
+            return;
+        }
+        String attributeName = condition.attributeName;
+        Class<?> fieldType = condition.fieldType;
+        Join join = null;
+        // 模糊多字段
+        if (condition.blurry != null) {
+            // 先通过索引缩小范围
+            if (root.getJavaType().isAnnotationPresent(BlurryIndexed.class)) {
+                Predicate candidates = SpringContextHolder.getBean(BlurryIndex.class)
+                        .predicate(root, cb, condition.blurry, val.toString());
+                if (candidates != null) {
+                    list.add(candidates);
+                }
+            }
+            List<Predicate> orPredicate = new ArrayList<>();
+            for (String s : condition.blurry) {
+                orPredicate.add(cb.like(root.get(s).as(String.class), "%" + val.toString() + "%"));
+            }
+            Predicate[] p = new Predicate[orPredicate.size()];
+            list.add(cb.or(orPredicate.toArray(p)));
+            return;
+        }
+        // 不产生查询条件时不创建连接，避免查询与 COUNT 中出现无用的连接
+        switch (condition.type) {
+            case IN:
+            case NOT_IN:
+                if (CollUtil.isEmpty((Collection<Object>) val)) {
+                    return;
+                }
+                break;
+            case BETWEEN:
+                if (((List<Object>) val).size() != 2) {
+                    return;
+                }
+                break;
+            default: break;
+        }
+        if (condition.joinName != null && condition.type != Query.Type.FIND_IN_SET) {
+            join = joinKey.get(condition.joinName);
+            if(join == null){
+                for (String name : condition.joinNames) {
+                    join = join == null ? root.join(name, condition.joinType) : join.join(name, condition.joinType);
+                }
+                joinKey.put(condition.joinName, join);
+            }
+        }
+        switch (condition.type) {
+            case EQUAL:
+                list.add(cb.equal(getExpression(attributeName,join,root)
+                        .as((Class<? extends Comparable>) fieldType),val));
+                break;
+            case GREATER_THAN:
+                list.add(cb.greaterThanOrEqualTo(getExpression(attributeName,join,root)
+                        .as((Class<? extends Comparable>) fieldType), (Comparable) val));
+                break;
+            case LESS_THAN:
+                list.add(cb.lessThanOrEqualTo(getExpression(attributeName,join,root)
+                        .as((Class<? extends Comparable>) fieldType), (Comparable) val));
+                break;
+            case LESS_THAN_NQ:
+                list.add(cb.lessThan(getExpression(attributeName,join,root)
+                        .as((Class<? extends Comparable>) fieldType), (Comparable) val));
+                break;
+            case INNER_LIKE:
+                list.add(cb.like(getExpression(attributeName,join,root)
+                        .as(String.class), "%" + val.toString() + "%"));
+                break;
+            case LEFT_LIKE:
+                list.add(cb.like(getExpression(attributeName,join,root)
+                        .as(String.class), "%" + val.toString()));
+                break;
+            case RIGHT_LIKE:
+                list.add(cb.like(getExpression(attributeName,join,root)
+                        .as(String.class), val.toString() + "%"));
+                break;
+            case IN:
+                if (CollUtil.isNotEmpty((Collection<Object>)val)) {
+                    list.add(getExpression(attributeName,join,root).in((Collection<Object>) val));
+                }
+                break;
+            case NOT_IN:
+                if (CollUtil.isNotEmpty((Collection<Object>)val)) {
+                    list.add(getExpression(attributeName,join,root).in((Collection<Object>) val).not());
+                }
+                break;
+            case NOT_EQUAL:
+                list.add(cb.notEqual(getExpression(attributeName,join,root), val));
+                break;
+            case NOT_NULL:
+                list.add(cb.isNotNull(getExpression(attributeName,join,root)));
+                break;
+            case IS_NULL:
+                list.add(cb.isNull(getExpression(attributeName,join,root)));
+                break;
+            case BETWEEN:
+                List<Object> between = new ArrayList<>((List<Object>)val);
+                if(between.size() == 2){
+                    list.add(cb.between(getExpression(attributeName, join, root).as((Class<? extends Comparable>) between.get(0).getClass()),
+                            (Comparable) between.get(0), (Comparable) between.get(1)));
+                }
+                break;
+            case FIND_IN_SET:
+                list.add(cb.greaterThan(cb.function("FIND_IN_SET", Integer.class,
+                        cb.literal(val.toString()), root.get(attributeName)), 0));
+                break;
+            default: break;
         }
     }
 
-    private static boolean isBlank(final CharSequence cs) {
-        int strLen;
-        if (cs == null || (strLen = cs.length()) == 0) {
-            return true;
-        }
-        for (int i = 0; i < strLen; i++) {
-            if (!Character.isWhitespace(cs.charAt(i))) {
+    /**
+     * 判断查询条件中除 ignores 以外的属性是否都为 null
+     * @param criteria 查询条件
+     * @param ignores 忽略的属性
+     * @return /
+     */
+    public static boolean isAllNull(Object criteria, Collection<String> ignores) {
+        for (QueryPlan.Accessor accessor : QueryPlan.of(criteria.getClass()).getAccessors()) {
+            if (!ignores.contains(accessor.name) && accessor.get(criteria) != null) {
                 return false;
             }
         }
         return true;
     }
 
+    @SuppressWarnings("unchecked")
+    private static <T, R> Expression<T> getExpression(String attributeName, Join join, Root<R> root) {
+        if (ObjectUtil.isNotEmpty(join)) {
+            return join.get(attributeName);
+        } else {
+            return root.get(attributeName);
+        }
+    }
+
     public static List<Field> getAllFields(Class clazz, List<Field> fields) {
         if (clazz != null) {
             fields.addAll(Arrays.asList(clazz.getDeclaredFields()));
@@ -0,0 +1,161 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import me.zhengjie.annotation.DataPermission;
+import me.zhengjie.annotation.Query;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * 查询条件类的解析结果，每个类只解析一次：字段的 @Query 注解、拆分后的 blurry 与 joinName，
+ * 以及通过 MethodHandle 读取字段值的访问器，避免每次查询都反射遍历字段；
+ * 存在编译期生成的 XxxQueryCriteria_QueryBuilder 时使用生成的构建器，不再解析 @Query 注解
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+@Slf4j
+final class QueryPlan {
+
+    static final String BUILDER_SUFFIX = "_QueryBuilder";
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final ClassValue<QueryPlan> PLANS = new ClassValue<QueryPlan>() {
+        @Override
+        protected QueryPlan computeValue(Class<?> type) {
+            return new QueryPlan(type);
+        }
+    };
+
+    private final DataPermission permission;
+
+    /** 编译期生成的构建器，不存在时为 null */
+    private final QueryBuilder<Object> builder;
+
+    /** 带有 @Query 注解的字段 */
+    private final List<Condition> conditions = new ArrayList<>();
+
+    /** 所有实例字段，包括父类 */
+    private final List<Accessor> accessors = new ArrayList<>();
+
+    private QueryPlan(Class<?> type) {
+        this.permission = type.getAnnotation(DataPermission.class);
+        this.builder = loadBuilder(type);
+        for (Field field : QueryHelp.getAllFields(type, new ArrayList<>())) {
+            if (Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            Accessor accessor = new Accessor(field);
+            accessors.add(accessor);
+            Query query = field.getAnnotation(Query.class);
+            if (query != null && builder == null) {
+                conditions.add(new Condition(accessor, query));
+            }
+        }
+    }
+
+    static QueryPlan of(Class<?> type) {
+        return PLANS.get(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static QueryBuilder<Object> loadBuilder(Class<?> type) {
+        try {
+            Class<?> builderClass = Class.forName(type.getName() + BUILDER_SUFFIX, true, type.getClassLoader());
+            if (QueryBuilder.class.isAssignableFrom(builderClass)) {
+                return (QueryBuilder<Object>) builderClass.getDeclaredConstructor().newInstance();
+            }
+        } catch (ClassNotFoundException e) {
+            // 未生成构建器，使用反射
+        } catch (ReflectiveOperationException | LinkageError e) {
+            log.warn("查询构建器 {} 加载失败，使用反射: {}", type.getName() + BUILDER_SUFFIX, e.getMessage());
+        }
+        return null;
+    }
+
+    DataPermission getPermission() {
+        return permission;
+    }
+
+    QueryBuilder<Object> getBuilder() {
+        return builder;
+    }
+
+    /**
+     * 反射解析的查询条件，存在生成的构建器时为空
+     * @return /
+     */
+    List<Condition> getConditions() {
+        return conditions;
+    }
+
+    List<Accessor> getAccessors() {
+        return accessors;
+    }
+
+    /**
+     * 字段访问器
+     */
+    static class Accessor {
+
+        final String name;
+
+        final Class<?> type;
+
+        private final MethodHandle getter;
+
+        private Accessor(Field field) {
+            this.name = field.getName();
+            this.type = field.getType();
+            try {
+                field.setAccessible(true);
+                this.getter = LOOKUP.unreflectGetter(field).asType(GETTER_TYPE);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot access field " + field, e);
+            }
+        }
+
+        Object get(Object target) {
+            try {
+                return (Object) getter.invokeExact(target);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Cannot read field " + name, e);
+            }
+        }
+    }
+
+    /**
+     * 反射解析的查询条件
+     */
+    static class Condition extends QueryCondition {
+
+        final Accessor accessor;
+
+        private Condition(Accessor accessor, Query query) {
+            super(StringUtils.isBlank(query.propName()) ? accessor.name : query.propName(), accessor.type,
+                    query.type(), query.blurry(), query.joinName(), query.join());
+            this.accessor = accessor;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.utils;
+
+import org.springframework.data.redis.core.ConvertingCursor;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * 基于 Redis 的缓存存储
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+@SuppressWarnings({"unchecked", "all"})
+public class RedisCacheBackend implements CacheBackend {
+
+    /**
+     * 限流脚本
+     */
+    private static final RedisScript<Number> LIMIT_SCRIPT = new DefaultRedisScript<>("local c" +
+            "\nc = redis.call('get',KEYS[1])" +
+            "\nif c and tonumber(c) > tonumber(ARGV[1]) then" +
+            "\nreturn c;" +
+            "\nend" +
+            "\nc = redis.call('incr',KEYS[1])" +
+            "\nif tonumber(c) == 1 then" +
+            "\nredis.call('expire',KEYS[1],ARGV[2])" +
+            "\nend" +
+            "\nreturn c;", Number.class);
+
+    private final RedisTemplate<Object, Object> redisTemplate;
+
+    public RedisCacheBackend(RedisTemplate<Object, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+        this.redisTemplate.setHashKeySerializer(new StringRedisSerializer());
+        this.redisTemplate.setKeySerializer(new StringRedisSerializer());
+        this.redisTemplate.setStringSerializer(new StringRedisSerializer());
+    }
+
+    @Override
+    public void expire(String key, long time, TimeUnit timeUnit) {
+        redisTemplate.expire(key, time, timeUnit);
+    }
+
+    @Override
+    public long getExpire(String key) {
+        return redisTemplate.getExpire(key, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void scan(String pattern, Predicate<String> consumer) {
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).build();
+        try (Cursor<String> cursor = redisTemplate.executeWithStickyConnection(
+                (RedisCallback<Cursor<String>>) connection -> new ConvertingCursor<>(
+                        connection.scan(options), bytes -> new String(bytes, StandardCharsets.UTF_8)))) {
+            while (cursor.hasNext()) {
+                if (!consumer.test(cursor.next())) {
+                    break;
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean hasKey(String key) {
+        return redisTemplate.hasKey(key);
+    }
+
+    @Override
+    public long del(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        Long count = redisTemplate.delete(new HashSet<Object>(keys));
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public void batch(Collection<String> keys, Map<String, Set<String>> increments, String channel, String message) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            if (!keys.isEmpty()) {
+                connection.del(keys.stream().map(RedisCacheBackend::bytes).toArray(byte[][]::new));
+            }
+            increments.forEach((key, items) -> items.forEach(item -> connection.hIncrBy(bytes(key), bytes(item), 1)));
+            if (message != null) {
+                connection.publish(bytes(channel), bytes(message));
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(bytes(channel), bytes(message)));
+    }
+
+    @Override
+    public Object get(String key) {
+        return redisTemplate.opsForValue().get(key);
+    }
+
+    @Override
+    public List<Object> multiGet(Collection<String> keys) {
+        return redisTemplate.opsForValue().multiGet(new ArrayList<Object>(keys));
+    }
+
+    @Override
+    public void set(String key, Object value, long time, TimeUnit timeUnit) {
+        if (time > 0) {
+            redisTemplate.opsForValue().set(key, value, time, timeUnit);
+        } else {
+            redisTemplate.opsForValue().set(key, value);
+        }
+    }
+
+    @Override
+    public long incrWithLimit(String key, long limit, long seconds) {
+        Number count = redisTemplate.execute(LIMIT_SCRIPT, Collections.singletonList(key), limit, seconds);
+        // 脚本无返回时视为超限
+        return count == null ? limit + 1 : count.longValue();
+    }
+
+    @Override
+    public Object hget(String key, String item) {
+        return redisTemplate.opsForHash().get(key, item);
+    }
+
+    @Override
+    public List<Object> hmget(String key, Collection<Object> items) {
+        return redisTemplate.opsForHash().multiGet(key, items);
+    }
+
+    @Override
+    public Map<Object, Object> hgetAll(String key) {
+        return redisTemplate.opsForHash().entries(key);
+    }
+
+    @Override
+    public void hmset(String key, Map<String, Object> map) {
+        redisTemplate.opsForHash().putAll(key, map);
+    }
+
+    @Override
+    public void hset(String key, String item, Object value) {
+        redisTemplate.opsForHash().put(key, item, value);
+    }
+
+    @Override
+    public void hdel(String key, Object... items) {
+        redisTemplate.opsForHash().delete(key, items);
+    }
+
+    @Override
+    public boolean hHasKey(String key, String item) {
+        return redisTemplate.opsForHash().hasKey(key, item);
+    }
+
+    @Override
+    public double hincr(String key, String item, double by) {
+        return redisTemplate.opsForHash().increment(key, item, by);
+    }
+
+    @Override
+    public Set<Object> sMembers(String key) {
+        return redisTemplate.opsForSet().members(key);
+    }
+
+    @Override
+    public boolean sIsMember(String key, Object value) {
+        return redisTemplate.opsForSet().isMember(key, value);
+    }
+
+    @Override
+    public long sAdd(String key, Object... values) {
+        return redisTemplate.opsForSet().add(key, values);
+    }
+
+    @Override
+    public long sSize(String key) {
+        return redisTemplate.opsForSet().size(key);
+    }
+
+    @Override
+    public long sRemove(String key, Object... values) {
+        return redisTemplate.opsForSet().remove(key, values);
+    }
+
+    @Override
+    public List<Object> lRange(String key, long start, long end) {
+        return redisTemplate.opsForList().range(key, start, end);
+    }
+
+    @Override
+    public long lSize(String key) {
+        return redisTemplate.opsForList().size(key);
+    }
+
+    @Override
+    public Object lIndex(String key, long index) {
+        return redisTemplate.opsForList().index(key, index);
+    }
+
+    @Override
+    public void rightPush(String key, Object value) {
+        redisTemplate.opsForList().rightPush(key, value);
+    }
+
+    @Override
+    public void rightPushAll(String key, List<Object> values) {
+        redisTemplate.opsForList().rightPushAll(key, values);
+    }
+
+    @Override
+    public void lSet(String key, long index, Object value) {
+        redisTemplate.opsForList().set(key, index, value);
+    }
+
+    @Override
+    public long lRemove(String key, long count, Object value) {
+        return redisTemplate.opsForList().remove(key, count, value);
+    }
+
+    private static byte[] bytes(String str) {
+        return str.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -16,18 +16,14 @@
 package me.zhengjie.utils;
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Sets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.redis.connection.RedisConnection;
-import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.core.*;
-import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.stereotype.Component;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 
 /**
+ * 缓存操作，底层存储由 CacheBackend 提供，默认为 Redis
  * @author /
  */
 @Component
@@ -35,13 +31,10 @@ import java.util.concurrent.TimeUnit;
 public class RedisUtils {
     private static final Logger log = LoggerFactory.getLogger(RedisUtils.class);
 
-    private RedisTemplate<Object, Object> redisTemplate;
+    private final CacheBackend cacheBackend;
 
-    public RedisUtils(RedisTemplate<Object, Object> redisTemplate) {
-        this.redisTemplate = redisTemplate;
-        this.redisTemplate.setHashKeySerializer(new StringRedisSerializer());
-        this.redisTemplate.setKeySerializer(new StringRedisSerializer());
-        this.redisTemplate.setStringSerializer(new StringRedisSerializer());
+    public RedisUtils(CacheBackend cacheBackend) {
+        this.cacheBackend = cacheBackend;
     }
 
     /**
@@ -53,7 +46,7 @@ public class RedisUtils {
     public boolean expire(String key, long time) {
         try {
             if (time > 0) {
-                redisTemplate.expire(key, time, TimeUnit.SECONDS);
+                cacheBackend.expire(key, time, TimeUnit.SECONDS);
             }
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -72,7 +65,7 @@ public class RedisUtils {
     public boolean expire(String key, long time, TimeUnit timeUnit) {
         try {
             if (time > 0) {
-                redisTemplate.expire(key, time, timeUnit);
+                cacheBackend.expire(key, time, timeUnit);
             }
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -88,7 +81,7 @@ public class RedisUtils {
      * @return 时间(秒) 返回0代表为永久有效
      */
     public long getExpire(Object key) {
-        return redisTemplate.getExpire(key, TimeUnit.SECONDS);
+        return cacheBackend.getExpire(String.valueOf(key));
     }
 
     /**
@@ -98,19 +91,8 @@ public class RedisUtils {
      * @return /
      */
     public List<String> scan(String pattern) {
-        ScanOptions options = ScanOptions.scanOptions().match(pattern).build();
-        RedisConnectionFactory factory = redisTemplate.getConnectionFactory();
-        RedisConnection rc = Objects.requireNonNull(factory).getConnection();
-        Cursor<byte[]> cursor = rc.scan(options);
         List<String> result = new ArrayList<>();
-        while (cursor.hasNext()) {
-            result.add(new String(cursor.next()));
-        }
-        try {
-            RedisConnectionUtils.releaseConnection(rc, factory);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-        }
+        cacheBackend.scan(pattern, result::add);
         return result;
     }
 
@@ -123,32 +105,17 @@ public class RedisUtils {
      * @return /
      */
     public List<String> findKeysForPage(String patternKey, int page, int size) {
-        ScanOptions options = ScanOptions.scanOptions().match(patternKey).build();
-        RedisConnectionFactory factory = redisTemplate.getConnectionFactory();
-        RedisConnection rc = Objects.requireNonNull(factory).getConnection();
-        Cursor<byte[]> cursor = rc.scan(options);
         List<String> result = new ArrayList<>(size);
-        int tmpIndex = 0;
         int fromIndex = page * size;
         int toIndex = page * size + size;
-        while (cursor.hasNext()) {
-            if (tmpIndex >= fromIndex && tmpIndex < toIndex) {
-                result.add(new String(cursor.next()));
-                tmpIndex++;
-                continue;
+        int[] tmpIndex = {0};
+        cacheBackend.scan(patternKey, key -> {
+            if (tmpIndex[0] >= fromIndex && tmpIndex[0] < toIndex) {
+                result.add(key);
             }
             // 获取到满足条件的数据后,就可以退出了
-            if (tmpIndex >= toIndex) {
-                break;
-            }
-            tmpIndex++;
-            cursor.next();
-        }
-        try {
-            RedisConnectionUtils.releaseConnection(rc, factory);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-        }
+            return ++tmpIndex[0] < toIndex;
+        });
         return result;
     }
 
@@ -160,7 +127,7 @@ public class RedisUtils {
      */
     public boolean hasKey(String key) {
         try {
-            return redisTemplate.hasKey(key);
+            return cacheBackend.hasKey(key);
         } catch (Exception e) {
             log.error(e.getMessage(), e);
             return false;
@@ -175,17 +142,13 @@ public class RedisUtils {
     public void del(String... keys) {
         if (keys != null && keys.length > 0) {
             if (keys.length == 1) {
-                boolean result = redisTemplate.delete(keys[0]);
+                boolean result = cacheBackend.del(Collections.singleton(keys[0])) > 0;
                 log.debug("--------------------------------------------");
                 log.debug(new StringBuilder("删除缓存：").append(keys[0]).append("，结果：").append(result).toString());
                 log.debug("--------------------------------------------");
             } else {
-                Set<Object> keySet = new HashSet<>();
-                for (String key : keys) {
-                    if (redisTemplate.hasKey(key))
-                        keySet.add(key);
-                }
-                long count = redisTemplate.delete(keySet);
+                Set<String> keySet = new HashSet<>(Arrays.asList(keys));
+                long count = cacheBackend.del(keySet);
                 log.debug("--------------------------------------------");
                 log.debug("成功删除缓存：" + keySet.toString());
                 log.debug("缓存删除数量：" + count + "个");
@@ -199,14 +162,7 @@ public class RedisUtils {
      * @param pattern
      */
     public void scanDel(String pattern){
-        ScanOptions options = ScanOptions.scanOptions().match(pattern).build();
-        try (Cursor<byte[]> cursor = redisTemplate.executeWithStickyConnection(
-                (RedisCallback<Cursor<byte[]>>) connection -> (Cursor<byte[]>) new ConvertingCursor<>(
-                        connection.scan(options), redisTemplate.getKeySerializer()::deserialize))) {
-            while (cursor.hasNext()) {
-                redisTemplate.delete(cursor.next());
-            }
-        }
+        cacheBackend.del(scan(pattern));
     }
 
     // ============================String=============================
@@ -218,7 +174,7 @@ public class RedisUtils {
      * @return 值
      */
     public Object get(String key) {
-        return key == null ? null : redisTemplate.opsForValue().get(key);
+        return key == null ? null : cacheBackend.get(key);
     }
 
     /**
@@ -228,7 +184,7 @@ public class RedisUtils {
      * @return
      */
     public List<Object> multiGet(List<String> keys) {
-        List list = redisTemplate.opsForValue().multiGet(Sets.newHashSet(keys));
+        List list = cacheBackend.multiGet(new LinkedHashSet<>(keys));
         List resultList = Lists.newArrayList();
         Optional.ofNullable(list).ifPresent(e-> list.forEach(ele-> Optional.ofNullable(ele).ifPresent(resultList::add)));
         return resultList;
@@ -243,7 +199,7 @@ public class RedisUtils {
      */
     public boolean set(String key, Object value) {
         try {
-            redisTemplate.opsForValue().set(key, value);
+            cacheBackend.set(key, value, 0, TimeUnit.SECONDS);
             return true;
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -261,11 +217,7 @@ public class RedisUtils {
      */
     public boolean set(String key, Object value, long time) {
         try {
-            if (time > 0) {
-                redisTemplate.opsForValue().set(key, value, time, TimeUnit.SECONDS);
-            } else {
-                set(key, value);
-            }
+            cacheBackend.set(key, value, time, TimeUnit.SECONDS);
             return true;
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -284,11 +236,7 @@ public class RedisUtils {
      */
     public boolean set(String key, Object value, long time, TimeUnit timeUnit) {
         try {
-            if (time > 0) {
-                redisTemplate.opsForValue().set(key, value, time, timeUnit);
-            } else {
-                set(key, value);
-            }
+            cacheBackend.set(key, value, time, timeUnit);
             return true;
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -306,7 +254,18 @@ public class RedisUtils {
      * @return 值
      */
     public Object hget(String key, String item) {
-        return redisTemplate.opsForHash().get(key, item);
+        return cacheBackend.hget(key, item);
+    }
+
+    /**
+     * 批量获取 hash 中多个项的值，一次网络交互
+     *
+     * @param key   键 不能为null
+     * @param items 项 不能为null
+     * @return 值，与 items 顺序一致，不存在的项为 null
+     */
+    public List<Object> hmget(String key, Collection<Object> items) {
+        return cacheBackend.hmget(key, items);
     }
 
     /**
@@ -316,7 +275,7 @@ public class RedisUtils {
      * @return 对应的多个键值
      */
     public Map<Object, Object> hmget(String key) {
-        return redisTemplate.opsForHash().entries(key);
+        return cacheBackend.hgetAll(key);
 
     }
 
@@ -329,7 +288,7 @@ public class RedisUtils {
      */
     public boolean hmset(String key, Map<String, Object> map) {
         try {
-            redisTemplate.opsForHash().putAll(key, map);
+            cacheBackend.hmset(key, map);
             return true;
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -347,7 +306,7 @@ public class RedisUtils {
      */
     public boolean hmset(String key, Map<String, Object> map, long time) {
         try {
-            redisTemplate.opsForHash().putAll(key, map);
+            cacheBackend.hmset(key, map);
             if (time > 0) {
                 expire(key, time);
             }
@@ -368,7 +327,7 @@ public class RedisUtils {
      */
     public boolean hset(String key, String item, Object value) {
         try {
-            redisTemplate.opsForHash().put(key, item, value);
+            cacheBackend.hset(key, item, value);
             return true;
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -387,7 +346,7 @@ public class RedisUtils {
      */
     public boolean hset(String key, String item, Object value, long time) {
         try {
-            redisTemplate.opsForHash().put(key, item, value);
+            cacheBackend.hset(key, item, value);
             if (time > 0) {
                 expire(key, time);
             }
@@ -405,7 +364,7 @@ public class RedisUtils {
      * @param item 项 可以使多个 不能为null
      */
     public void hdel(String key, Object... item) {
-        redisTemplate.opsForHash().delete(key, item);
+        cacheBackend.hdel(key, item);
     }
 
     /**
@@ -416,7 +375,7 @@ public class RedisUtils {
      * @return true 存在 false不存在
      */
     public boolean hHasKey(String key, String item) {
-        return redisTemplate.opsForHash().hasKey(key, item);
+        return cacheBackend.hHasKey(key, item);
     }
 
     /**
@@ -428,7 +387,7 @@ public class RedisUtils {
      * @return
      */
     public double hincr(String key, String item, double by) {
-        return redisTemplate.opsForHash().increment(key, item, by);
+        return cacheBackend.hincr(key, item, by);
     }
 
     /**
@@ -440,7 +399,7 @@ public class RedisUtils {
      * @return
      */
     public double hdecr(String key, String item, double by) {
-        return redisTemplate.opsForHash().increment(key, item, -by);
+        return cacheBackend.hincr(key, item, -by);
     }
 
     // ============================set=============================
@@ -453,7 +412,7 @@ public class RedisUtils {
      */
     public Set<Object> sGet(String key) {
         try {
-            return redisTemplate.opsForSet().members(key);
+            return cacheBackend.sMembers(key);
         } catch (Exception e) {
             log.error(e.getMessage(), e);
             return null;
@@ -469,7 +428,7 @@ public class RedisUtils {
      */
     public boolean sHasKey(String key, Object value) {
         try {
-            return redisTemplate.opsForSet().isMember(key, value);
+            return cacheBackend.sIsMember(key, value);
         } catch (Exception e) {
             log.error(e.getMessage(), e);
             return false;
@@ -485,7 +444,7 @@ public class RedisUtils {
      */
     public long sSet(String key, Object... values) {
         try {
-            return redisTemplate.opsForSet().add(key, values);
+            return cacheBackend.sAdd(key, values);
         } catch (Exception e) {
             log.error(e.getMessage(), e);
             return 0;
@@ -502,7 +461,7 @@ public class RedisUtils {
      */
     public long sSetAndTime(String key, long time, Object... values) {
         try {
-            Long count = redisTemplate.opsForSet().add(key, values);
+            long count = cacheBackend.sAdd(key, values);
             if (time > 0) {
                 expire(key, time);
             }
@@ -521,7 +480,7 @@ public class RedisUtils {
      */
     public long sGetSetSize(String key) {
         try {
-            return redisTemplate.opsForSet().size(key);
+            return cacheBackend.sSize(key);
         } catch (Exception e) {
             log.error(e.getMessage(), e);
             return 0;
@@ -537,7 +496,7 @@ public class RedisUtils {
      */
     public long setRemove(String key, Object... values) {
         try {
-            Long count = redisTemplate.opsForSet().remove(key, values);
+            long count = cacheBackend.sRemove(key, values);
             return count;
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -557,7 +516,7 @@ public class RedisUtils {
      */
     public List<Object> lGet(String key, long start, long end) {
         try {
-            return redisTemplate.opsForList().range(key, start, end);
+            return cacheBackend.lRange(key, start, end);
         } catch (Exception e) {
             log.error(e.getMessage(), e);
             return null;
@@ -572,7 +531,7 @@ public class RedisUtils {
      */
     public long lGetListSize(String key) {
         try {
-            return redisTemplate.opsForList().size(key);
+            return cacheBackend.lSize(key);
         } catch (Exception e) {
             log.error(e.getMessage(), e);
             return 0;
@@ -588,7 +547,7 @@ public class RedisUtils {
      */
     public Object lGetIndex(String key, long index) {
         try {
-            return redisTemplate.opsForList().index(key, index);
+            return cacheBackend.lIndex(key, index);
         } catch (Exception e) {
             log.error(e.getMessage(), e);
             return null;
@@ -604,7 +563,7 @@ public class RedisUtils {
      */
     public boolean lSet(String key, Object value) {
         try {
-            redisTemplate.opsForList().rightPush(key, value);
+            cacheBackend.rightPush(key, value);
             return true;
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -622,7 +581,7 @@ public class RedisUtils {
      */
     public boolean lSet(String key, Object value, long time) {
         try {
-            redisTemplate.opsForList().rightPush(key, value);
+            cacheBackend.rightPush(key, value);
             if (time > 0) {
                 expire(key, time);
             }
@@ -642,7 +601,7 @@ public class RedisUtils {
      */
     public boolean lSet(String key, List<Object> value) {
         try {
-            redisTemplate.opsForList().rightPushAll(key, value);
+            cacheBackend.rightPushAll(key, value);
             return true;
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -660,7 +619,7 @@ public class RedisUtils {
      */
     public boolean lSet(String key, List<Object> value, long time) {
         try {
-            redisTemplate.opsForList().rightPushAll(key, value);
+            cacheBackend.rightPushAll(key, value);
             if (time > 0) {
                 expire(key, time);
             }
@@ -681,7 +640,7 @@ public class RedisUtils {
      */
     public boolean lUpdateIndex(String key, long index, Object value) {
         try {
-            redisTemplate.opsForList().set(key, index, value);
+            cacheBackend.lSet(key, index, value);
             return true;
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -699,7 +658,7 @@ public class RedisUtils {
      */
     public long lRemove(String key, long count, Object value) {
         try {
-            return redisTemplate.opsForList().remove(key, count, value);
+            return cacheBackend.lRemove(key, count, value);
         } catch (Exception e) {
             log.error(e.getMessage(), e);
             return 0;
@@ -711,11 +670,11 @@ public class RedisUtils {
      * @param ids    id
      */
     public void delByKeys(String prefix, Set<Long> ids) {
-        Set<Object> keys = new HashSet<>();
+        Set<String> keys = new HashSet<>();
         for (Long id : ids) {
-            keys.addAll(redisTemplate.keys(new StringBuffer(prefix).append(id).toString()));
+            keys.add(new StringBuffer(prefix).append(id).toString());
         }
-        long count = redisTemplate.delete(keys);
+        long count = cacheBackend.del(keys);
         // 此处提示可自行删除
         log.debug("--------------------------------------------");
         log.debug("成功删除缓存：" + keys.toString());
@@ -0,0 +1,113 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.utils;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 将扁平的节点列表组装为树，一次遍历按ID建立索引，再一次遍历挂到上级下，时间复杂度 O(n log n)(排序)。
+ * 上级不在列表中的节点作为顶级节点(孤儿提升)；同级节点按排序值稳定排序，排序值相同或为空时保持原有顺序
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+public final class TreeBuilder<T, K> {
+
+    private final Function<? super T, ? extends K> id;
+
+    private final Function<? super T, ? extends K> pid;
+
+    private final Comparator<? super T> order;
+
+    private TreeBuilder(Function<? super T, ? extends K> id, Function<? super T, ? extends K> pid,
+                        Function<? super T, Integer> sort) {
+        this.id = id;
+        this.pid = pid;
+        this.order = sort == null ? null : Comparator.comparing(sort, Comparator.nullsLast(Comparator.naturalOrder()));
+    }
+
+    /**
+     * @param id 节点ID
+     * @param pid 上级ID，顶级节点为 null
+     * @param sort 排序值，为 null 时不排序
+     * @return /
+     */
+    public static <T, K> TreeBuilder<T, K> of(Function<? super T, ? extends K> id,
+                                              Function<? super T, ? extends K> pid,
+                                              Function<? super T, Integer> sort) {
+        return new TreeBuilder<>(id, pid, sort);
+    }
+
+    /**
+     * 组装树，只为有下级的节点设置 children
+     * @param nodes 节点，ID 重复时使用第一个
+     * @param children 设置节点的下级
+     * @return 顶级节点，首尾相连的环上的节点不会出现在结果中
+     */
+    public List<T> build(Collection<T> nodes, BiConsumer<? super T, List<T>> children) {
+        Map<K, T> index = index(nodes);
+        Map<K, List<T>> grouped = new HashMap<>(index.size() * 2);
+        List<T> roots = new ArrayList<>();
+        for (T node : index.values()) {
+            K parent = pid.apply(node);
+            if (parent == null || !index.containsKey(parent) || parent.equals(id.apply(node))) {
+                roots.add(node);
+            } else {
+                grouped.computeIfAbsent(parent, k -> new ArrayList<>()).add(node);
+            }
+        }
+        for (Map.Entry<K, List<T>> entry : grouped.entrySet()) {
+            List<T> list = entry.getValue();
+            sort(list);
+            children.accept(index.get(entry.getKey()), list);
+        }
+        sort(roots);
+        return roots;
+    }
+
+    /**
+     * 上级不在列表中的节点，保持原有顺序
+     * @param nodes 节点
+     * @return /
+     */
+    public List<T> roots(Collection<T> nodes) {
+        Map<K, T> index = index(nodes);
+        List<T> roots = new ArrayList<>();
+        for (T node : index.values()) {
+            K parent = pid.apply(node);
+            if (parent == null || !index.containsKey(parent)) {
+                roots.add(node);
+            }
+        }
+        return roots;
+    }
+
+    private Map<K, T> index(Collection<T> nodes) {
+        Map<K, T> index = new LinkedHashMap<>(nodes.size() * 2);
+        for (T node : nodes) {
+            index.putIfAbsent(id.apply(node), node);
+        }
+        return index;
+    }
+
+    private void sort(List<T> list) {
+        if (order != null && list.size() > 1) {
+            // List.sort 为稳定排序
+            list.sort(order);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.utils;
+
+import java.util.*;
+
+/**
+ * 树形数据的进程内索引，保存父子关系，并按欧拉序(先序遍历)为每个节点编号：
+ * 节点的子孙在遍历序列中是连续的一段 [enter, exit]，判断祖先关系为 O(1)，查询子孙不需要递归。
+ * 节点变更后只标记编号失效，下次查询时在内存中重新编号，不是线程安全的，访问时需要同步
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+public class TreeIndex {
+
+    private final Map<Long, Node> nodes = new HashMap<>();
+
+    /** 遍历序列，sequence[node.enter] == node */
+    private Node[] sequence = new Node[0];
+
+    /** 编号是否有效 */
+    private boolean numbered;
+
+    /**
+     * 新增或修改节点
+     * @param id ID
+     * @param pid 上级ID，顶级节点为 null
+     * @param enabled 是否启用
+     * @param sort 排序，同级节点按排序与ID遍历
+     */
+    public void put(Long id, Long pid, boolean enabled, Integer sort) {
+        Node node = nodes.computeIfAbsent(id, Node::new);
+        node.pid = pid;
+        node.enabled = enabled;
+        node.sort = sort == null ? 0 : sort;
+        numbered = false;
+    }
+
+    /**
+     * 删除节点，其下级在删除前视为顶级节点
+     * @param id ID
+     */
+    public void remove(Long id) {
+        if (nodes.remove(id) != null) {
+            numbered = false;
+        }
+    }
+
+    public void clear() {
+        nodes.clear();
+        numbered = false;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public boolean contains(Long id) {
+        return nodes.containsKey(id);
+    }
+
+    /**
+     * 直接下级
+     * @param id ID
+     * @return 按排序返回，节点不存在时返回空
+     */
+    public List<Long> children(Long id) {
+        Node node = numbered().get(id);
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        List<Long> ids = new ArrayList<>(node.children.size());
+        for (Node child : node.children) {
+            ids.add(child.id);
+        }
+        return ids;
+    }
+
+    /**
+     * 所有子孙，不包括自身
+     * @param id ID
+     * @return 先序遍历的顺序
+     */
+    public List<Long> descendants(Long id) {
+        Node node = numbered().get(id);
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        List<Long> ids = new ArrayList<>(node.exit - node.enter);
+        for (int i = node.enter + 1; i <= node.exit; i++) {
+            ids.add(sequence[i].id);
+        }
+        return ids;
+    }
+
+    /**
+     * 自身及启用的子孙，停用节点的子树整体跳过，自身停用时返回空
+     * @param id ID
+     * @return 先序遍历的顺序
+     */
+    public List<Long> enabledSubtree(Long id) {
+        Node node = numbered().get(id);
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        List<Long> ids = new ArrayList<>();
+        int i = node.enter;
+        while (i <= node.exit) {
+            Node current = sequence[i];
+            if (!current.enabled) {
+                i = current.exit + 1;
+                continue;
+            }
+            ids.add(current.id);
+            i++;
+        }
+        return ids;
+    }
+
+    /**
+     * 所有上级
+     * @param id ID
+     * @return 从直接上级到顶级节点
+     */
+    public List<Long> ancestors(Long id) {
+        Map<Long, Node> map = numbered();
+        List<Long> ids = new ArrayList<>();
+        Node node = map.get(id);
+        while (node != null && node.parent != null) {
+            node = node.parent;
+            ids.add(node.id);
+        }
+        return ids;
+    }
+
+    /**
+     * @param ancestor 上级ID
+     * @param id ID
+     * @return id 是否为 ancestor 的子孙，自身返回 false
+     */
+    public boolean isDescendant(Long ancestor, Long id) {
+        Map<Long, Node> map = numbered();
+        Node parent = map.get(ancestor);
+        Node node = map.get(id);
+        return parent != null && node != null && parent != node
+                && parent.enter <= node.enter && node.exit <= parent.exit;
+    }
+
+    private Map<Long, Node> numbered() {
+        if (!numbered) {
+            number();
+        }
+        return nodes;
+    }
+
+    /**
+     * 重建父子关系并编号，上级不存在的节点作为顶级节点；数据中存在环时，环上的节点从任一节点开始编号
+     */
+    private void number() {
+        Comparator<Node> comparator = Comparator.comparingInt((Node node) -> node.sort).thenComparing(node -> node.id);
+        List<Node> roots = new ArrayList<>();
+        for (Node node : nodes.values()) {
+            node.children.clear();
+            node.enter = -1;
+        }
+        for (Node node : nodes.values()) {
+            node.parent = node.pid == null ? null : nodes.get(node.pid);
+            if (node.parent == null) {
+                roots.add(node);
+            } else {
+                node.parent.children.add(node);
+            }
+        }
+        for (Node node : nodes.values()) {
+            node.children.sort(comparator);
+        }
+        roots.sort(comparator);
+        sequence = new Node[nodes.size()];
+        int counter = 0;
+        for (Node root : roots) {
+            counter = traverse(root, counter);
+        }
+        for (Node node : nodes.values()) {
+            if (node.enter < 0) {
+                node.parent = null;
+                counter = traverse(node, counter);
+            }
+        }
+        numbered = true;
+    }
+
+    /**
+     * 非递归先序遍历，避免层级很深时栈溢出
+     * @return 下一个编号
+     */
+    private int traverse(Node root, int counter) {
+        Deque<Node> stack = new ArrayDeque<>();
+        Deque<Integer> positions = new ArrayDeque<>();
+        root.enter = counter;
+        sequence[counter++] = root;
+        stack.push(root);
+        positions.push(0);
+        while (!stack.isEmpty()) {
+            Node node = stack.peek();
+            int position = positions.pop();
+            if (position < node.children.size()) {
+                positions.push(position + 1);
+                Node child = node.children.get(position);
+                if (child.enter >= 0) {
+                    continue;
+                }
+                child.enter = counter;
+                sequence[counter++] = child;
+                stack.push(child);
+                positions.push(0);
+            } else {
+                node.exit = counter - 1;
+                stack.pop();
+            }
+        }
+        return counter;
+    }
+
+    private static class Node {
+
+        private final Long id;
+
+        private Long pid;
+
+        private boolean enabled;
+
+        private int sort;
+
+        private Node parent;
+
+        private final List<Node> children = new ArrayList<>();
+
+        private int enter;
+
+        private int exit;
+
+        private Node(Long id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.utils;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 带版本号的进程内索引，版本号保存在 cache::version 中，通过 IndexVersionManager 读取与递增：
+ * 查询时本地版本号与当前版本号不一致则重新加载；变更时本地版本号恰好落后一个版本才增量更新，
+ * 说明期间没有其他节点的变更，否则下次查询重新加载
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+public class VersionedIndex<T> {
+
+    private final T index;
+
+    private final Consumer<T> loader;
+
+    private boolean loaded;
+
+    private long version;
+
+    /**
+     * @param index 索引
+     * @param loader 从数据库加载全部数据，加载前需要清空索引
+     */
+    public VersionedIndex(T index, Consumer<T> loader) {
+        this.index = index;
+        this.loader = loader;
+    }
+
+    /**
+     * 查询索引，版本号不一致时先重新加载
+     * @param current 当前版本号，获取失败时为 null，每次查询都重新加载
+     * @param query 查询
+     * @return /
+     */
+    public synchronized <R> R read(Long current, Function<T, R> query) {
+        if (!loaded || current == null || version != current) {
+            loaded = false;
+            loader.accept(index);
+            version = current == null ? -1 : current;
+            loaded = true;
+        }
+        return query.apply(index);
+    }
+
+    /**
+     * 下次查询时重新加载
+     */
+    public synchronized void invalidate() {
+        loaded = false;
+    }
+
+    /**
+     * 版本号递增后应用变更
+     * @param current 递增后的版本号
+     * @param change 变更
+     */
+    synchronized void apply(long current, Consumer<T> change) {
+        if (!loaded || version != current - 1) {
+            loaded = false;
+            return;
+        }
+        loaded = false;
+        change.accept(index);
+        version = current;
+        loaded = true;
+    }
+
+    /**
+     * 索引本身，只能读取不随数据变化的属性
+     */
+    T getIndex() {
+        return index;
+    }
+}
@@ -0,0 +1,45 @@
+package me.zhengjie.aspect;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class ReadReplicaAspectTest {
+
+    @Test
+    public void testSecondLevelCacheIsReadOnlyDuringCall() throws Throwable {
+        EntityManagerFactory emf = mock(EntityManagerFactory.class);
+        EntityManager em = mock(EntityManager.class);
+        Session session = mock(Session.class);
+        when(em.unwrap(Session.class)).thenReturn(session);
+        when(session.getCacheMode()).thenReturn(CacheMode.NORMAL);
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.proceed()).thenAnswer(invocation -> {
+            verify(session).setCacheMode(CacheMode.GET);
+            verify(session, never()).setCacheMode(CacheMode.NORMAL);
+            return "ok";
+        });
+        TransactionSynchronizationManager.bindResource(emf, new EntityManagerHolder(em));
+        try {
+            assertEquals("ok", new ReadReplicaAspect(emf).around(joinPoint));
+        } finally {
+            TransactionSynchronizationManager.unbindResource(emf);
+        }
+        verify(session).setCacheMode(CacheMode.NORMAL);
+    }
+
+    @Test
+    public void testWithoutSession() throws Throwable {
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.proceed()).thenReturn("ok");
+        assertEquals("ok", new ReadReplicaAspect(mock(EntityManagerFactory.class)).around(joinPoint));
+    }
+}
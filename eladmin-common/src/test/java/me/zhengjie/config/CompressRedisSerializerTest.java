@@ -0,0 +1,46 @@
+package me.zhengjie.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompressRedisSerializerTest {
+
+    private final FastJsonRedisSerializer<Object> fastJson = new FastJsonRedisSerializer<>(Object.class);
+
+    @Test
+    public void testSmallValueNotCompressed() {
+        CompressRedisSerializer serializer = new CompressRedisSerializer(fastJson, 1024);
+        byte[] bytes = serializer.serialize("hello");
+        assertNotEquals(CompressRedisSerializer.MAGIC, bytes[0]);
+        assertEquals("hello", serializer.deserialize(bytes));
+    }
+
+    @Test
+    public void testLargeValueCompressed() {
+        CompressRedisSerializer serializer = new CompressRedisSerializer(fastJson, 64);
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            list.add("menu-" + i);
+        }
+        byte[] raw = fastJson.serialize(list);
+        byte[] bytes = serializer.serialize(list);
+        assertEquals(CompressRedisSerializer.MAGIC, bytes[0]);
+        assertTrue(bytes.length < raw.length);
+        assertEquals(list, serializer.deserialize(bytes));
+        assertEquals(1L, serializer.getStats().get("compressCount"));
+    }
+
+    @Test
+    public void testReadUncompressedValue() {
+        CompressRedisSerializer serializer = new CompressRedisSerializer(fastJson, 64);
+        byte[] legacy = "\"legacy\"".getBytes(StandardCharsets.UTF_8);
+        assertEquals("legacy", serializer.deserialize(legacy));
+    }
+}
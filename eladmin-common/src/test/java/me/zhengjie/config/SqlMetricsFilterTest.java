@@ -0,0 +1,22 @@
+package me.zhengjie.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SqlMetricsFilterTest {
+
+    @Test
+    public void testNormalizeLiterals() {
+        assertEquals("select * from sys_user where username = ? and dept_id = ?",
+                SqlMetricsFilter.normalize("select * from sys_user where username = 'it''s'  and dept_id = 12"));
+    }
+
+    @Test
+    public void testNormalizeInList() {
+        assertEquals("select user0_.id from sys_user user0_ where user0_.id in (?)",
+                SqlMetricsFilter.normalize("select user0_.id from sys_user user0_ where user0_.id in (?, ?, ?)"));
+        assertEquals("select user0_.id from sys_user user0_ where user0_.id in (?)",
+                SqlMetricsFilter.normalize("select user0_.id from sys_user user0_ where user0_.id in (1, 2)"));
+    }
+}
@@ -0,0 +1,57 @@
+package me.zhengjie.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class BlurryIndexTest {
+
+    @Test
+    public void testGrams() {
+        assertEquals(new HashSet<>(Arrays.asList("ad", "dm", "mi", "in")), BlurryIndex.grams("admin"));
+        assertEquals(Collections.singleton("a"), BlurryIndex.grams("a"));
+    }
+
+    @Test
+    public void testSearchUpdateAndRemove() {
+        BlurryIndex.Index index = new BlurryIndex.Index(new String[]{"username", "nickName"});
+        index.put(new Object[]{1L, "admin", "管理员"});
+        index.put(new Object[]{2L, "test", "测试"});
+        assertEquals(Collections.singleton(1L), index.search("dmi"));
+        assertEquals(Collections.singleton(1L), index.search("管理"));
+        assertEquals(Collections.singleton(2L), index.search("es"));
+        assertTrue(index.search("xyz").isEmpty());
+
+        index.put(new Object[]{2L, "tester", null});
+        assertTrue(index.search("测试").isEmpty());
+        assertEquals(Collections.singleton(2L), index.search("ter"));
+
+        index.remove(1L);
+        assertTrue(index.search("admin").isEmpty());
+    }
+
+    @Test
+    public void testWildcardKeywordSkipsIndex() {
+        IndexVersionManager versions = mock(IndexVersionManager.class);
+        BlurryIndex blurryIndex = new BlurryIndex(versions, true, 1000);
+        String[] fields = {"username"};
+        assertNull(blurryIndex.predicate(null, null, fields, "ad%in"));
+        assertNull(blurryIndex.predicate(null, null, fields, "ad_in"));
+        assertNull(blurryIndex.predicate(null, null, fields, "ad\\in"));
+        verifyNoInteractions(versions);
+    }
+
+    @Test
+    public void testFoldCaseAndAccents() {
+        assertEquals("jose muller", BlurryIndex.fold("José Müller"));
+        BlurryIndex.Index index = new BlurryIndex.Index(new String[]{"username"});
+        index.put(new Object[]{1L, "José"});
+        assertEquals(Collections.singleton(1L), index.search(BlurryIndex.fold("JOSE")));
+        assertEquals(Collections.singleton(1L), index.search(BlurryIndex.fold("josé")));
+    }
+}
@@ -0,0 +1,83 @@
+package me.zhengjie.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class CircuitBreakerCacheBackendTest {
+
+    private final CacheBackend redis = mock(CacheBackend.class);
+
+    private final CircuitBreaker breaker = new CircuitBreaker("Redis", 2, 0, 50);
+
+    private final CircuitBreakerCacheBackend backend = new CircuitBreakerCacheBackend(redis,
+            new EmbeddedCacheBackend(new JdkSerializationRedisSerializer()), breaker, true,
+            new String[]{"online-token:"}, 60);
+
+    @Test
+    public void testTripAndFallback() {
+        backend.set("online-token:admin", "admin", 0, TimeUnit.SECONDS);
+        when(redis.get(anyString())).thenThrow(new IllegalStateException("timeout"));
+        assertNull(backend.get("user::id:1"));
+        // 同步到本地的 key 在熔断后仍然可以读取
+        assertEquals("admin", backend.get("online-token:admin"));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        backend.get("user::id:1");
+        verify(redis, times(2)).get(anyString());
+        assertEquals(1L, breaker.getStats().get("rejected"));
+    }
+
+    @Test
+    public void testReplayBeforeClose() throws InterruptedException {
+        doThrow(new IllegalStateException("timeout")).when(redis).del(anyCollection());
+        backend.del(Collections.singleton("dept::id:1"));
+        backend.del(Collections.singleton("dept::id:2"));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        backend.hincr(CacheKey.VERSION, "dept", 1);
+        verify(redis, never()).hincr(anyString(), anyString(), anyDouble());
+        Thread.sleep(60);
+        reset(redis);
+        when(redis.get("user::id:1")).thenReturn("admin");
+        // 探测成功，回放熔断期间的变更后关闭
+        assertEquals("admin", backend.get("user::id:1"));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        verify(redis).batch(eq(new java.util.HashSet<>(java.util.Arrays.asList("dept::id:1", "dept::id:2"))),
+                eq(Collections.singletonMap(CacheKey.VERSION, Collections.singleton("dept"))),
+                eq(CacheKey.EVICT_CHANNEL), eq("|dept::id:1,dept::id:2"));
+        assertEquals(0, backend.getStats().get("pendingDeletes"));
+    }
+
+    @Test
+    public void testMirrorEvictBroadcast() {
+        CircuitBreaker breakerB = new CircuitBreaker("Redis", 1, 0, 50);
+        CircuitBreakerCacheBackend nodeB = new CircuitBreakerCacheBackend(redis,
+                new EmbeddedCacheBackend(new JdkSerializationRedisSerializer()), breakerB, true,
+                new String[]{"online-token:"}, 60);
+        // 模拟 Redis 发布订阅，消息投递到两个节点
+        doAnswer(invocation -> {
+            DefaultMessage message = new DefaultMessage(((String) invocation.getArgument(0)).getBytes(StandardCharsets.UTF_8),
+                    ((String) invocation.getArgument(1)).getBytes(StandardCharsets.UTF_8));
+            backend.onMessage(message, null);
+            nodeB.onMessage(message, null);
+            return null;
+        }).when(redis).publish(anyString(), anyString());
+        when(redis.get("online-token:admin")).thenReturn("admin");
+        assertEquals("admin", nodeB.get("online-token:admin"));
+        // 节点 A 踢出用户
+        backend.del(Collections.singleton("online-token:admin"));
+        verify(redis).publish(eq(CacheKey.EVICT_CHANNEL), endsWith("|online-token:admin"));
+        // 节点 B 熔断后不再读取到已踢出的用户
+        when(redis.get(anyString())).thenThrow(new IllegalStateException("timeout"));
+        assertNull(nodeB.get("user::id:1"));
+        assertEquals(CircuitBreaker.State.OPEN, breakerB.getState());
+        assertNull(nodeB.get("online-token:admin"));
+    }
+}
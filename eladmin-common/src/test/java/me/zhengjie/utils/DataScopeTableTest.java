@@ -0,0 +1,83 @@
+package me.zhengjie.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class DataScopeTableTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final CriteriaBuilder cb = mock(CriteriaBuilder.class, RETURNS_MOCKS);
+
+    private final Expression<?> column = mock(Expression.class);
+
+    private final DataScopeTable table = new DataScopeTable(jdbcTemplate, mock(PlatformTransactionManager.class),
+            true, 3, 30, 60);
+
+    @Test
+    public void testKeyIgnoresOrderAndDuplicates() {
+        assertEquals(DataScopeTable.key(Arrays.asList(1L, 2L, 3L)), DataScopeTable.key(Arrays.asList(3L, 1L, 2L, 3L)));
+        assertNotEquals(DataScopeTable.key(Arrays.asList(1L, 2L, 3L)), DataScopeTable.key(Arrays.asList(1L, 2L, 4L)));
+    }
+
+    @Test
+    public void testBelowThresholdUsesIn() {
+        assertNull(table.predicate(cb, column, Arrays.asList(1L, 2L)));
+        // 去重后不足阈值
+        assertNull(table.predicate(cb, column, Arrays.asList(1L, 2L, 2L)));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    public void testFailureUsesIn() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), anyString()))
+                .thenThrow(new IllegalStateException("connection refused"));
+        assertNull(table.predicate(cb, column, ids(5)));
+    }
+
+    @Test
+    public void testMaterializeOnceUntilVisible() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), anyString())).thenReturn(0L);
+        // 写入后从库尚未可见，不重复写入
+        assertNull(table.predicate(cb, column, ids(5)));
+        assertNull(table.predicate(cb, column, ids(5)));
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), anyString())).thenReturn(5L);
+        assertNotNull(table.predicate(cb, column, ids(5)));
+        assertNotNull(table.predicate(cb, column, ids(5)));
+        verify(jdbcTemplate, times(3)).queryForObject(anyString(), eq(Long.class), anyString());
+    }
+
+    @Test
+    public void testCleanupStaleKeys() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), anyInt(), anyInt()))
+                .thenReturn(Arrays.asList("a", "b"));
+        // b 在查询后又被使用，不删除
+        when(jdbcTemplate.update(startsWith("delete from sys_data_scope_key"), eq("a"), anyInt())).thenReturn(1);
+        when(jdbcTemplate.update(startsWith("delete from sys_data_scope_key"), eq("b"), anyInt())).thenReturn(0);
+        table.cleanup();
+        verify(jdbcTemplate).update("delete from sys_data_scope where scope_key = ?", "a");
+        verify(jdbcTemplate, never()).update("delete from sys_data_scope where scope_key = ?", "b");
+    }
+
+    private static List<Long> ids(int size) {
+        List<Long> ids = new ArrayList<>(size);
+        for (long i = size; i > 0; i--) {
+            ids.add(i);
+        }
+        Collections.shuffle(ids);
+        return ids;
+    }
+}
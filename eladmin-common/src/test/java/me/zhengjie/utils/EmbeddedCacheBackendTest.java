@@ -0,0 +1,74 @@
+package me.zhengjie.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmbeddedCacheBackendTest {
+
+    private final EmbeddedCacheBackend backend = new EmbeddedCacheBackend(new JdkSerializationRedisSerializer());
+
+    @Test
+    public void testSetAndExpire() throws InterruptedException {
+        backend.set("user::1", "admin", 0, TimeUnit.SECONDS);
+        backend.set("code::1", "1234", 50, TimeUnit.MILLISECONDS);
+        assertEquals("admin", backend.get("user::1"));
+        assertEquals(-1, backend.getExpire("user::1"));
+        assertEquals(-2, backend.getExpire("none"));
+        Thread.sleep(80);
+        assertNull(backend.get("code::1"));
+        assertFalse(backend.hasKey("code::1"));
+        assertEquals(Arrays.asList("admin", null), backend.multiGet(Arrays.asList("user::1", "code::1")));
+    }
+
+    @Test
+    public void testScanWithPattern() {
+        backend.set("dept::id:1", 1, 0, TimeUnit.SECONDS);
+        backend.set("dept::id:2", 2, 0, TimeUnit.SECONDS);
+        backend.set("dept::pid:1", 3, 0, TimeUnit.SECONDS);
+        List<String> keys = new ArrayList<>();
+        backend.scan("dept::id:*", keys::add);
+        Collections.sort(keys);
+        assertEquals(Arrays.asList("dept::id:1", "dept::id:2"), keys);
+        assertEquals(2, backend.del(keys));
+        assertEquals(1, backend.size());
+    }
+
+    @Test
+    public void testIncrWithLimit() {
+        assertEquals(1, backend.incrWithLimit("limit", 2, 60));
+        assertEquals(2, backend.incrWithLimit("limit", 2, 60));
+        assertEquals(3, backend.incrWithLimit("limit", 2, 60));
+        // 超过上限后不再递增
+        assertEquals(3, backend.incrWithLimit("limit", 2, 60));
+        assertTrue(backend.getExpire("limit") > 0);
+    }
+
+    @Test
+    public void testHashAndBatch() {
+        assertEquals(1D, backend.hincr("cache::version", "role:1", 1));
+        Map<String, Set<String>> increments = Collections.singletonMap("cache::version",
+                new LinkedHashSet<>(Arrays.asList("role:1", "dept")));
+        backend.set("menu::id:1", "menu", 0, TimeUnit.SECONDS);
+        backend.batch(Collections.singleton("menu::id:1"), increments, "cache::evict", "|menu::id:1");
+        assertFalse(backend.hasKey("menu::id:1"));
+        assertEquals(3D, backend.hincr("cache::version", "role:1", 1));
+        assertEquals(2D, backend.hincr("cache::version", "dept", 1));
+    }
+
+    @Test
+    public void testListRemove() {
+        backend.rightPushAll("list", Arrays.asList("a", "b", "a", "c", "a"));
+        assertEquals(2, backend.lRemove("list", -2, "a"));
+        assertEquals(Arrays.asList("a", "b", "c"), backend.lRange("list", 0, -1));
+        assertEquals("c", backend.lIndex("list", -1));
+        assertEquals(1, backend.lRemove("list", 0, "a"));
+        backend.lRemove("list", 0, "b");
+        backend.lRemove("list", 0, "c");
+        assertFalse(backend.hasKey("list"));
+    }
+}
@@ -0,0 +1,85 @@
+package me.zhengjie.utils;
+
+import lombok.Data;
+import me.zhengjie.annotation.Query;
+import org.junit.jupiter.api.Test;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueryHelpTest {
+
+    @Test
+    public void testPlanIsCachedAndParsed() {
+        QueryPlan plan = QueryPlan.of(UserCriteria.class);
+        assertSame(plan, QueryPlan.of(UserCriteria.class));
+        assertEquals(3, plan.getConditions().size());
+        QueryPlan.Condition blurry = plan.getConditions().get(0);
+        assertArrayEquals(new String[]{"email", "username"}, blurry.blurry);
+        QueryPlan.Condition dept = plan.getConditions().get(1);
+        assertEquals("id", dept.attributeName);
+        assertArrayEquals(new String[]{"dept", "parent"}, dept.joinNames);
+        assertEquals(JoinType.INNER, dept.joinType);
+        // 父类中的字段
+        assertEquals("enabled", plan.getConditions().get(2).attributeName);
+    }
+
+    @Test
+    public void testIsAllNull() {
+        UserCriteria criteria = new UserCriteria();
+        criteria.setEnabled(true);
+        assertFalse(QueryHelp.isAllNull(criteria, Collections.emptySet()));
+        assertTrue(QueryHelp.isAllNull(criteria, Collections.singleton("enabled")));
+        criteria.setDeptId(1L);
+        assertFalse(QueryHelp.isAllNull(criteria, Arrays.asList("enabled", "blurry")));
+        assertEquals(1L, QueryPlan.of(UserCriteria.class).getConditions().get(1).accessor.get(criteria));
+    }
+
+    @Test
+    public void testGeneratedBuilderIsPreferred() {
+        QueryPlan plan = QueryPlan.of(GeneratedCriteria.class);
+        assertEquals(GeneratedCriteria_QueryBuilder.class, plan.getBuilder().getClass());
+        assertTrue(plan.getConditions().isEmpty());
+        assertNull(QueryPlan.of(UserCriteria.class).getBuilder());
+    }
+
+    @Data
+    static class BaseCriteria {
+        @Query
+        private Boolean enabled;
+    }
+
+    @Data
+    static class UserCriteria extends BaseCriteria {
+        @Query(blurry = "email,username")
+        private String blurry;
+
+        @Query(propName = "id", joinName = "dept>parent", join = Query.Join.INNER)
+        private Long deptId;
+    }
+
+    @Data
+    static class GeneratedCriteria {
+        @Query
+        private String name;
+    }
+
+    static class GeneratedCriteria_QueryBuilder implements QueryBuilder<GeneratedCriteria> {
+
+        private static final QueryCondition NAME = new QueryCondition("name", String.class,
+                Query.Type.EQUAL, "", "", Query.Join.LEFT);
+
+        @Override
+        public <R> void addPredicates(Root<R> root, GeneratedCriteria query, CriteriaBuilder cb, List<Predicate> list) {
+            QueryHelp.addPredicate(list, root, cb, new HashMap<>(), NAME, query.getName());
+        }
+    }
+}
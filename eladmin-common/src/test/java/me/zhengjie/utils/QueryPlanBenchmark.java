@@ -0,0 +1,105 @@
+package me.zhengjie.utils;
+
+import lombok.Data;
+import me.zhengjie.annotation.Query;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Field;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * QueryHelp.getPredicate 读取查询条件字段的开销：每次反射遍历字段与注解，对比 QueryPlan 缓存的 MethodHandle 访问器。
+ * 运行：mvn -pl eladmin-common test-compile 后以测试 classpath 执行 main 方法
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryPlanBenchmark {
+
+    private final UserCriteria criteria = new UserCriteria();
+
+    @Setup
+    public void setup() {
+        criteria.setId(1L);
+        criteria.setDeptIds(new HashSet<>(Arrays.asList(2L, 3L)));
+        criteria.setBlurry("admin");
+        criteria.setEnabled(true);
+        criteria.setCreateTime(Arrays.asList(new Timestamp(0), new Timestamp(System.currentTimeMillis())));
+        // 首次解析不计入
+        QueryPlan.of(UserCriteria.class);
+    }
+
+    /**
+     * 优化前 getPredicate 的字段读取
+     */
+    @Benchmark
+    public void reflection(Blackhole bh) throws IllegalAccessException {
+        List<Field> fields = QueryHelp.getAllFields(criteria.getClass(), new ArrayList<>());
+        for (Field field : fields) {
+            field.setAccessible(true);
+            Query q = field.getAnnotation(Query.class);
+            if (q != null) {
+                String propName = q.propName();
+                String blurry = q.blurry();
+                bh.consume(StringUtils.isBlank(propName) ? field.getName() : propName);
+                bh.consume(field.getType());
+                bh.consume(q.joinName());
+                bh.consume(field.get(criteria));
+                if (!blurry.isEmpty()) {
+                    bh.consume(blurry.split(","));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void queryPlan(Blackhole bh) {
+        for (QueryPlan.Condition condition : QueryPlan.of(criteria.getClass()).getConditions()) {
+            bh.consume(condition.attributeName);
+            bh.consume(condition.fieldType);
+            bh.consume(condition.joinName);
+            bh.consume(condition.accessor.get(criteria));
+            bh.consume(condition.blurry);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(QueryPlanBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Data
+    public static class BaseCriteria {
+
+        @Query(type = Query.Type.BETWEEN)
+        private List<Timestamp> createTime;
+    }
+
+    @Data
+    public static class UserCriteria extends BaseCriteria {
+
+        @Query
+        private Long id;
+
+        @Query(propName = "id", type = Query.Type.IN, joinName = "dept")
+        private Set<Long> deptIds = new HashSet<>();
+
+        @Query(blurry = "email,username,nickName")
+        private String blurry;
+
+        @Query
+        private Boolean enabled;
+
+        private Long deptId;
+    }
+}
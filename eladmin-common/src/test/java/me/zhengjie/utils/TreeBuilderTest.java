@@ -0,0 +1,63 @@
+package me.zhengjie.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TreeBuilderTest {
+
+    private static final TreeBuilder<Node, Long> TREE = TreeBuilder.of(n -> n.id, n -> n.pid, n -> n.sort);
+
+    @Test
+    public void testBuild() {
+        // 1 ─┬─ 3(sort 1)
+        //    └─ 2(sort 2) ─── 4
+        // 5 的上级 9 不在列表中，提升为顶级节点
+        List<Node> nodes = Arrays.asList(node(4, 2L, 1), node(2, 1L, 2), node(5, 9L, 0),
+                node(3, 1L, 1), node(1, null, 1));
+        List<Node> roots = TREE.build(nodes, (n, children) -> n.children = children);
+        assertEquals(Arrays.asList(5L, 1L), ids(roots));
+        Node root = roots.get(1);
+        assertEquals(Arrays.asList(3L, 2L), ids(root.children));
+        assertEquals(Arrays.asList(4L), ids(root.children.get(1).children));
+        assertNull(root.children.get(0).children);
+    }
+
+    @Test
+    public void testStableSort() {
+        List<Node> nodes = Arrays.asList(node(1, null, 1), node(4, 1L, null), node(3, 1L, 1), node(2, 1L, 1));
+        List<Node> roots = TREE.build(nodes, (n, children) -> n.children = children);
+        assertEquals(Arrays.asList(3L, 2L, 4L), ids(roots.get(0).children));
+    }
+
+    @Test
+    public void testRoots() {
+        List<Node> nodes = Arrays.asList(node(3, 2L, 1), node(2, 1L, 1), node(6, 5L, 1));
+        assertEquals(Arrays.asList(2L, 6L), ids(TREE.roots(nodes)));
+        assertTrue(TREE.roots(new ArrayList<>()).isEmpty());
+    }
+
+    private static List<Long> ids(List<Node> nodes) {
+        return nodes.stream().map(n -> n.id).collect(Collectors.toList());
+    }
+
+    private static Node node(long id, Long pid, Integer sort) {
+        Node node = new Node();
+        node.id = id;
+        node.pid = pid;
+        node.sort = sort;
+        return node;
+    }
+
+    private static class Node {
+        private Long id;
+        private Long pid;
+        private Integer sort;
+        private List<Node> children;
+    }
+}
@@ -0,0 +1,67 @@
+package me.zhengjie.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TreeIndexTest {
+
+    /**
+     * 1 ─┬─ 2 ─── 4
+     *    └─ 3(停用) ─── 5
+     * 6
+     */
+    private TreeIndex tree() {
+        TreeIndex index = new TreeIndex();
+        index.put(5L, 3L, true, 1);
+        index.put(4L, 2L, true, 1);
+        index.put(3L, 1L, false, 2);
+        index.put(2L, 1L, true, 1);
+        index.put(1L, null, true, 1);
+        index.put(6L, null, true, 2);
+        return index;
+    }
+
+    @Test
+    public void testDescendantsAndAncestors() {
+        TreeIndex index = tree();
+        assertEquals(Arrays.asList(2L, 4L, 3L, 5L), index.descendants(1L));
+        assertEquals(Arrays.asList(2L, 3L), index.children(1L));
+        assertEquals(Arrays.asList(3L, 1L), index.ancestors(5L));
+        assertTrue(index.isDescendant(1L, 5L));
+        assertFalse(index.isDescendant(2L, 5L));
+        assertFalse(index.isDescendant(1L, 1L));
+        assertTrue(index.descendants(99L).isEmpty());
+    }
+
+    @Test
+    public void testEnabledSubtree() {
+        TreeIndex index = tree();
+        assertEquals(Arrays.asList(1L, 2L, 4L), index.enabledSubtree(1L));
+        assertTrue(index.enabledSubtree(3L).isEmpty());
+    }
+
+    @Test
+    public void testIncrementalChange() {
+        TreeIndex index = tree();
+        // 4 移动到 6 下
+        index.put(4L, 6L, true, 1);
+        assertEquals(Collections.singletonList(4L), index.descendants(6L));
+        assertEquals(Arrays.asList(2L, 3L, 5L), index.descendants(1L));
+        // 删除 3 后 5 成为顶级节点
+        index.remove(3L);
+        assertTrue(index.ancestors(5L).isEmpty());
+        assertEquals(Collections.singletonList(2L), index.descendants(1L));
+    }
+
+    @Test
+    public void testCycle() {
+        TreeIndex index = new TreeIndex();
+        index.put(1L, 2L, true, 0);
+        index.put(2L, 1L, true, 0);
+        assertEquals(1, index.descendants(1L).size() + index.descendants(2L).size());
+    }
+}
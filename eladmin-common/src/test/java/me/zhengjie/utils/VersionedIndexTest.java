@@ -0,0 +1,60 @@
+package me.zhengjie.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VersionedIndexTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final VersionedIndex<List<String>> index = new VersionedIndex<>(new ArrayList<>(), list -> {
+        loads.incrementAndGet();
+        list.clear();
+        list.add("loaded");
+    });
+
+    @Test
+    public void testReloadOnVersionChange() {
+        assertEquals(1, (int) index.read(1L, List::size));
+        assertEquals(1, (int) index.read(1L, List::size));
+        assertEquals(1, loads.get());
+        index.read(2L, List::size);
+        assertEquals(2, loads.get());
+        // 版本号获取失败时每次都重新加载
+        index.read(null, List::size);
+        index.read(null, List::size);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    public void testApplyNextVersion() {
+        index.read(1L, List::size);
+        index.apply(2, list -> list.add("changed"));
+        assertEquals(2, (int) index.read(2L, List::size));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testSkippedVersionReloads() {
+        index.read(1L, List::size);
+        // 期间有其他节点的变更
+        index.apply(3, list -> list.add("changed"));
+        assertEquals(1, (int) index.read(3L, List::size));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testFailedChangeReloads() {
+        index.read(1L, List::size);
+        assertThrows(IllegalStateException.class, () -> index.apply(2, list -> {
+            throw new IllegalStateException("change");
+        }));
+        index.read(2L, List::size);
+        assertEquals(2, loads.get());
+    }
+}
@@ -38,7 +38,9 @@ public class ColumnInfo implements Serializable {
     @Id
     @Column(name = "column_id")
     @ApiModelProperty(value = "ID", hidden = true)
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "code_column_config")
+    @TableGenerator(name = "code_column_config", table = "sys_id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "code_column_config", allocationSize = 50)
     private Long id;
 
     @ApiModelProperty(value = "表名")
@@ -31,6 +31,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
@@ -39,9 +40,7 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.File;
 import java.io.IOException;
 import java.math.BigInteger;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.stream.Collectors;
 
 /**
@@ -129,35 +128,38 @@ public class GeneratorServiceImpl implements GeneratorService {
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public void sync(List<ColumnInfo> columnInfos, List<ColumnInfo> columnInfoList) {
+        Map<String, ColumnInfo> columnMap = new HashMap<>(columnInfos.size());
+        for (ColumnInfo columnInfo : columnInfos) {
+            columnMap.putIfAbsent(columnInfo.getColumnName(), columnInfo);
+        }
+        // 在同一个事务中批量保存与删除
+        List<ColumnInfo> saves = new ArrayList<>(columnInfoList.size());
+        Set<String> columnNames = new HashSet<>(columnInfoList.size());
         // 第一种情况，数据库类字段改变或者新增字段
         for (ColumnInfo columnInfo : columnInfoList) {
+            columnNames.add(columnInfo.getColumnName());
             // 根据字段名称查找
-            List<ColumnInfo> columns = columnInfos.stream().filter(c -> c.getColumnName().equals(columnInfo.getColumnName())).collect(Collectors.toList());
+            ColumnInfo column = columnMap.get(columnInfo.getColumnName());
             // 如果能找到，就修改部分可能被字段
-            if (CollectionUtil.isNotEmpty(columns)) {
-                ColumnInfo column = columns.get(0);
+            if (column != null) {
                 column.setColumnType(columnInfo.getColumnType());
                 column.setExtra(columnInfo.getExtra());
                 column.setKeyType(columnInfo.getKeyType());
                 if (StringUtils.isBlank(column.getRemark())) {
                     column.setRemark(columnInfo.getRemark());
                 }
-                columnInfoRepository.save(column);
+                saves.add(column);
             } else {
                 // 如果找不到，则保存新字段信息
-                columnInfoRepository.save(columnInfo);
-            }
-        }
-        // 第二种情况，数据库字段删除了
-        for (ColumnInfo columnInfo : columnInfos) {
-            // 根据字段名称查找
-            List<ColumnInfo> columns = columnInfoList.stream().filter(c -> c.getColumnName().equals(columnInfo.getColumnName())).collect(Collectors.toList());
-            // 如果找不到，就代表字段被删除了，则需要删除该字段
-            if (CollectionUtil.isEmpty(columns)) {
-                columnInfoRepository.delete(columnInfo);
+                saves.add(columnInfo);
             }
         }
+        columnInfoRepository.saveAll(saves);
+        // 第二种情况，数据库字段删除了，找不到字段名称的需要删除
+        columnInfoRepository.deleteAll(columnInfos.stream()
+                .filter(c -> !columnNames.contains(c.getColumnName())).collect(Collectors.toList()));
     }
 
     @Override
@@ -18,7 +18,6 @@ package me.zhengjie.domain;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
-import org.hibernate.annotations.CreationTimestamp;
 import javax.persistence.*;
 import java.io.Serializable;
 import java.sql.Timestamp;
@@ -36,7 +35,9 @@ public class SysLog implements Serializable {
 
     @Id
     @Column(name = "log_id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "sys_log")
+    @TableGenerator(name = "sys_log", table = "sys_id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "sys_log", allocationSize = 50)
     private Long id;
 
     /** 操作用户 */
@@ -69,12 +70,12 @@ public class SysLog implements Serializable {
     /** 异常详细  */
     private byte[] exceptionDetail;
 
-    /** 创建日期 */
-    @CreationTimestamp
+    /** 创建日期，日志异步写入，使用请求时的时间 */
     private Timestamp createTime;
 
     public SysLog(String logType, Long time) {
         this.logType = logType;
         this.time = time;
+        this.createTime = new Timestamp(System.currentTimeMillis());
     }
 }
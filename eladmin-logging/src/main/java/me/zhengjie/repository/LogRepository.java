@@ -20,7 +20,9 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import javax.persistence.QueryHint;
 
 /**
  * @author Zheng Jie
@@ -34,6 +36,7 @@ public interface LogRepository extends JpaRepository<SysLog,Long>, JpaSpecificat
      * @param logType 日志类型
      */
     @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "sys_log"))
     @Query(value = "delete from sys_log where log_type = ?1", nativeQuery = true)
     void deleteByLogType(String logType);
 }
@@ -64,24 +64,40 @@ public class SysLogController {
     @GetMapping
     @ApiOperation("日志查询")
     @PreAuthorize("@el.check()")
-    public ResponseEntity<Object> queryLog(SysLogQueryCriteria criteria, Pageable pageable){
+    public ResponseEntity<Object> queryLog(SysLogQueryCriteria criteria, Pageable pageable, @RequestParam(required = false) String cursor){
         criteria.setLogType("INFO");
+        if (cursor != null) {
+            return new ResponseEntity<>(sysLogService.queryAll(criteria, cursor, pageable.getPageSize()), HttpStatus.OK);
+        }
         return new ResponseEntity<>(sysLogService.queryAll(criteria,pageable), HttpStatus.OK);
     }
 
+    @GetMapping(value = "/writer")
+    @ApiOperation("日志写入统计")
+    @PreAuthorize("@el.check()")
+    public ResponseEntity<Object> queryWriterStats(){
+        return new ResponseEntity<>(sysLogService.getWriterStats(), HttpStatus.OK);
+    }
+
     @GetMapping(value = "/user")
     @ApiOperation("用户日志查询")
-    public ResponseEntity<PageResult<SysLogSmallDto>> queryUserLog(SysLogQueryCriteria criteria, Pageable pageable){
+    public ResponseEntity<PageResult<SysLogSmallDto>> queryUserLog(SysLogQueryCriteria criteria, Pageable pageable, @RequestParam(required = false) String cursor){
         criteria.setLogType("INFO");
         criteria.setUsername(SecurityUtils.getCurrentUsername());
+        if (cursor != null) {
+            return new ResponseEntity<>(sysLogService.queryAllByUser(criteria, cursor, pageable.getPageSize()), HttpStatus.OK);
+        }
         return new ResponseEntity<>(sysLogService.queryAllByUser(criteria,pageable), HttpStatus.OK);
     }
 
     @GetMapping(value = "/error")
     @ApiOperation("错误日志查询")
     @PreAuthorize("@el.check()")
-    public ResponseEntity<Object> queryErrorLog(SysLogQueryCriteria criteria, Pageable pageable){
+    public ResponseEntity<Object> queryErrorLog(SysLogQueryCriteria criteria, Pageable pageable, @RequestParam(required = false) String cursor){
         criteria.setLogType("ERROR");
+        if (cursor != null) {
+            return new ResponseEntity<>(sysLogService.queryAll(criteria, cursor, pageable.getPageSize()), HttpStatus.OK);
+        }
         return new ResponseEntity<>(sysLogService.queryAll(criteria,pageable), HttpStatus.OK);
     }
 
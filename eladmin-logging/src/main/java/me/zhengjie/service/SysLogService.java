@@ -21,11 +21,11 @@ import me.zhengjie.service.dto.SysLogSmallDto;
 import me.zhengjie.utils.PageResult;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Async;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Zheng Jie
@@ -41,6 +41,15 @@ public interface SysLogService {
      */
     Object queryAll(SysLogQueryCriteria criteria, Pageable pageable);
 
+    /**
+     * 游标分页查询
+     * @param criteria 查询条件
+     * @param cursor 分页游标，第一页为空
+     * @param size 每页数量
+     * @return /
+     */
+    PageResult<?> queryAll(SysLogQueryCriteria criteria, String cursor, int size);
+
     /**
      * 查询全部数据
      * @param criteria 查询条件
@@ -57,16 +66,30 @@ public interface SysLogService {
     PageResult<SysLogSmallDto> queryAllByUser(SysLogQueryCriteria criteria, Pageable pageable);
 
     /**
-     * 保存日志数据
+     * 游标分页查询用户日志
+     * @param criteria 查询条件
+     * @param cursor 分页游标，第一页为空
+     * @param size 每页数量
+     * @return -
+     */
+    PageResult<SysLogSmallDto> queryAllByUser(SysLogQueryCriteria criteria, String cursor, int size);
+
+    /**
+     * 保存日志数据，放入队列后由后台线程批量写入
      * @param username 用户
      * @param browser 浏览器
      * @param ip 请求IP
      * @param joinPoint /
      * @param sysLog 日志实体
      */
-    @Async
     void save(String username, String browser, String ip, ProceedingJoinPoint joinPoint, SysLog sysLog);
 
+    /**
+     * 日志写入的队列长度、丢弃数量等统计
+     * @return /
+     */
+    Map<String, Object> getWriterStats();
+
     /**
      * 查询异常详情
      * @param id 日志ID
@@ -20,9 +20,11 @@ import cn.hutool.core.util.ObjectUtil;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import lombok.RequiredArgsConstructor;
+import me.zhengjie.annotation.ReadReplica;
 import me.zhengjie.domain.SysLog;
 import me.zhengjie.repository.LogRepository;
 import me.zhengjie.service.SysLogService;
+import me.zhengjie.service.dto.SysLogErrorDto;
 import me.zhengjie.service.dto.SysLogQueryCriteria;
 import me.zhengjie.service.dto.SysLogSmallDto;
 import me.zhengjie.service.mapstruct.LogErrorMapper;
@@ -30,13 +32,14 @@ import me.zhengjie.service.mapstruct.LogSmallMapper;
 import me.zhengjie.utils.*;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.reflect.MethodSignature;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.multipart.MultipartFile;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.lang.reflect.Method;
@@ -50,33 +53,63 @@ import java.util.*;
 @Service
 @RequiredArgsConstructor
 public class SysLogServiceImpl implements SysLogService {
+
+    /** 日志列表需要的列，不包括异常详情 */
+    private static final String[] INFO_COLUMNS = {"id", "username", "description", "method", "params", "logType",
+            "requestIp", "address", "browser", "time", "createTime"};
+    private static final String[] ERROR_COLUMNS = {"id", "username", "description", "method", "params",
+            "browser", "requestIp", "address", "createTime"};
+    private static final String[] USER_COLUMNS = {"description", "requestIp", "time", "address", "browser", "createTime"};
     private final LogRepository logRepository;
     private final LogErrorMapper logErrorMapper;
     private final LogSmallMapper logSmallMapper;
+    private final SysLogWriter sysLogWriter;
+    @PersistenceContext
+    private EntityManager em;
 
     @Override
+    @ReadReplica
+    @Transactional(readOnly = true)
     public Object queryAll(SysLogQueryCriteria criteria, Pageable pageable) {
-        Page<SysLog> page = logRepository.findAll(((root, criteriaQuery, cb) -> QueryHelp.getPredicate(root, criteria, cb)), pageable);
+        // 日志表数据量大，总数使用缓存；查询条件总是包含 logType，无法使用表统计信息的估算值
+        String status = "ERROR";
+        if (status.equals(criteria.getLogType())) {
+            return ProjectionUtil.page(em, SysLog.class, criteria, pageable, CountStrategy.CACHED, SysLogErrorDto.class, ERROR_COLUMNS);
+        }
+        return ProjectionUtil.page(em, SysLog.class, criteria, pageable, CountStrategy.CACHED, SysLog.class, INFO_COLUMNS);
+    }
+
+    @Override
+    @ReadReplica
+    @Transactional(readOnly = true)
+    public PageResult<?> queryAll(SysLogQueryCriteria criteria, String cursor, int size) {
+        PageResult<SysLog> page = PageUtil.seek(em, SysLog.class, (root, criteriaQuery, cb) -> QueryHelp.getPredicate(root, criteria, cb), cursor, size);
         String status = "ERROR";
         if (status.equals(criteria.getLogType())) {
-            return PageUtil.toPage(page.map(logErrorMapper::toDto));
+            return PageUtil.map(page, logErrorMapper::toDto);
         }
-        return PageUtil.toPage(page);
+        return page;
     }
 
     @Override
+    @ReadReplica
+    @Transactional(readOnly = true)
     public List<SysLog> queryAll(SysLogQueryCriteria criteria) {
         return logRepository.findAll(((root, criteriaQuery, cb) -> QueryHelp.getPredicate(root, criteria, cb)));
     }
 
     @Override
     public PageResult<SysLogSmallDto> queryAllByUser(SysLogQueryCriteria criteria, Pageable pageable) {
-        Page<SysLog> page = logRepository.findAll(((root, criteriaQuery, cb) -> QueryHelp.getPredicate(root, criteria, cb)), pageable);
-        return PageUtil.toPage(page.map(logSmallMapper::toDto));
+        return ProjectionUtil.page(em, SysLog.class, criteria, pageable, CountStrategy.CACHED, SysLogSmallDto.class, USER_COLUMNS);
+    }
+
+    @Override
+    public PageResult<SysLogSmallDto> queryAllByUser(SysLogQueryCriteria criteria, String cursor, int size) {
+        PageResult<SysLog> page = PageUtil.seek(em, SysLog.class, (root, criteriaQuery, cb) -> QueryHelp.getPredicate(root, criteria, cb), cursor, size);
+        return PageUtil.map(page, logSmallMapper::toDto);
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public void save(String username, String browser, String ip, ProceedingJoinPoint joinPoint, SysLog sysLog) {
         if (sysLog == null) {
             throw new IllegalArgumentException("Log 不能为 null!");
@@ -92,18 +125,26 @@ public class SysLogServiceImpl implements SysLogService {
         sysLog.setDescription(aopLog.value());
         
         sysLog.setRequestIp(ip);
-        sysLog.setAddress(StringUtils.getCityInfo(sysLog.getRequestIp()));
         sysLog.setMethod(methodName);
         sysLog.setUsername(username);
-        sysLog.setParams(getParameter(method, joinPoint.getArgs()));
-        // 记录登录用户，隐藏密码信息
-        if(signature.getName().equals("login") && StringUtils.isNotEmpty(sysLog.getParams())){
-            JSONObject obj = JSON.parseObject(sysLog.getParams());
-            sysLog.setUsername(obj.getString("username"));
-            sysLog.setParams(JSON.toJSONString(Dict.create().set("username", sysLog.getUsername())));
-        }
         sysLog.setBrowser(browser);
-        logRepository.save(sysLog);
+        Object[] args = joinPoint.getArgs();
+        // 参数序列化与 IP 来源查询在写入线程中执行，不增加请求耗时
+        sysLogWriter.submit(sysLog, () -> {
+            sysLog.setAddress(StringUtils.getCityInfo(sysLog.getRequestIp()));
+            sysLog.setParams(getParameter(method, args));
+            // 记录登录用户，隐藏密码信息
+            if(signature.getName().equals("login") && StringUtils.isNotEmpty(sysLog.getParams())){
+                JSONObject obj = JSON.parseObject(sysLog.getParams());
+                sysLog.setUsername(obj.getString("username"));
+                sysLog.setParams(JSON.toJSONString(Dict.create().set("username", sysLog.getUsername())));
+            }
+        });
+    }
+
+    @Override
+    public Map<String, Object> getWriterStats() {
+        return sysLogWriter.getStats();
     }
 
     /**
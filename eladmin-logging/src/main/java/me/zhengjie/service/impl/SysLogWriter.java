@@ -0,0 +1,277 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import me.zhengjie.domain.SysLog;
+import me.zhengjie.repository.LogRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 操作日志的异步批量写入，请求线程只把日志放入有界队列，由后台单线程补全参数、IP 来源等信息后批量插入。
+ * 队列已满时按 overflow 处理：drop 丢弃新日志，drop-oldest 丢弃最早的日志，block 阻塞等待 block-millis 后仍满则丢弃；
+ * 批量写入失败时逐条重试，只丢弃仍然失败的日志；应用关闭时停止接收并在 shutdown-seconds 内写完队列中的日志
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+@Slf4j
+@Component
+public class SysLogWriter {
+
+    private static final String DROP = "drop";
+    private static final String DROP_OLDEST = "drop-oldest";
+    private static final String BLOCK = "block";
+    private static final Set<String> OVERFLOWS = new HashSet<>(Arrays.asList(DROP, DROP_OLDEST, BLOCK));
+
+    private final LogRepository logRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final BlockingQueue<Entry> queue;
+
+    private final int batchSize;
+
+    private final long flushIntervalMillis;
+
+    private final String overflow;
+
+    private final long blockMillis;
+
+    private final long shutdownSeconds;
+
+    private final Thread writer;
+
+    private volatile boolean running = true;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    public SysLogWriter(LogRepository logRepository, PlatformTransactionManager transactionManager,
+                        @Value("${log.writer.capacity:10000}") int capacity,
+                        @Value("${log.writer.batch-size:200}") int batchSize,
+                        @Value("${log.writer.flush-interval-millis:1000}") long flushIntervalMillis,
+                        @Value("${log.writer.overflow:block}") String overflow,
+                        @Value("${log.writer.block-millis:50}") long blockMillis,
+                        @Value("${log.writer.shutdown-seconds:10}") long shutdownSeconds) {
+        this.logRepository = logRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(Math.max(capacity, 1));
+        this.batchSize = Math.max(batchSize, 1);
+        this.flushIntervalMillis = Math.max(flushIntervalMillis, 1);
+        if (!OVERFLOWS.contains(overflow)) {
+            throw new IllegalArgumentException("log.writer.overflow 只能为 " + OVERFLOWS + "：" + overflow);
+        }
+        this.overflow = overflow;
+        this.blockMillis = blockMillis;
+        this.shutdownSeconds = shutdownSeconds;
+        this.writer = new Thread(this::run, "el-log-writer");
+        this.writer.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.start();
+    }
+
+    /**
+     * 提交日志
+     * @param sysLog 日志
+     * @param prepare 写入前在后台线程中执行，用于补全日志信息
+     * @return 是否放入队列，队列已满或应用正在关闭时返回 false
+     */
+    public boolean submit(SysLog sysLog, Runnable prepare) {
+        Entry entry = new Entry(sysLog, prepare);
+        if (!running) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        boolean offered = queue.offer(entry);
+        if (!offered) {
+            offered = overflow(entry);
+        }
+        if (offered) {
+            accepted.incrementAndGet();
+        } else {
+            long count = dropped.incrementAndGet();
+            // 避免持续丢弃时输出过多日志
+            if (count == 1 || count % 1000 == 0) {
+                log.warn("操作日志队列已满，已丢弃 {} 条日志", count);
+            }
+        }
+        return offered;
+    }
+
+    private boolean overflow(Entry entry) {
+        switch (overflow) {
+            case DROP_OLDEST:
+                // 队列满时移除最早的日志后重试，与写入线程竞争时可能仍然失败
+                for (int i = 0; i < 3; i++) {
+                    if (queue.poll() != null) {
+                        dropped.incrementAndGet();
+                    }
+                    if (queue.offer(entry)) {
+                        return true;
+                    }
+                }
+                return false;
+            case BLOCK:
+                try {
+                    return queue.offer(entry, blockMillis, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            case DROP:
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 写入统计
+     * @return /
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> map = new LinkedHashMap<>(10);
+        map.put("queueSize", queue.size());
+        map.put("remainingCapacity", queue.remainingCapacity());
+        map.put("accepted", accepted.get());
+        map.put("written", written.get());
+        map.put("dropped", dropped.get());
+        map.put("failed", failed.get());
+        map.put("batches", batches.get());
+        map.put("overflow", overflow);
+        return map;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        // 不中断写入线程，避免中断正在执行的插入，等待其在 flush-interval-millis 内退出并写完队列
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(shutdownSeconds));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive() || !queue.isEmpty()) {
+            log.warn("关闭时仍有 {} 条操作日志未写入", queue.size());
+        }
+    }
+
+    private void run() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Entry first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // 等待凑满一批，最多等待 flush-interval-millis
+                long deadline = System.currentTimeMillis() + flushIntervalMillis;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Entry next = queue.poll(remaining, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        write(batch);
+        while (!queue.isEmpty()) {
+            queue.drainTo(batch, batchSize);
+            write(batch);
+        }
+    }
+
+    private void write(List<Entry> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<SysLog> logs = new ArrayList<>(batch.size());
+        for (Entry entry : batch) {
+            try {
+                entry.prepare.run();
+            } catch (Exception e) {
+                log.warn("补全操作日志失败: {}", e.getMessage());
+            }
+            logs.add(entry.sysLog);
+        }
+        batch.clear();
+        try {
+            transactionTemplate.executeWithoutResult(status -> logRepository.saveAll(logs));
+            written.addAndGet(logs.size());
+            batches.incrementAndGet();
+        } catch (Exception e) {
+            log.warn("操作日志批量写入失败，逐条重试，共 {} 条: {}", logs.size(), e.getMessage());
+            retry(logs);
+        }
+    }
+
+    /**
+     * 逐条写入，单条日志的错误(如字段超长)不影响同一批的其他日志
+     */
+    private void retry(List<SysLog> logs) {
+        int failures = 0;
+        for (SysLog sysLog : logs) {
+            // 回滚后已分配的ID不再有效，重新分配
+            sysLog.setId(null);
+            try {
+                transactionTemplate.executeWithoutResult(status -> logRepository.save(sysLog));
+                written.incrementAndGet();
+            } catch (Exception e) {
+                failures++;
+                log.error("操作日志写入失败：{} {}", sysLog.getUsername(), sysLog.getDescription(), e);
+            }
+        }
+        failed.addAndGet(failures);
+    }
+
+    private static class Entry {
+
+        private final SysLog sysLog;
+
+        private final Runnable prepare;
+
+        private Entry(SysLog sysLog, Runnable prepare) {
+            this.sysLog = sysLog;
+            this.prepare = prepare;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package me.zhengjie.service.impl;
+
+import me.zhengjie.domain.SysLog;
+import me.zhengjie.repository.LogRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class SysLogWriterTest {
+
+    private final LogRepository logRepository = mock(LogRepository.class);
+
+    /** 每次 saveAll 的日志数量 */
+    private final List<Integer> batches = new ArrayList<>();
+
+    private SysLogWriter writer;
+
+    @AfterEach
+    public void tearDown() {
+        if (writer != null) {
+            writer.destroy();
+        }
+    }
+
+    @Test
+    public void testFlushBySize() {
+        recordBatches();
+        writer = writer(100, 3, 2000, "block");
+        writer.start();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(writer.submit(new SysLog("INFO", 1L), () -> { }));
+        }
+        // 凑满一批后不等待 flush-interval-millis
+        verify(logRepository, timeout(1000)).saveAll(anyIterable());
+        writer.destroy();
+        assertEquals(3, batches.get(0));
+    }
+
+    @Test
+    public void testFlushByInterval() {
+        recordBatches();
+        writer = writer(100, 100, 100, "block");
+        writer.start();
+        writer.submit(new SysLog("INFO", 1L), () -> { });
+        verify(logRepository, timeout(2000)).saveAll(anyIterable());
+        writer.destroy();
+        assertEquals(1, batches.get(0));
+    }
+
+    @Test
+    public void testDrop() {
+        writer = writer(1, 10, 100, "drop");
+        assertTrue(writer.submit(new SysLog("INFO", 1L), () -> { }));
+        assertFalse(writer.submit(new SysLog("INFO", 2L), () -> { }));
+        assertEquals(1L, writer.getStats().get("dropped"));
+        assertEquals(1, writer.getStats().get("queueSize"));
+    }
+
+    @Test
+    public void testDropOldest() {
+        List<Long> times = new ArrayList<>();
+        when(logRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            Iterable<SysLog> logs = invocation.getArgument(0);
+            logs.forEach(sysLog -> times.add(sysLog.getTime()));
+            return null;
+        });
+        writer = writer(1, 10, 100, "drop-oldest");
+        assertTrue(writer.submit(new SysLog("INFO", 1L), () -> { }));
+        assertTrue(writer.submit(new SysLog("INFO", 2L), () -> { }));
+        assertEquals(1L, writer.getStats().get("dropped"));
+        writer.start();
+        writer.destroy();
+        assertEquals(2L, (long) times.get(0));
+        assertEquals(1, times.size());
+    }
+
+    @Test
+    public void testBlockThenDrop() {
+        writer = writer(1, 10, 100, "block");
+        assertTrue(writer.submit(new SysLog("INFO", 1L), () -> { }));
+        long start = System.nanoTime();
+        assertFalse(writer.submit(new SysLog("INFO", 2L), () -> { }));
+        assertTrue(System.nanoTime() - start >= 40_000_000L);
+        assertEquals(1L, writer.getStats().get("dropped"));
+    }
+
+    @Test
+    public void testShutdownDrainsQueue() {
+        recordBatches();
+        writer = writer(100, 2, 200, "block");
+        writer.start();
+        for (int i = 0; i < 5; i++) {
+            writer.submit(new SysLog("INFO", 1L), () -> { });
+        }
+        writer.destroy();
+        assertEquals(5, batches.stream().mapToInt(Integer::intValue).sum());
+        assertEquals(5L, writer.getStats().get("written"));
+        // 关闭后不再接收
+        assertFalse(writer.submit(new SysLog("INFO", 1L), () -> { }));
+    }
+
+    @Test
+    public void testRetryRowsAfterBatchFailure() {
+        when(logRepository.saveAll(anyIterable())).thenThrow(new IllegalStateException("Data too long"));
+        when(logRepository.save(any(SysLog.class))).thenAnswer(invocation -> {
+            SysLog sysLog = invocation.getArgument(0);
+            if (sysLog.getTime() == 2L) {
+                throw new IllegalStateException("Data too long");
+            }
+            return sysLog;
+        });
+        writer = writer(100, 3, 200, "block");
+        writer.start();
+        for (long i = 1; i <= 3; i++) {
+            writer.submit(new SysLog("INFO", i), () -> { });
+        }
+        writer.destroy();
+        verify(logRepository, times(3)).save(any(SysLog.class));
+        assertEquals(2L, writer.getStats().get("written"));
+        assertEquals(1L, writer.getStats().get("failed"));
+    }
+
+    @Test
+    public void testInvalidOverflow() {
+        assertThrows(IllegalArgumentException.class, () -> writer(10, 10, 100, "discard"));
+    }
+
+    private SysLogWriter writer(int capacity, int batchSize, long flushIntervalMillis, String overflow) {
+        return new SysLogWriter(logRepository, mock(PlatformTransactionManager.class),
+                capacity, batchSize, flushIntervalMillis, overflow, 50, 5);
+    }
+
+    private void recordBatches() {
+        when(logRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            Iterable<SysLog> logs = invocation.getArgument(0);
+            int size = 0;
+            for (SysLog ignored : logs) {
+                size++;
+            }
+            synchronized (batches) {
+                batches.add(size);
+            }
+            return null;
+        });
+    }
+}
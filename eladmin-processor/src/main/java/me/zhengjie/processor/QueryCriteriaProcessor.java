@@ -0,0 +1,327 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * 为带有 @Query 注解的查询条件类生成 XxxQueryCriteria_QueryBuilder，运行时 QueryHelp 直接调用生成的代码，不再反射读取字段；
+ * 同时按约定(xxx.service.dto.XxxQueryCriteria -> xxx.domain.Xxx)查找实体，校验 propName、joinName 与 blurry 中的属性是否存在，
+ * 找不到实体时只生成构建器，不做校验
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+@SupportedAnnotationTypes(QueryCriteriaProcessor.QUERY)
+public class QueryCriteriaProcessor extends AbstractProcessor {
+
+    static final String QUERY = "me.zhengjie.annotation.Query";
+
+    private static final String ENTITY = "javax.persistence.Entity";
+
+    private static final String CRITERIA_SUFFIX = "QueryCriteria";
+
+    private static final String DTO_PACKAGE = ".service.dto";
+
+    private static final String BUILDER_SUFFIX = "_QueryBuilder";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement query = processingEnv.getElementUtils().getTypeElement(QUERY);
+        if (query == null || annotations.isEmpty()) {
+            return false;
+        }
+        Set<TypeElement> criteriaTypes = new LinkedHashSet<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(query)) {
+            Element enclosing = element.getEnclosingElement();
+            if (element.getKind() == ElementKind.FIELD && enclosing instanceof TypeElement) {
+                criteriaTypes.add((TypeElement) enclosing);
+            }
+        }
+        for (TypeElement type : criteriaTypes) {
+            if (type.getNestingKind() != NestingKind.TOP_LEVEL || type.getModifiers().contains(Modifier.ABSTRACT)) {
+                // 内部类与抽象类运行时使用反射
+                continue;
+            }
+            try {
+                generate(type);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "生成 " + type.getQualifiedName() + BUILDER_SUFFIX + " 失败: " + e.getMessage(), type);
+            }
+        }
+        return false;
+    }
+
+    private void generate(TypeElement type) throws IOException {
+        TypeElement entity = findEntity(type);
+        List<Field> fields = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (TypeElement current = type; current != null; current = superclass(current)) {
+            for (VariableElement variable : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                AnnotationMirror mirror = findAnnotation(variable, QUERY);
+                if (mirror == null || variable.getModifiers().contains(Modifier.STATIC)
+                        || !names.add(variable.getSimpleName().toString())) {
+                    continue;
+                }
+                Field field = new Field(variable, mirror);
+                if (entity != null) {
+                    validate(entity, field);
+                }
+                fields.add(field);
+            }
+        }
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String simpleName = type.getSimpleName() + BUILDER_SUFFIX;
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(type.getQualifiedName() + BUILDER_SUFFIX, type);
+        try (Writer writer = file.openWriter()) {
+            writer.write(source(packageName, simpleName, type, entity, fields));
+        }
+    }
+
+    private String source(String packageName, String simpleName, TypeElement type, TypeElement entity, List<Field> fields) {
+        String criteria = type.getQualifiedName().toString();
+        String entityName = entity == null ? "R" : entity.getQualifiedName().toString();
+        StringBuilder sb = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            sb.append("package ").append(packageName).append(";\n\n");
+        }
+        sb.append("/**\n * ").append(type.getSimpleName()).append(" 的查询构建器，由 ")
+                .append(getClass().getSimpleName()).append(" 生成，请勿修改\n */\n");
+        sb.append("public final class ").append(simpleName)
+                .append(" implements me.zhengjie.utils.QueryBuilder<").append(criteria).append("> {\n\n");
+        for (Field field : fields) {
+            sb.append("    private static final me.zhengjie.utils.QueryCondition ").append(field.constant)
+                    .append(" = new me.zhengjie.utils.QueryCondition(").append(literal(field.attributeName)).append(", ")
+                    .append(field.typeName).append(".class, ")
+                    .append(QUERY).append(".Type.").append(field.type).append(", ")
+                    .append(literal(field.blurry)).append(", ")
+                    .append(literal(field.joinName)).append(", ")
+                    .append(QUERY).append(".Join.").append(field.join).append(");\n");
+        }
+        sb.append("\n    /**\n     * 查询条件对应的 Specification，包含数据权限\n     */\n");
+        sb.append("    public static ").append(entity == null ? "<R> " : "")
+                .append("org.springframework.data.jpa.domain.Specification<").append(entityName).append("> of(")
+                .append(criteria).append(" query) {\n");
+        sb.append("        return (root, criteriaQuery, cb) -> me.zhengjie.utils.QueryHelp.getPredicate(root, query, cb);\n");
+        sb.append("    }\n\n");
+        sb.append("    @Override\n    @SuppressWarnings(\"rawtypes\")\n");
+        sb.append("    public <R> void addPredicates(javax.persistence.criteria.Root<R> root, ").append(criteria)
+                .append(" query,\n            javax.persistence.criteria.CriteriaBuilder cb, ")
+                .append("java.util.List<javax.persistence.criteria.Predicate> list) {\n");
+        sb.append("        java.util.Map<String, javax.persistence.criteria.Join> joins = new java.util.HashMap<>();\n");
+        for (Field field : fields) {
+            sb.append("        me.zhengjie.utils.QueryHelp.addPredicate(list, root, cb, joins, ")
+                    .append(field.constant).append(", query.").append(field.getter).append("());\n");
+        }
+        sb.append("    }\n}\n");
+        return sb.toString();
+    }
+
+    /**
+     * 按约定查找实体，如 me.zhengjie.modules.system.service.dto.UserQueryCriteria -> me.zhengjie.modules.system.domain.User
+     */
+    private TypeElement findEntity(TypeElement type) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String simpleName = type.getSimpleName().toString();
+        if (!packageName.endsWith(DTO_PACKAGE) || !simpleName.endsWith(CRITERIA_SUFFIX)) {
+            return null;
+        }
+        String entityName = packageName.substring(0, packageName.length() - DTO_PACKAGE.length()) + ".domain."
+                + simpleName.substring(0, simpleName.length() - CRITERIA_SUFFIX.length());
+        TypeElement entity = processingEnv.getElementUtils().getTypeElement(entityName);
+        if (entity == null || findAnnotation(entity, ENTITY) == null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                    "未找到 " + type.getQualifiedName() + " 对应的实体 " + entityName + "，跳过属性校验", type);
+            return null;
+        }
+        return entity;
+    }
+
+    private void validate(TypeElement entity, Field field) {
+        if (!field.blurry.isEmpty()) {
+            for (String name : field.blurry.split(",")) {
+                check(entity, name, field, "blurry");
+            }
+            return;
+        }
+        TypeElement target = entity;
+        if (!field.joinName.isEmpty() && !"FIND_IN_SET".equals(field.type)) {
+            for (String name : field.joinName.split(">")) {
+                VariableElement join = check(target, name, field, "joinName");
+                target = join == null ? null : joinType(join.asType());
+                if (target == null) {
+                    return;
+                }
+            }
+        }
+        check(target, field.attributeName, field, "propName");
+    }
+
+    private VariableElement check(TypeElement target, String name, Field field, String attribute) {
+        VariableElement found = findField(target, name);
+        if (found == null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    attribute + " 中的属性 " + name + " 在 " + target.getQualifiedName() + " 中不存在",
+                    field.element, field.mirror);
+        }
+        return found;
+    }
+
+    private VariableElement findField(TypeElement type, String name) {
+        for (TypeElement current = type; current != null; current = superclass(current)) {
+            for (VariableElement variable : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                if (variable.getSimpleName().contentEquals(name)) {
+                    return variable;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 连接的目标类型，集合取最后一个泛型参数
+     */
+    private TypeElement joinType(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        DeclaredType declared = (DeclaredType) type;
+        List<? extends TypeMirror> arguments = declared.getTypeArguments();
+        TypeMirror target = arguments.isEmpty() ? declared : arguments.get(arguments.size() - 1);
+        Element element = processingEnv.getTypeUtils().asElement(target);
+        return element instanceof TypeElement ? (TypeElement) element : null;
+    }
+
+    private TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement element = (TypeElement) processingEnv.getTypeUtils().asElement(superclass);
+        return element.getQualifiedName().contentEquals(Object.class.getName()) ? null : element;
+    }
+
+    private static AnnotationMirror findAnnotation(Element element, String name) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement annotation = (TypeElement) mirror.getAnnotationType().asElement();
+            if (annotation.getQualifiedName().contentEquals(name)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private static String literal(String value) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * 查询条件字段及其 @Query 注解的值
+     */
+    private class Field {
+
+        private final VariableElement element;
+
+        private final AnnotationMirror mirror;
+
+        private final String constant;
+
+        private final String typeName;
+
+        private final String getter;
+
+        private final String attributeName;
+
+        private final String type;
+
+        private final String blurry;
+
+        private final String joinName;
+
+        private final String join;
+
+        private Field(VariableElement element, AnnotationMirror mirror) {
+            this.element = element;
+            this.mirror = mirror;
+            String name = element.getSimpleName().toString();
+            TypeMirror fieldType = element.asType();
+            this.constant = constant(name);
+            this.typeName = processingEnv.getTypeUtils().erasure(fieldType).toString();
+            this.getter = getter(name, fieldType);
+            Map<String, Object> values = new HashMap<>();
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                    : processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+                Object value = entry.getValue().getValue();
+                values.put(entry.getKey().getSimpleName().toString(),
+                        value instanceof VariableElement ? ((VariableElement) value).getSimpleName().toString() : value);
+            }
+            String propName = String.valueOf(values.get("propName")).trim();
+            this.attributeName = propName.isEmpty() ? name : propName;
+            this.type = String.valueOf(values.get("type"));
+            this.blurry = String.valueOf(values.get("blurry"));
+            this.joinName = String.valueOf(values.get("joinName"));
+            this.join = String.valueOf(values.get("join"));
+        }
+
+        private String constant(String name) {
+            StringBuilder sb = new StringBuilder();
+            for (char c : name.toCharArray()) {
+                if (Character.isUpperCase(c) && sb.length() > 0) {
+                    sb.append('_');
+                }
+                sb.append(Character.toUpperCase(c));
+            }
+            return sb.toString();
+        }
+
+        /**
+         * 与 Lombok 一致的 getter 名称，基本类型 boolean 使用 isXxx
+         */
+        private String getter(String name, TypeMirror fieldType) {
+            String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            if (fieldType.getKind() == TypeKind.BOOLEAN) {
+                boolean prefixed = name.length() > 2 && name.startsWith("is") && Character.isUpperCase(name.charAt(2));
+                return prefixed ? name : "is" + capitalized;
+            }
+            return "get" + capitalized;
+        }
+    }
+}
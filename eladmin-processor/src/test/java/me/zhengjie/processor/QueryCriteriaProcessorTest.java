@@ -0,0 +1,115 @@
+package me.zhengjie.processor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.*;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueryCriteriaProcessorTest {
+
+    private static final String QUERY = "package me.zhengjie.annotation;\n"
+            + "public @interface Query {\n"
+            + "    String propName() default \"\";\n"
+            + "    Type type() default Type.EQUAL;\n"
+            + "    String joinName() default \"\";\n"
+            + "    Join join() default Join.LEFT;\n"
+            + "    String blurry() default \"\";\n"
+            + "    enum Type { EQUAL, INNER_LIKE, IN, FIND_IN_SET }\n"
+            + "    enum Join { LEFT, RIGHT, INNER }\n"
+            + "}";
+
+    private static final String ENTITY = "package javax.persistence;\npublic @interface Entity {}";
+
+    private static final String DEPT = "package demo.domain;\n"
+            + "@javax.persistence.Entity\n"
+            + "public class Dept { private String name; }";
+
+    private static final String USER = "package demo.domain;\n"
+            + "@javax.persistence.Entity\n"
+            + "public class User { private String username; private String email; private Boolean enabled; private Dept dept; }";
+
+    @TempDir
+    Path generated;
+
+    @Test
+    public void testGenerateBuilder() throws IOException {
+        List<Diagnostic<? extends JavaFileObject>> errors = compile("package demo.service.dto;\n"
+                + "import me.zhengjie.annotation.Query;\n"
+                + "public class UserQueryCriteria {\n"
+                + "    @Query(blurry = \"email,username\") private String blurry;\n"
+                + "    @Query private Boolean enabled;\n"
+                + "    @Query(propName = \"name\", joinName = \"dept\", type = Query.Type.INNER_LIKE) private String deptName;\n"
+                + "    private String ignored;\n"
+                + "}");
+        assertTrue(errors.isEmpty(), errors.toString());
+        String source = new String(Files.readAllBytes(generated.resolve("demo/service/dto/UserQueryCriteria_QueryBuilder.java")),
+                StandardCharsets.UTF_8);
+        assertTrue(source.contains("implements me.zhengjie.utils.QueryBuilder<demo.service.dto.UserQueryCriteria>"));
+        assertTrue(source.contains("Specification<demo.domain.User> of(demo.service.dto.UserQueryCriteria query)"));
+        assertTrue(source.contains("DEPT_NAME = new me.zhengjie.utils.QueryCondition(\"name\", java.lang.String.class, "
+                + "me.zhengjie.annotation.Query.Type.INNER_LIKE, \"\", \"dept\", me.zhengjie.annotation.Query.Join.LEFT)"));
+        assertTrue(source.contains("BLURRY = new me.zhengjie.utils.QueryCondition(\"blurry\", java.lang.String.class, "
+                + "me.zhengjie.annotation.Query.Type.EQUAL, \"email,username\""));
+        assertTrue(source.contains("query.getEnabled()"));
+        assertFalse(source.contains("IGNORED"));
+    }
+
+    @Test
+    public void testUnknownAttribute() throws IOException {
+        List<Diagnostic<? extends JavaFileObject>> errors = compile("package demo.service.dto;\n"
+                + "import me.zhengjie.annotation.Query;\n"
+                + "public class UserQueryCriteria {\n"
+                + "    @Query(propName = \"nickName\") private String nickName;\n"
+                + "    @Query(propName = \"name\", joinName = \"depts\") private String deptName;\n"
+                + "    @Query(blurry = \"email,phone\") private String blurry;\n"
+                + "}");
+        List<String> messages = errors.stream().map(error -> error.getMessage(Locale.ROOT)).collect(Collectors.toList());
+        assertEquals(3, messages.size(), messages.toString());
+        assertTrue(messages.get(0).startsWith("propName") && messages.get(0).contains("nickName"));
+        assertTrue(messages.get(1).startsWith("joinName") && messages.get(1).contains("depts"));
+        assertTrue(messages.get(2).startsWith("blurry") && messages.get(2).contains("phone"));
+        // 错误定位到对应的字段
+        assertEquals(4, errors.get(0).getLineNumber());
+        assertEquals(6, errors.get(2).getLineNumber());
+    }
+
+    /**
+     * 只执行注解处理，返回查询条件类上的错误；生成的代码依赖 eladmin-common，这里不做编译
+     */
+    private List<Diagnostic<? extends JavaFileObject>> compile(String criteria) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.ROOT, StandardCharsets.UTF_8)) {
+            List<JavaFileObject> sources = Arrays.asList(source("me.zhengjie.annotation.Query", QUERY),
+                    source("javax.persistence.Entity", ENTITY), source("demo.domain.Dept", DEPT),
+                    source("demo.domain.User", USER), source("demo.service.dto.UserQueryCriteria", criteria));
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    Arrays.asList("-proc:only", "-s", generated.toString()), null, sources);
+            task.setProcessors(Collections.singleton(new QueryCriteriaProcessor()));
+            task.call();
+        }
+        return diagnostics.getDiagnostics().stream()
+                .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR && diagnostic.getSource() != null
+                        && diagnostic.getSource().getName().endsWith("UserQueryCriteria.java"))
+                .collect(Collectors.toList());
+    }
+
+    private static JavaFileObject source(String className, String code) {
+        URI uri = URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension);
+        return new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+}
@@ -22,6 +22,7 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.ApplicationPidFileWriter;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
@@ -29,6 +30,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 /**
  * 开启审计功能 -> @EnableJpaAuditing
+ * 事务切面排在默认顺序的切面之前，ReadReplicaAspect 等切面在事务中执行
  *
  * @author Zheng Jie
  * @date 2018/11/15 9:20:19
@@ -37,7 +39,7 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 @Api(hidden = true)
 @SpringBootApplication
-@EnableTransactionManagement
+@EnableTransactionManagement(order = Ordered.LOWEST_PRECEDENCE - 1)
 @EnableJpaAuditing(auditorAwareRef = "auditorAware")
 public class AppRun {
 
@@ -54,7 +54,10 @@ public class DeployHistoryController {
     @ApiOperation(value = "查询部署历史")
     @GetMapping
 	@PreAuthorize("@el.check('deployHistory:list')")
-    public ResponseEntity<PageResult<DeployHistoryDto>> queryDeployHistory(DeployHistoryQueryCriteria criteria, Pageable pageable){
+    public ResponseEntity<PageResult<DeployHistoryDto>> queryDeployHistory(DeployHistoryQueryCriteria criteria, Pageable pageable, @RequestParam(required = false) String cursor){
+        if (cursor != null) {
+            return new ResponseEntity<>(deployhistoryService.queryAll(criteria, cursor, pageable.getPageSize()), HttpStatus.OK);
+        }
         return new ResponseEntity<>(deployhistoryService.queryAll(criteria,pageable),HttpStatus.OK);
     }
 
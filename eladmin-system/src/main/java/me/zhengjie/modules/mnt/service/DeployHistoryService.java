@@ -39,6 +39,15 @@ public interface DeployHistoryService {
      */
     PageResult<DeployHistoryDto> queryAll(DeployHistoryQueryCriteria criteria, Pageable pageable);
 
+    /**
+     * 游标分页查询，按部署日期倒序
+     * @param criteria 条件
+     * @param cursor 分页游标，第一页为空
+     * @param size 每页数量
+     * @return /
+     */
+    PageResult<DeployHistoryDto> queryAll(DeployHistoryQueryCriteria criteria, String cursor, int size);
+
     /**
      * 查询全部
      * @param criteria 条件
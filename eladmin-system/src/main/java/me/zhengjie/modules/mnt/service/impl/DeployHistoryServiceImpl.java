@@ -28,6 +28,8 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.*;
@@ -42,6 +44,8 @@ public class DeployHistoryServiceImpl implements DeployHistoryService {
 
     private final DeployHistoryRepository deployhistoryRepository;
     private final DeployHistoryMapper deployhistoryMapper;
+    @PersistenceContext
+    private EntityManager em;
 
     @Override
     public PageResult<DeployHistoryDto> queryAll(DeployHistoryQueryCriteria criteria, Pageable pageable){
@@ -49,6 +53,12 @@ public class DeployHistoryServiceImpl implements DeployHistoryService {
         return PageUtil.toPage(page.map(deployhistoryMapper::toDto));
     }
 
+    @Override
+    public PageResult<DeployHistoryDto> queryAll(DeployHistoryQueryCriteria criteria, String cursor, int size){
+        PageResult<DeployHistory> page = PageUtil.seek(em, DeployHistory.class, (root, criteriaQuery, criteriaBuilder) -> QueryHelp.getPredicate(root,criteria,criteriaBuilder), "deployDate", "id", cursor, size);
+        return PageUtil.map(page, deployhistoryMapper::toDto);
+    }
+
     @Override
     public List<DeployHistoryDto> queryAll(DeployHistoryQueryCriteria criteria){
         return deployhistoryMapper.toDto(deployhistoryRepository.findAll((root, criteriaQuery, criteriaBuilder) -> QueryHelp.getPredicate(root,criteria,criteriaBuilder)));
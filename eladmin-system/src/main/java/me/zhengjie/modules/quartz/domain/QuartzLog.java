@@ -34,7 +34,9 @@ public class QuartzLog implements Serializable {
     @Id
     @Column(name = "log_id")
     @ApiModelProperty(value = "ID", hidden = true)
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "sys_quartz_log")
+    @TableGenerator(name = "sys_quartz_log", table = "sys_id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "sys_quartz_log", allocationSize = 50)
     private Long id;
 
     @ApiModelProperty(value = "任务名称", hidden = true)
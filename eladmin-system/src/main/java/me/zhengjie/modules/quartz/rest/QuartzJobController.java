@@ -75,7 +75,10 @@ public class QuartzJobController {
     @ApiOperation("查询任务执行日志")
     @GetMapping(value = "/logs")
     @PreAuthorize("@el.check('timing:list')")
-    public ResponseEntity<PageResult<QuartzLog>> queryQuartzJobLog(JobQueryCriteria criteria, Pageable pageable){
+    public ResponseEntity<PageResult<QuartzLog>> queryQuartzJobLog(JobQueryCriteria criteria, Pageable pageable, @RequestParam(required = false) String cursor){
+        if (cursor != null) {
+            return new ResponseEntity<>(quartzJobService.queryAllLog(criteria, cursor, pageable.getPageSize()), HttpStatus.OK);
+        }
         return new ResponseEntity<>(quartzJobService.queryAllLog(criteria,pageable), HttpStatus.OK);
     }
 
@@ -54,6 +54,15 @@ public interface QuartzJobService {
      */
     PageResult<QuartzLog> queryAllLog(JobQueryCriteria criteria, Pageable pageable);
 
+    /**
+     * 游标分页查询日志
+     * @param criteria 条件
+     * @param cursor 分页游标，第一页为空
+     * @param size 每页数量
+     * @return /
+     */
+    PageResult<QuartzLog> queryAllLog(JobQueryCriteria criteria, String cursor, int size);
+
     /**
      * 查询全部
      * @param criteria 条件
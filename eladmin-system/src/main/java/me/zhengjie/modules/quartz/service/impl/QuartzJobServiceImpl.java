@@ -32,6 +32,8 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.*;
@@ -48,6 +50,8 @@ public class QuartzJobServiceImpl implements QuartzJobService {
     private final QuartzLogRepository quartzLogRepository;
     private final QuartzManage quartzManage;
     private final RedisUtils redisUtils;
+    @PersistenceContext
+    private EntityManager em;
 
     @Override
     public PageResult<QuartzJob> queryAll(JobQueryCriteria criteria, Pageable pageable){
@@ -56,7 +60,8 @@ public class QuartzJobServiceImpl implements QuartzJobService {
 
     @Override
     public PageResult<QuartzLog> queryAllLog(JobQueryCriteria criteria, Pageable pageable){
-        return PageUtil.toPage(quartzLogRepository.findAll((root, criteriaQuery, criteriaBuilder) -> QueryHelp.getPredicate(root,criteria,criteriaBuilder),pageable));
+        // 日志表数据量大，总数使用估算值或缓存
+        return PageUtil.page(em, QuartzLog.class, criteria, pageable, CountStrategy.ESTIMATED);
     }
 
     @Override
@@ -64,6 +69,11 @@ public class QuartzJobServiceImpl implements QuartzJobService {
         return quartzJobRepository.findAll((root, criteriaQuery, criteriaBuilder) -> QueryHelp.getPredicate(root,criteria,criteriaBuilder));
     }
 
+    @Override
+    public PageResult<QuartzLog> queryAllLog(JobQueryCriteria criteria, String cursor, int size){
+        return PageUtil.seek(em, QuartzLog.class, (root, criteriaQuery, criteriaBuilder) -> QueryHelp.getPredicate(root,criteria,criteriaBuilder), cursor, size);
+    }
+
     @Override
     public List<QuartzLog> queryAllLog(JobQueryCriteria criteria) {
         return quartzLogRepository.findAll((root, criteriaQuery, criteriaBuilder) -> QueryHelp.getPredicate(root,criteria,criteriaBuilder));
@@ -0,0 +1,119 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.modules.security.service;
+
+import cn.hutool.core.collection.CollectionUtil;
+import me.zhengjie.modules.system.service.dto.RoleSmallDto;
+import me.zhengjie.modules.system.service.dto.UserDto;
+import me.zhengjie.utils.CacheCleaner;
+import me.zhengjie.utils.CacheKey;
+import me.zhengjie.utils.RedisUtils;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.stereotype.Component;
+import javax.annotation.Resource;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 用户相关缓存的版本号管理
+ * 用户的菜单、权限、数据权限缓存的 key 中带有其角色版本号的摘要，
+ * 角色、菜单、部门变更时只需递增对应的版本号，无需查询并删除受影响用户的缓存，
+ * 旧版本的缓存等待过期即可
+ * @author Zheng Jie
+ * @date 2026-10-19
+ **/
+@Component
+public class CacheVersionManager {
+
+    private static final String ROLE = "role:";
+    private static final String DEPT = "dept";
+
+    @Resource
+    private RedisUtils redisUtils;
+    @Resource
+    private CacheCleaner cacheCleaner;
+
+    /**
+     * 角色变更，包括角色菜单、数据权限的变更，事务中调用时在提交后递增
+     * @param roleIds 角色ID
+     */
+    public void incrRoles(Collection<Long> roleIds) {
+        for (Long roleId : roleIds) {
+            cacheCleaner.hincr(CacheKey.VERSION, ROLE + roleId);
+        }
+    }
+
+    /**
+     * 部门树变更，会影响所有自定义数据权限，事务中调用时在提交后递增
+     */
+    public void incrDept() {
+        cacheCleaner.hincr(CacheKey.VERSION, DEPT);
+    }
+
+    /**
+     * 菜单与权限缓存的版本，由用户角色及其版本号决定
+     * @param user /
+     * @return /
+     */
+    public String roleVersion(UserDto user) {
+        return digest(user, false, false);
+    }
+
+    /**
+     * 角色组合的数据权限缓存的版本，由用户角色及部门树版本号决定，不包含用户部门
+     * @param user /
+     * @return /
+     */
+    public String scopeVersion(UserDto user) {
+        return digest(user, true, false);
+    }
+
+    /**
+     * 登录用户缓存的版本，由用户角色、是否管理员、用户部门及部门树版本号决定，
+     * 同时作为用户权限与数据权限在内存中共用的 key
+     * @param user /
+     * @return /
+     */
+    public String dataVersion(UserDto user) {
+        return digest(user, true, true);
+    }
+
+    private String digest(UserDto user, boolean withDeptTree, boolean withUser) {
+        List<Long> roleIds = CollectionUtil.isEmpty(user.getRoles()) ? new ArrayList<>() :
+                user.getRoles().stream().map(RoleSmallDto::getId).sorted().collect(Collectors.toList());
+        List<Object> items = roleIds.stream().map(id -> ROLE + id).collect(Collectors.toList());
+        items.add(DEPT);
+        // 一次性获取所有版本号
+        List<Object> versions = redisUtils.hmget(CacheKey.VERSION, items);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < roleIds.size(); i++) {
+            builder.append(roleIds.get(i)).append(':').append(version(versions, i)).append(',');
+        }
+        if (withDeptTree) {
+            builder.append(DEPT).append(':').append(version(versions, roleIds.size()));
+        }
+        if (withUser) {
+            builder.append(':').append(user.getDept() == null ? null : user.getDept().getId())
+                    .append(':').append(user.getIsAdmin());
+        }
+        return DigestUtils.md5Hex(builder.toString()).substring(0, 16);
+    }
+
+    private Object version(List<Object> versions, int index) {
+        Object version = versions == null ? null : versions.get(index);
+        return version == null ? 0 : version;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.modules.security.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import me.zhengjie.modules.security.service.dto.AuthorityDto;
+import me.zhengjie.modules.security.service.dto.JwtUserDto;
+import me.zhengjie.modules.system.service.DataService;
+import me.zhengjie.modules.system.service.RoleService;
+import me.zhengjie.modules.system.service.dto.UserLoginDto;
+import org.springframework.stereotype.Component;
+import javax.annotation.Resource;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户权限与数据权限在内存中的共用，Redis 中按角色组合各保存一份，
+ * 登录用户缓存只保存版本号，读取时按版本号取回权限，内容相同的权限列表在内存中只保留一个实例
+ * @author Zheng Jie
+ * @date 2026-10-19
+ **/
+@Component
+public class GrantCacheManager {
+
+    private static final Comparator<AuthorityDto> AUTHORITY_ORDER = Comparator.comparing(AuthorityDto::getAuthority);
+
+    @Resource
+    private RoleService roleService;
+    @Resource
+    private DataService dataService;
+
+    /** 版本号 -> 权限，版本号由 CacheVersionManager.dataVersion 获得 */
+    private final Cache<String, Grants> grants = Caffeine.newBuilder()
+            .maximumSize(10000).expireAfterAccess(1, TimeUnit.HOURS).build();
+
+    /** 权限列表 -> 共用的实例 */
+    private final Cache<List<?>, List<?>> interned = Caffeine.newBuilder()
+            .maximumSize(10000).expireAfterAccess(1, TimeUnit.HOURS).build();
+
+    /**
+     * 为用户附加权限与数据权限
+     * @param user 用户
+     * @param version 用户缓存的版本号
+     * @return /
+     */
+    public JwtUserDto attach(UserLoginDto user, String version) {
+        Grants grant = grants.get(version, k -> load(user));
+        return new JwtUserDto(user, grant.dataScopes, grant.authorities, version);
+    }
+
+    private Grants load(UserLoginDto user) {
+        List<AuthorityDto> authorities = new ArrayList<>(roleService.mapToGrantedAuthorities(user));
+        authorities.sort(AUTHORITY_ORDER);
+        List<Long> dataScopes = dataService.getDataScope(user).resolve(user.getDept() == null ? null : user.getDept().getId());
+        Collections.sort(dataScopes);
+        return new Grants(intern(authorities), intern(dataScopes));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> intern(List<T> list) {
+        List<T> value = Collections.unmodifiableList(list);
+        return (List<T>) interned.get(value, k -> value);
+    }
+
+    private static class Grants {
+
+        private final List<AuthorityDto> authorities;
+
+        private final List<Long> dataScopes;
+
+        private Grants(List<AuthorityDto> authorities, List<Long> dataScopes) {
+            this.authorities = authorities;
+            this.dataScopes = dataScopes;
+        }
+    }
+}
@@ -18,6 +18,7 @@ package me.zhengjie.modules.security.service;
 import cn.hutool.core.util.RandomUtil;
 import me.zhengjie.modules.security.config.bean.LoginProperties;
 import me.zhengjie.modules.security.service.dto.JwtUserDto;
+import me.zhengjie.utils.CacheCleaner;
 import me.zhengjie.utils.RedisUtils;
 import me.zhengjie.utils.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
@@ -35,6 +36,8 @@ public class UserCacheManager {
 
     @Resource
     private RedisUtils redisUtils;
+    @Resource
+    private CacheCleaner cacheCleaner;
     @Value("${login.user-cache.idle-time}")
     private long idleTime;
 
@@ -69,14 +72,13 @@ public class UserCacheManager {
 
     /**
      * 清理用户缓存信息
-     * 用户信息变更时
+     * 用户信息变更时，事务中调用时在提交后清理
      * @param userName 用户名
      */
-    @Async
     public void cleanUserCache(String userName) {
         if (StringUtils.isNotEmpty(userName)) {
             // 清除数据
-            redisUtils.del(LoginProperties.cacheKey + userName);
+            cacheCleaner.del(LoginProperties.cacheKey + userName);
         }
     }
 }
\ No newline at end of file
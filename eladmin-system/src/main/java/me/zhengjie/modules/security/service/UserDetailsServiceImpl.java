@@ -20,8 +20,6 @@ import lombok.extern.slf4j.Slf4j;
 import me.zhengjie.exception.BadRequestException;
 import me.zhengjie.exception.EntityNotFoundException;
 import me.zhengjie.modules.security.service.dto.JwtUserDto;
-import me.zhengjie.modules.system.service.DataService;
-import me.zhengjie.modules.system.service.RoleService;
 import me.zhengjie.modules.system.service.UserService;
 import me.zhengjie.modules.system.service.dto.UserLoginDto;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -37,13 +35,18 @@ import org.springframework.stereotype.Service;
 @Service("userDetailsService")
 public class UserDetailsServiceImpl implements UserDetailsService {
     private final UserService userService;
-    private final RoleService roleService;
-    private final DataService dataService;
     private final UserCacheManager userCacheManager;
+    private final GrantCacheManager grantCacheManager;
+    private final CacheVersionManager cacheVersionManager;
 
     @Override
     public JwtUserDto loadUserByUsername(String username) {
         JwtUserDto jwtUserDto = userCacheManager.getUserCache(username);
+        // 角色、菜单或部门发生变更，缓存的权限信息已过期
+        String version = jwtUserDto == null ? null : cacheVersionManager.dataVersion(jwtUserDto.getUser());
+        if(jwtUserDto != null && !version.equals(jwtUserDto.getCacheVersion())){
+            jwtUserDto = null;
+        }
         if(jwtUserDto == null){
             UserLoginDto user;
             try {
@@ -58,15 +61,12 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                 if (!user.getEnabled()) {
                     throw new BadRequestException("账号未激活！");
                 }
-                jwtUserDto = new JwtUserDto(
-                        user,
-                        dataService.getDeptIds(user),
-                        roleService.mapToGrantedAuthorities(user)
-                );
-                // 添加缓存数据
+                version = cacheVersionManager.dataVersion(user);
+                // 添加缓存数据，权限按角色组合共用，不保存在用户缓存中
+                jwtUserDto = new JwtUserDto(user, null, null, version);
                 userCacheManager.addUserCache(username, jwtUserDto);
             }
         }
-        return jwtUserDto;
+        return grantCacheManager.attach(jwtUserDto.getUser(), version);
     }
 }
@@ -34,10 +34,19 @@ public class JwtUserDto implements UserDetails {
 
     private final UserLoginDto user;
 
+    /**
+     * 数据权限与权限按角色组合共用，保存到用户缓存时为 null
+     */
     private final List<Long> dataScopes;
 
     private final List<AuthorityDto> authorities;
 
+    /**
+     * 缓存版本号，角色、菜单、部门变更后与当前版本不一致，缓存失效，也是共用权限的 key
+     */
+    private final String cacheVersion;
+
+    @JSONField(serialize = false)
     public Set<String> getRoles() {
         return authorities.stream().map(AuthorityDto::getAuthority).collect(Collectors.toSet());
     }
@@ -18,7 +18,11 @@ package me.zhengjie.modules.system.domain;
 import io.swagger.annotations.ApiModelProperty;
 import lombok.Getter;
 import lombok.Setter;
+import me.zhengjie.annotation.BlurryIndexed;
 import me.zhengjie.base.BaseEntity;
+import me.zhengjie.utils.BlurryIndexListener;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
@@ -33,6 +37,10 @@ import java.util.List;
 @Getter
 @Setter
 @Table(name="sys_dict")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@BlurryIndexed
+@EntityListeners(BlurryIndexListener.class)
 public class Dict extends BaseEntity implements Serializable {
 
     @Id
@@ -43,6 +51,7 @@ public class Dict extends BaseEntity implements Serializable {
     private Long id;
 
     @OneToMany(mappedBy = "dict",cascade={CascadeType.PERSIST,CascadeType.REMOVE})
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<DictDetail> dictDetails;
 
     @NotBlank
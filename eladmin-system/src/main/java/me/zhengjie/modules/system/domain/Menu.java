@@ -19,8 +19,12 @@ import com.alibaba.fastjson.annotation.JSONField;
 import io.swagger.annotations.ApiModelProperty;
 import lombok.Getter;
 import lombok.Setter;
+import me.zhengjie.annotation.BlurryIndexed;
 import me.zhengjie.base.BaseEntity;
+import me.zhengjie.utils.BlurryIndexListener;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import java.io.Serializable;
@@ -35,6 +39,10 @@ import java.util.Set;
 @Getter
 @Setter
 @Table(name = "sys_menu")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@BlurryIndexed
+@EntityListeners(BlurryIndexListener.class)
 public class Menu extends BaseEntity implements Serializable {
 
     @Id
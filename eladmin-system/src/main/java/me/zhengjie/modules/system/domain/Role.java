@@ -19,9 +19,13 @@ import com.alibaba.fastjson.annotation.JSONField;
 import io.swagger.annotations.ApiModelProperty;
 import lombok.Getter;
 import lombok.Setter;
+import me.zhengjie.annotation.BlurryIndexed;
 import me.zhengjie.base.BaseEntity;
+import me.zhengjie.utils.BlurryIndexListener;
 import me.zhengjie.utils.enums.DataScopeEnum;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
@@ -38,6 +42,12 @@ import java.util.Set;
 @Setter
 @Entity
 @Table(name = "sys_role")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NamedEntityGraph(name = "Role.detail", attributeNodes = {
+        @NamedAttributeNode("menus"), @NamedAttributeNode("depts")})
+@BlurryIndexed
+@EntityListeners(BlurryIndexListener.class)
 public class Role extends BaseEntity implements Serializable {
 
     @Id
@@ -52,7 +62,8 @@ public class Role extends BaseEntity implements Serializable {
     @ApiModelProperty(value = "用户", hidden = true)
     private Set<User> users;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JoinTable(name = "sys_roles_menus",
             joinColumns = {@JoinColumn(name = "role_id",referencedColumnName = "role_id")},
             inverseJoinColumns = {@JoinColumn(name = "menu_id",referencedColumnName = "menu_id")})
@@ -60,6 +71,7 @@ public class Role extends BaseEntity implements Serializable {
     private Set<Menu> menus;
 
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JoinTable(name = "sys_roles_depts",
             joinColumns = {@JoinColumn(name = "role_id",referencedColumnName = "role_id")},
             inverseJoinColumns = {@JoinColumn(name = "dept_id",referencedColumnName = "dept_id")})
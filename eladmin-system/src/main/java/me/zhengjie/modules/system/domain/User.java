@@ -18,7 +18,9 @@ package me.zhengjie.modules.system.domain;
 import io.swagger.annotations.ApiModelProperty;
 import lombok.Getter;
 import lombok.Setter;
+import me.zhengjie.annotation.BlurryIndexed;
 import me.zhengjie.base.BaseEntity;
+import me.zhengjie.utils.BlurryIndexListener;
 import javax.persistence.*;
 import javax.validation.constraints.Email;
 import javax.validation.constraints.NotBlank;
@@ -36,6 +38,10 @@ import java.util.Set;
 @Getter
 @Setter
 @Table(name="sys_user")
+@NamedEntityGraph(name = "User.detail", attributeNodes = {
+        @NamedAttributeNode("roles"), @NamedAttributeNode("jobs"), @NamedAttributeNode("dept")})
+@BlurryIndexed
+@EntityListeners(BlurryIndexListener.class)
 public class User extends BaseEntity implements Serializable {
 
     @Id
@@ -45,14 +51,14 @@ public class User extends BaseEntity implements Serializable {
     @ApiModelProperty(value = "ID", hidden = true)
     private Long id;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany
     @ApiModelProperty(value = "用户角色")
     @JoinTable(name = "sys_users_roles",
             joinColumns = {@JoinColumn(name = "user_id",referencedColumnName = "user_id")},
             inverseJoinColumns = {@JoinColumn(name = "role_id",referencedColumnName = "role_id")})
     private Set<Role> roles;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany
     @ApiModelProperty(value = "用户岗位")
     @JoinTable(name = "sys_users_jobs",
             joinColumns = {@JoinColumn(name = "user_id",referencedColumnName = "user_id")},
@@ -20,6 +20,9 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -34,12 +37,14 @@ public interface DeptRepository extends JpaRepository<Dept, Long>, JpaSpecificat
      * @param id pid
      * @return /
      */
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<Dept> findByPid(Long id);
 
     /**
      * 获取顶级部门
      * @return /
      */
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<Dept> findByPidIsNull();
 
     /**
@@ -51,19 +56,93 @@ public interface DeptRepository extends JpaRepository<Dept, Long>, JpaSpecificat
             "d.dept_id = r.dept_id and r.role_id = ?1", nativeQuery = true)
     Set<Dept> findByRoleId(Long roleId);
 
+
+
+    /**
+     * 查询所有部门的层级信息，用于部门树索引
+     * @return id、pid、enabled、deptSort
+     */
+    @Query("select d.id, d.pid, d.enabled, d.deptSort from Dept d")
+    List<Object[]> findTreeNodes();
+
+    /**
+     * 新增部门的层级关系：自身，以及与上级部门的各级上级的关系
+     * @param id 部门ID
+     * @param pid 上级部门ID，顶级部门为 null
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "sys_dept_closure"))
+    @Query(value = "insert into sys_dept_closure (ancestor, descendant, depth) " +
+            "select c.ancestor, ?1, c.depth + 1 from sys_dept_closure c where c.descendant = ?2 " +
+            "union all select ?1, ?1, 0", nativeQuery = true)
+    void insertClosure(Long id, Long pid);
+
+    /**
+     * 移动部门前删除其子树与原各级上级的关系，子树内部的关系保留
+     * @param id 部门ID
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "sys_dept_closure"))
+    @Query(value = "delete c from sys_dept_closure c join sys_dept_closure s on c.descendant = s.descendant " +
+            "left join sys_dept_closure x on x.ancestor = ?1 and x.descendant = c.ancestor " +
+            "where s.ancestor = ?1 and x.ancestor is null", nativeQuery = true)
+    void deleteClosureAncestors(Long id);
+
+    /**
+     * 移动部门后建立其子树与新的各级上级的关系
+     * @param id 部门ID
+     * @param pid 新的上级部门ID
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "sys_dept_closure"))
+    @Query(value = "insert into sys_dept_closure (ancestor, descendant, depth) " +
+            "select p.ancestor, s.descendant, p.depth + s.depth + 1 from sys_dept_closure p, sys_dept_closure s " +
+            "where p.descendant = ?2 and s.ancestor = ?1", nativeQuery = true)
+    void insertClosureAncestors(Long id, Long pid);
+
+    /**
+     * 删除部门的层级关系
+     * @param id 部门ID
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "sys_dept_closure"))
+    @Query(value = "delete from sys_dept_closure where ancestor = ?1 or descendant = ?1", nativeQuery = true)
+    void deleteClosure(Long id);
+
+    /**
+     * 判断是否为自身或下级
+     * @param ancestor 上级部门ID
+     * @param descendant 部门ID
+     * @return /
+     */
+    @Query(value = "select count(*) from sys_dept_closure where ancestor = ?1 and descendant = ?2", nativeQuery = true)
+    long countClosure(Long ancestor, Long descendant);
+
+    /**
+     * 查询部门及其所有下级
+     * @param ids 部门ID
+     * @return /
+     */
+    @Query(value = "select t.* from sys_dept t join sys_dept_closure c on t.dept_id = c.descendant " +
+            "where c.ancestor in ?1", nativeQuery = true)
+    List<Dept> findSubtree(Collection<Long> ids);
+
     /**
-     * 判断是否存在子节点
-     * @param pid /
+     * 查询顶级部门，以及上级部门和它的各级上级的直接下级
+     * @param pid 上级部门ID
      * @return /
      */
-    int countByPid(Long pid);
+    @Query(value = "select t.* from sys_dept t where t.pid is null or t.pid in " +
+            "(select c.ancestor from sys_dept_closure c where c.descendant = ?1) order by t.dept_sort", nativeQuery = true)
+    List<Dept> findSuperior(Long pid);
 
     /**
-     * 根据ID更新sub_count
-     * @param count /
-     * @param id /
+     * 根据层级关系更新子节点数目
+     * @param ids 部门ID
      */
     @Modifying
-    @Query(value = " update sys_dept set sub_count = ?1 where dept_id = ?2 ",nativeQuery = true)
-    void updateSubCntById(Integer count, Long id);
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "sys_dept"))
+    @Query(value = "update sys_dept t set t.sub_count = (select count(*) from sys_dept_closure c " +
+            "where c.ancestor = t.dept_id and c.depth = 1) where t.dept_id in ?1", nativeQuery = true)
+    void updateSubCntByIds(Collection<Long> ids);
 }
\ No newline at end of file
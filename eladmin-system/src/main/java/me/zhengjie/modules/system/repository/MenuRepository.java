@@ -20,6 +20,9 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
@@ -49,12 +52,14 @@ public interface MenuRepository extends JpaRepository<Menu, Long>, JpaSpecificat
      * @param pid /
      * @return /
      */
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<Menu> findByPidOrderByMenuSort(long pid);
 
     /**
      * 查询顶级菜单
      * @return /
      */
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<Menu> findByPidIsNullOrderByMenuSort();
 
     /**
@@ -68,18 +73,83 @@ public interface MenuRepository extends JpaRepository<Menu, Long>, JpaSpecificat
     LinkedHashSet<Menu> findByRoleIdsAndTypeNot(Set<Long> roleIds, int type);
 
     /**
-     * 获取节点数量
-     * @param id /
+     * 新增菜单的层级关系：自身，以及与上级菜单的各级上级的关系
+     * @param id 菜单ID
+     * @param pid 上级菜单ID，顶级菜单为 null
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "sys_menu_closure"))
+    @Query(value = "insert into sys_menu_closure (ancestor, descendant, depth) " +
+            "select c.ancestor, ?1, c.depth + 1 from sys_menu_closure c where c.descendant = ?2 " +
+            "union all select ?1, ?1, 0", nativeQuery = true)
+    void insertClosure(Long id, Long pid);
+
+    /**
+     * 移动菜单前删除其子树与原各级上级的关系，子树内部的关系保留
+     * @param id 菜单ID
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "sys_menu_closure"))
+    @Query(value = "delete c from sys_menu_closure c join sys_menu_closure s on c.descendant = s.descendant " +
+            "left join sys_menu_closure x on x.ancestor = ?1 and x.descendant = c.ancestor " +
+            "where s.ancestor = ?1 and x.ancestor is null", nativeQuery = true)
+    void deleteClosureAncestors(Long id);
+
+    /**
+     * 移动菜单后建立其子树与新的各级上级的关系
+     * @param id 菜单ID
+     * @param pid 新的上级菜单ID
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "sys_menu_closure"))
+    @Query(value = "insert into sys_menu_closure (ancestor, descendant, depth) " +
+            "select p.ancestor, s.descendant, p.depth + s.depth + 1 from sys_menu_closure p, sys_menu_closure s " +
+            "where p.descendant = ?2 and s.ancestor = ?1", nativeQuery = true)
+    void insertClosureAncestors(Long id, Long pid);
+
+    /**
+     * 删除菜单的层级关系
+     * @param id 菜单ID
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "sys_menu_closure"))
+    @Query(value = "delete from sys_menu_closure where ancestor = ?1 or descendant = ?1", nativeQuery = true)
+    void deleteClosure(Long id);
+
+    /**
+     * 判断是否为自身或下级
+     * @param ancestor 上级菜单ID
+     * @param descendant 菜单ID
+     * @return /
+     */
+    @Query(value = "select count(*) from sys_menu_closure where ancestor = ?1 and descendant = ?2", nativeQuery = true)
+    long countClosure(Long ancestor, Long descendant);
+
+    /**
+     * 查询菜单及其所有下级
+     * @param ids 菜单ID
+     * @return /
+     */
+    @Query(value = "select t.* from sys_menu t join sys_menu_closure c on t.menu_id = c.descendant " +
+            "where c.ancestor in ?1", nativeQuery = true)
+    List<Menu> findSubtree(Collection<Long> ids);
+
+    /**
+     * 查询顶级菜单，以及上级菜单和它的各级上级的直接下级
+     * @param pid 上级菜单ID
      * @return /
      */
-    int countByPid(Long id);
+    @Query(value = "select t.* from sys_menu t where t.pid is null or t.pid in " +
+            "(select c.ancestor from sys_menu_closure c where c.descendant = ?1) order by t.menu_sort", nativeQuery = true)
+    List<Menu> findSuperior(Long pid);
 
     /**
-     * 更新节点数目
-     * @param count /
-     * @param menuId /
+     * 根据层级关系更新子节点数目
+     * @param ids 菜单ID
      */
     @Modifying
-    @Query(value = " update sys_menu set sub_count = ?1 where menu_id = ?2 ",nativeQuery = true)
-    void updateSubCntById(int count, Long menuId);
-}
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "sys_menu"))
+    @Query(value = "update sys_menu t set t.sub_count = (select count(*) from sys_menu_closure c " +
+            "where c.ancestor = t.menu_id and c.depth = 1) where t.menu_id in ?1", nativeQuery = true)
+    void updateSubCntByIds(Collection<Long> ids);
+}
\ No newline at end of file
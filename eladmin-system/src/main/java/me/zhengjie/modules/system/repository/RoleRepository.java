@@ -16,12 +16,17 @@
 package me.zhengjie.modules.system.repository;
 
 import me.zhengjie.modules.system.domain.Role;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import javax.persistence.QueryHint;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 /**
@@ -37,6 +42,15 @@ public interface RoleRepository extends JpaRepository<Role, Long>, JpaSpecificat
      */
     Role findByName(String name);
 
+    /**
+     * 根据ID查询，同时查询菜单与部门
+     * @param id /
+     * @return /
+     */
+    @Override
+    @EntityGraph("Role.detail")
+    Optional<Role> findById(Long id);
+
     /**
      * 删除多个角色
      * @param ids /
@@ -57,6 +71,7 @@ public interface RoleRepository extends JpaRepository<Role, Long>, JpaSpecificat
      * @param id 菜单ID
      */
     @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "sys_roles_menus"))
     @Query(value = "delete from sys_roles_menus where menu_id = ?1",nativeQuery = true)
     void untiedMenu(Long id);
 
@@ -77,4 +92,28 @@ public interface RoleRepository extends JpaRepository<Role, Long>, JpaSpecificat
     @Query(value = "SELECT r.* FROM sys_role r, sys_roles_menus m WHERE " +
             "r.role_id = m.role_id AND m.menu_id in ?1",nativeQuery = true)
     List<Role> findInMenuId(List<Long> menuIds);
+
+    /**
+     * 查询角色的菜单，用于列表的投影查询
+     * @param ids 角色ID
+     * @return 角色ID、菜单ID、标题、上级ID、子节点数
+     */
+    @Query("select r.id, m.id, m.title, m.pid, m.subCount from Role r join r.menus m where r.id in ?1")
+    List<Object[]> findMenusByRoleIds(Collection<Long> ids);
+
+    /**
+     * 查询角色的部门，用于列表的投影查询
+     * @param ids 角色ID
+     * @return 角色ID、部门ID、名称、上级ID、子节点数
+     */
+    @Query("select r.id, d.id, d.name, d.pid, d.subCount from Role r join r.depts d where r.id in ?1")
+    List<Object[]> findDeptsByRoleIds(Collection<Long> ids);
+
+    /**
+     * 查询角色的菜单权限标识
+     * @param roleIds 角色ID
+     * @return /
+     */
+    @Query("select distinct m.permission from Role r join r.menus m where r.id in ?1")
+    Set<String> findPermissionsByRoleIds(Collection<Long> roleIds);
 }
@@ -16,12 +16,17 @@
 package me.zhengjie.modules.system.repository;
 
 import me.zhengjie.modules.system.domain.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 /**
@@ -35,8 +40,18 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
      * @param username 用户名
      * @return /
      */
+    @EntityGraph("User.detail")
     User findByUsername(String username);
 
+    /**
+     * 根据ID查询，同时查询角色、岗位与部门
+     * @param id /
+     * @return /
+     */
+    @Override
+    @EntityGraph("User.detail")
+    Optional<User> findById(Long id);
+
     /**
      * 根据邮箱查询
      * @param email 邮箱
@@ -58,6 +73,7 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
      * @param lastPasswordResetTime /
      */
     @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "sys_user"))
     @Query(value = "update sys_user set password = ?2 , pwd_reset_time = ?3 where username = ?1",nativeQuery = true)
     void updatePass(String username, String pass, Date lastPasswordResetTime);
 
@@ -67,6 +83,7 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
      * @param email 邮箱
      */
     @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "sys_user"))
     @Query(value = "update sys_user set email = ?2 where username = ?1",nativeQuery = true)
     void updateEmail(String username, String email);
 
@@ -134,6 +151,23 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
      * @param pwd 、
      */
     @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "sys_user"))
     @Query(value = "update sys_user set password = ?2 where user_id in ?1",nativeQuery = true)
     void resetPwd(Set<Long> ids, String pwd);
+
+    /**
+     * 查询用户的角色，用于列表的投影查询
+     * @param ids 用户ID
+     * @return 用户ID、角色ID、名称、级别、数据权限
+     */
+    @Query("select u.id, r.id, r.name, r.level, r.dataScope from User u join u.roles r where u.id in ?1")
+    List<Object[]> findRolesByUserIds(Collection<Long> ids);
+
+    /**
+     * 查询用户的岗位，用于列表的投影查询
+     * @param ids 用户ID
+     * @return 用户ID、岗位ID、名称
+     */
+    @Query("select u.id, j.id, j.name from User u join u.jobs j where u.id in ?1")
+    List<Object[]> findJobsByUserIds(Collection<Long> ids);
 }
@@ -20,6 +20,8 @@ import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.RequiredArgsConstructor;
 import me.zhengjie.annotation.Log;
+import me.zhengjie.modules.security.service.CacheVersionManager;
+import me.zhengjie.modules.security.service.dto.JwtUserDto;
 import me.zhengjie.modules.system.domain.Menu;
 import me.zhengjie.exception.BadRequestException;
 import me.zhengjie.modules.system.domain.vo.MenuVo;
@@ -31,11 +33,13 @@ import me.zhengjie.modules.system.service.mapstruct.MenuMapper;
 import me.zhengjie.utils.PageResult;
 import me.zhengjie.utils.PageUtil;
 import me.zhengjie.utils.SecurityUtils;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -52,6 +56,7 @@ public class MenuController {
 
     private final MenuService menuService;
     private final MenuMapper menuMapper;
+    private final CacheVersionManager cacheVersionManager;
     private static final String ENTITY_NAME = "menu";
 
     @ApiOperation("导出菜单数据")
@@ -63,10 +68,17 @@ public class MenuController {
 
     @GetMapping(value = "/build")
     @ApiOperation("获取前端所需菜单")
-    public ResponseEntity<List<MenuVo>> buildMenus(){
-        List<MenuDto> menuDtoList = menuService.findByUser(SecurityUtils.getCurrentUserId());
-        List<MenuDto> menus = menuService.buildTree(menuDtoList);
-        return new ResponseEntity<>(menuService.buildMenus(menus),HttpStatus.OK);
+    public ResponseEntity<List<MenuVo>> buildMenus(WebRequest request){
+        JwtUserDto jwtUserDto = (JwtUserDto) SecurityUtils.getCurrentUser();
+        // 路由只由角色及其版本号决定，版本号未变时直接返回 304
+        String version = cacheVersionManager.roleVersion(jwtUserDto.getUser());
+        String etag = "\"" + version + "\"";
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        List<MenuVo> menus = menuService.buildMenus(jwtUserDto.getUser(), version);
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(menus);
     }
 
     @ApiOperation("返回全部的菜单")
@@ -42,4 +42,40 @@ public class MonitorController {
     public ResponseEntity<Object> queryMonitor(){
         return new ResponseEntity<>(serverService.getServers(),HttpStatus.OK);
     }
+
+    @GetMapping(value = "/cache")
+    @ApiOperation("查询缓存监控")
+    @PreAuthorize("@el.check('monitor:list')")
+    public ResponseEntity<Object> queryCache(){
+        return new ResponseEntity<>(serverService.getCaches(),HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/cache/keyspace")
+    @ApiOperation("查询Redis内存分析")
+    @PreAuthorize("@el.check('monitor:list')")
+    public ResponseEntity<Object> queryKeyspace(){
+        return new ResponseEntity<>(serverService.getKeyspace(),HttpStatus.OK);
+    }
+
+    @PostMapping(value = "/cache/keyspace")
+    @ApiOperation("开始Redis内存分析")
+    @PreAuthorize("@el.check('monitor:list')")
+    public ResponseEntity<Object> analyzeKeyspace(){
+        return new ResponseEntity<>(serverService.analyzeKeyspace(),HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/sql")
+    @ApiOperation("查询SQL执行统计")
+    @PreAuthorize("@el.check('monitor:list')")
+    public ResponseEntity<Object> querySqlStats(@RequestParam(defaultValue = "50") int top){
+        return new ResponseEntity<>(serverService.getSqlStats(top),HttpStatus.OK);
+    }
+
+    @DeleteMapping(value = "/sql")
+    @ApiOperation("清空SQL执行统计")
+    @PreAuthorize("@el.check('monitor:list')")
+    public ResponseEntity<Object> resetSqlStats(){
+        serverService.resetSqlStats();
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
 }
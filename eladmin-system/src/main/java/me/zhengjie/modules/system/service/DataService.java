@@ -15,8 +15,8 @@
  */
 package me.zhengjie.modules.system.service;
 
+import me.zhengjie.modules.system.service.dto.DataScopeDto;
 import me.zhengjie.modules.system.service.dto.UserDto;
-import java.util.List;
 
 /**
  * 数据权限服务类
@@ -26,9 +26,9 @@ import java.util.List;
 public interface DataService {
 
     /**
-     * 获取数据权限
+     * 获取用户角色组合的数据权限，用户自己的部门通过 DataScopeDto.resolve 加入
      * @param user /
      * @return /
      */
-    List<Long> getDeptIds(UserDto user);
+    DataScopeDto getDataScope(UserDto user);
 }
@@ -110,7 +110,7 @@ public interface DeptService {
     Object buildTree(List<DeptDto> deptDtos);
 
     /**
-     * 获取
+     * 获取启用的部门及其启用的子孙部门ID，停用部门的下级不包括在内
      * @param deptList /
      * @return /
      */
@@ -18,6 +18,7 @@ package me.zhengjie.modules.system.service;
 import me.zhengjie.modules.system.domain.Menu;
 import me.zhengjie.modules.system.domain.vo.MenuVo;
 import me.zhengjie.modules.system.service.dto.MenuDto;
+import me.zhengjie.modules.system.service.dto.UserDto;
 import me.zhengjie.modules.system.service.dto.MenuQueryCriteria;
 
 import javax.servlet.http.HttpServletResponse;
@@ -81,6 +82,14 @@ public interface MenuService {
      */
     List<MenuVo> buildMenus(List<MenuDto> menuDtos);
 
+    /**
+     * 构建用户的前端路由，按角色组合缓存，角色相同的用户共用
+     * @param user /
+     * @param version 角色版本，由 CacheVersionManager.roleVersion 获得
+     * @return /
+     */
+    List<MenuVo> buildMenus(UserDto user, String version);
+
     /**
      * 根据ID查询
      * @param id /
@@ -119,8 +128,8 @@ public interface MenuService {
 
     /**
      * 根据当前用户获取菜单
-     * @param currentUserId /
+     * @param user /
      * @return /
      */
-    List<MenuDto> findByUser(Long currentUserId);
+    List<MenuDto> findByUser(UserDto user);
 }
@@ -15,6 +15,7 @@
  */
 package me.zhengjie.modules.system.service;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -28,4 +29,34 @@ public interface MonitorService {
     * @return Map<String,Object>
     */
     Map<String,Object> getServers();
+
+    /**
+     * 查询缓存统计信息
+     * @return Map<String,Object>
+     */
+    Map<String,Object> getCaches();
+
+    /**
+     * 查询 Redis 内存分析结果
+     * @return Map<String,Object>
+     */
+    Map<String,Object> getKeyspace();
+
+    /**
+     * 开始 Redis 内存分析，后台执行
+     * @return 是否开始，已在分析中时返回 false
+     */
+    boolean analyzeKeyspace();
+
+    /**
+     * 查询 SQL 执行统计，按总耗时排序
+     * @param top 返回的数量
+     * @return List<Map<String,Object>>
+     */
+    List<Map<String,Object>> getSqlStats(int top);
+
+    /**
+     * 清空 SQL 执行统计
+     */
+    void resetSqlStats();
 }
@@ -0,0 +1,56 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.modules.system.service.dto;
+
+import lombok.Data;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * 一组角色的数据权限，不包含用户自己的部门，拥有相同角色的用户共用
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+@Data
+public class DataScopeDto implements Serializable {
+
+    /** 是否拥有全部的数据权限 */
+    private Boolean all = false;
+
+    /** 是否包含用户所在的部门 */
+    private Boolean thisLevel = false;
+
+    /** 自定义数据权限的部门及其下级 */
+    private List<Long> deptIds = new ArrayList<>();
+
+    /**
+     * 用户的数据权限
+     * @param deptId 用户所在的部门
+     * @return 部门ID，全部数据权限时为空
+     */
+    public List<Long> resolve(Long deptId) {
+        if (all) {
+            return new ArrayList<>();
+        }
+        if (!thisLevel || deptId == null || deptIds.contains(deptId)) {
+            return new ArrayList<>(deptIds);
+        }
+        List<Long> result = new ArrayList<>(deptIds.size() + 1);
+        result.addAll(deptIds);
+        result.add(deptId);
+        return result;
+    }
+}
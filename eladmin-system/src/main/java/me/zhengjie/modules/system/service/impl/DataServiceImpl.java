@@ -20,6 +20,8 @@ import me.zhengjie.modules.system.domain.Dept;
 import me.zhengjie.modules.system.service.DataService;
 import me.zhengjie.modules.system.service.DeptService;
 import me.zhengjie.modules.system.service.RoleService;
+import me.zhengjie.modules.system.service.dto.DataScopeDto;
+import me.zhengjie.modules.system.service.dto.RoleDto;
 import me.zhengjie.modules.system.service.dto.RoleSmallDto;
 import me.zhengjie.modules.system.service.dto.UserDto;
 import me.zhengjie.utils.enums.DataScopeEnum;
@@ -43,42 +45,45 @@ public class DataServiceImpl implements DataService {
     private final DeptService deptService;
 
     /**
-     * 用户角色和用户部门改变时需清理缓存
+     * 缓存 key 只包含用户角色及其版本号与部门树版本号，角色组合相同的用户共用，
+     * 角色的数据权限或部门树改变时自动失效
      * @param user /
      * @return /
      */
     @Override
-    @Cacheable(key = "'user:' + #p0.id")
-    public List<Long> getDeptIds(UserDto user) {
+    @Cacheable(key = "'roles:' + @cacheVersionManager.scopeVersion(#p0)")
+    public DataScopeDto getDataScope(UserDto user) {
+        DataScopeDto scope = new DataScopeDto();
         // 用于存储部门id
-        Set<Long> deptIds = new HashSet<>();
-        // 查询用户角色
-        List<RoleSmallDto> roleSet = roleService.findByUsersId(user.getId());
-        // 获取对应的部门ID
-        for (RoleSmallDto role : roleSet) {
+        Set<Long> deptIds = new LinkedHashSet<>();
+        // 通过角色缓存获取数据权限，角色变更时已被清理
+        for (RoleSmallDto userRole : user.getRoles()) {
+            RoleDto role = roleService.findById(userRole.getId());
             DataScopeEnum dataScopeEnum = DataScopeEnum.find(role.getDataScope());
             switch (Objects.requireNonNull(dataScopeEnum)) {
                 case THIS_LEVEL:
-                    deptIds.add(user.getDept().getId());
+                    scope.setThisLevel(true);
                     break;
                 case CUSTOMIZE:
-                    deptIds.addAll(getCustomize(deptIds, role));
+                    getCustomize(deptIds, role.getId());
                     break;
                 default:
-                    return new ArrayList<>();
+                    scope.setAll(true);
+                    return scope;
             }
         }
-        return new ArrayList<>(deptIds);
+        scope.setDeptIds(new ArrayList<>(deptIds));
+        return scope;
     }
 
     /**
      * 获取自定义的数据权限
      * @param deptIds 部门ID
-     * @param role 角色
+     * @param roleId 角色ID
      * @return 数据权限ID
      */
-    public Set<Long> getCustomize(Set<Long> deptIds, RoleSmallDto role){
-        Set<Dept> depts = deptService.findByRoleId(role.getId());
+    public Set<Long> getCustomize(Set<Long> deptIds, Long roleId){
+        Set<Dept> depts = deptService.findByRoleId(roleId);
         for (Dept dept : depts) {
             deptIds.add(dept.getId());
             List<Dept> deptChildren = deptService.findByPid(dept.getId());
@@ -16,11 +16,12 @@
 package me.zhengjie.modules.system.service.impl;
 
 import cn.hutool.core.collection.CollectionUtil;
-import cn.hutool.core.util.ObjectUtil;
 import lombok.RequiredArgsConstructor;
+import me.zhengjie.annotation.ReadReplica;
+import me.zhengjie.config.EntityCacheSync;
 import me.zhengjie.exception.BadRequestException;
 import me.zhengjie.modules.system.domain.Dept;
-import me.zhengjie.modules.system.domain.User;
+import me.zhengjie.modules.security.service.CacheVersionManager;
 import me.zhengjie.modules.system.repository.RoleRepository;
 import me.zhengjie.modules.system.repository.UserRepository;
 import me.zhengjie.modules.system.service.dto.DeptDto;
@@ -35,9 +36,10 @@ import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.lang.reflect.Field;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -50,13 +52,26 @@ import java.util.stream.Collectors;
 @CacheConfig(cacheNames = "dept")
 public class DeptServiceImpl implements DeptService {
 
+    /** 列表需要的列 */
+    private static final String[] LIST_COLUMNS = {"id", "name", "enabled", "deptSort", "pid", "subCount",
+            "createBy", "updateBy", "createTime", "updateTime"};
+
+    private static final TreeBuilder<DeptDto, Long> TREE = TreeBuilder.of(DeptDto::getId, DeptDto::getPid, DeptDto::getDeptSort);
+
     private final DeptRepository deptRepository;
     private final DeptMapper deptMapper;
     private final UserRepository userRepository;
-    private final RedisUtils redisUtils;
+    private final CacheCleaner cacheCleaner;
     private final RoleRepository roleRepository;
+    private final CacheVersionManager cacheVersionManager;
+    private final EntityCacheSync entityCacheSync;
+    private final DeptTreeIndex deptTreeIndex;
+    @PersistenceContext
+    private EntityManager em;
 
     @Override
+    @ReadReplica
+    @Transactional(readOnly = true)
     public List<DeptDto> queryAll(DeptQueryCriteria criteria, Boolean isQuery) throws Exception {
         Sort sort = Sort.by(Sort.Direction.ASC, "deptSort");
         String dataScopeType = SecurityUtils.getDataScopeType();
@@ -64,22 +79,12 @@ public class DeptServiceImpl implements DeptService {
             if(dataScopeType.equals(DataScopeEnum.ALL.getValue())){
                 criteria.setPidIsNull(true);
             }
-            List<Field> fields = QueryHelp.getAllFields(criteria.getClass(), new ArrayList<>());
-            List<String> fieldNames = new ArrayList<String>(){{ add("pidIsNull");add("enabled");}};
-            for (Field field : fields) {
-                //设置对象的访问权限，保证对private的属性的访问
-                field.setAccessible(true);
-                Object val = field.get(criteria);
-                if(fieldNames.contains(field.getName())){
-                    continue;
-                }
-                if (ObjectUtil.isNotNull(val)) {
-                    criteria.setPidIsNull(null);
-                    break;
-                }
+            // 有其他查询条件时不限制只查顶级部门
+            if (!QueryHelp.isAllNull(criteria, Arrays.asList("pidIsNull", "enabled"))) {
+                criteria.setPidIsNull(null);
             }
         }
-        List<DeptDto> list = deptMapper.toDto(deptRepository.findAll((root, criteriaQuery, criteriaBuilder) -> QueryHelp.getPredicate(root,criteria,criteriaBuilder),sort));
+        List<DeptDto> list = ProjectionUtil.list(em, Dept.class, criteria, sort, DeptDto.class, LIST_COLUMNS);
         // 如果为空，就代表为自定义权限或者本级权限，就需要去重，不理解可以注释掉，看查询结果
         if(StringUtils.isBlank(dataScopeType)){
             return deduplication(list);
@@ -109,10 +114,12 @@ public class DeptServiceImpl implements DeptService {
     @Transactional(rollbackFor = Exception.class)
     public void create(Dept resources) {
         deptRepository.save(resources);
+        deptRepository.insertClosure(resources.getId(), resources.getPid());
+        deptTreeIndex.onSave(resources);
         // 计算子节点数目
         resources.setSubCount(0);
         // 清理缓存
-        updateSubCnt(resources.getPid());
+        updateSubCnt(Collections.singleton(resources.getPid()));
         // 清理自定义角色权限的datascope缓存
         delCaches(resources.getPid());
     }
@@ -126,13 +133,24 @@ public class DeptServiceImpl implements DeptService {
         if(resources.getPid() != null && resources.getId().equals(resources.getPid())) {
             throw new BadRequestException("上级不能为自己");
         }
+        boolean moved = !Objects.equals(oldPid, newPid);
+        if(moved && newPid != null && deptRepository.countClosure(resources.getId(), newPid) > 0) {
+            throw new BadRequestException("上级不能为自己的下级");
+        }
         Dept dept = deptRepository.findById(resources.getId()).orElseGet(Dept::new);
         ValidationUtil.isNull( dept.getId(),"Dept","id",resources.getId());
         resources.setId(dept.getId());
         deptRepository.save(resources);
+        if (moved) {
+            // 子树整体移动到新的上级下
+            deptRepository.deleteClosureAncestors(resources.getId());
+            if (newPid != null) {
+                deptRepository.insertClosureAncestors(resources.getId(), newPid);
+            }
+        }
+        deptTreeIndex.onSave(resources);
         // 更新父节点中子节点数目
-        updateSubCnt(oldPid);
-        updateSubCnt(newPid);
+        updateSubCnt(Arrays.asList(oldPid, newPid));
         // 清理缓存
         delCaches(resources.getId());
     }
@@ -140,12 +158,19 @@ public class DeptServiceImpl implements DeptService {
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void delete(Set<DeptDto> deptDtos) {
+        Set<Long> ids = new HashSet<>();
+        Set<Long> pids = new HashSet<>();
         for (DeptDto deptDto : deptDtos) {
             // 清理缓存
             delCaches(deptDto.getId());
             deptRepository.deleteById(deptDto.getId());
-            updateSubCnt(deptDto.getPid());
+            deptRepository.deleteClosure(deptDto.getId());
+            deptTreeIndex.onDelete(deptDto.getId());
+            ids.add(deptDto.getId());
+            pids.add(deptDto.getPid());
         }
+        pids.removeAll(ids);
+        updateSubCnt(pids);
     }
 
     @Override
@@ -163,29 +188,27 @@ public class DeptServiceImpl implements DeptService {
 
     @Override
     public Set<DeptDto> getDeleteDepts(List<Dept> menuList, Set<DeptDto> deptDtos) {
-        for (Dept dept : menuList) {
-            deptDtos.add(deptMapper.toDto(dept));
-            List<Dept> depts = deptRepository.findByPid(dept.getId());
-            if(depts!=null && depts.size()!=0){
-                getDeleteDepts(depts, deptDtos);
-            }
+        if (menuList.isEmpty()) {
+            return deptDtos;
         }
+        Set<Long> ids = menuList.stream().map(Dept::getId).collect(Collectors.toSet());
+        deptDtos.addAll(deptMapper.toDto(deptRepository.findSubtree(ids)));
         return deptDtos;
     }
 
     @Override
     public List<Long> getDeptChildren(List<Dept> deptList) {
         List<Long> list = new ArrayList<>();
-        deptList.forEach(dept -> {
-                    if (dept!=null && dept.getEnabled()) {
-                        List<Dept> depts = deptRepository.findByPid(dept.getId());
-                        if (depts.size() != 0) {
-                            list.addAll(getDeptChildren(depts));
-                        }
-                        list.add(dept.getId());
-                    }
+        for (Dept dept : deptList) {
+            if (dept != null && dept.getEnabled()) {
+                List<Long> subtree = deptTreeIndex.enabledSubtree(dept.getId());
+                if (subtree.isEmpty()) {
+                    // 索引尚未包含该部门
+                    list.add(dept.getId());
                 }
-        );
+                list.addAll(subtree);
+            }
+        }
         return list;
     }
 
@@ -193,42 +216,15 @@ public class DeptServiceImpl implements DeptService {
     public List<DeptDto> getSuperior(DeptDto deptDto, List<Dept> depts) {
         if(deptDto.getPid() == null){
             depts.addAll(deptRepository.findByPidIsNull());
-            return deptMapper.toDto(depts);
+        } else {
+            depts.addAll(deptRepository.findSuperior(deptDto.getPid()));
         }
-        depts.addAll(deptRepository.findByPid(deptDto.getPid()));
-        return getSuperior(findById(deptDto.getPid()), depts);
+        return deptMapper.toDto(depts);
     }
 
     @Override
     public Object buildTree(List<DeptDto> deptDtos) {
-        Set<DeptDto> trees = new LinkedHashSet<>();
-        Set<DeptDto> depts= new LinkedHashSet<>();
-        List<String> deptNames = deptDtos.stream().map(DeptDto::getName).collect(Collectors.toList());
-        boolean isChild;
-        for (DeptDto deptDTO : deptDtos) {
-            isChild = false;
-            if (deptDTO.getPid() == null) {
-                trees.add(deptDTO);
-            }
-            for (DeptDto it : deptDtos) {
-                if (it.getPid() != null && deptDTO.getId().equals(it.getPid())) {
-                    isChild = true;
-                    if (deptDTO.getChildren() == null) {
-                        deptDTO.setChildren(new ArrayList<>());
-                    }
-                    deptDTO.getChildren().add(it);
-                }
-            }
-            if(isChild) {
-                depts.add(deptDTO);
-            } else if(deptDTO.getPid() != null &&  !deptNames.contains(findById(deptDTO.getPid()).getName())) {
-                depts.add(deptDTO);
-            }
-        }
-
-        if (CollectionUtil.isEmpty(trees)) {
-            trees = depts;
-        }
+        List<DeptDto> trees = TREE.build(deptDtos, DeptDto::setChildren);
         Map<String,Object> map = new HashMap<>(2);
         map.put("totalElements",deptDtos.size());
         map.put("content",CollectionUtil.isEmpty(trees)? deptDtos :trees);
@@ -246,28 +242,16 @@ public class DeptServiceImpl implements DeptService {
         }
     }
 
-    private void updateSubCnt(Long deptId){
-        if(deptId != null){
-            int count = deptRepository.countByPid(deptId);
-            deptRepository.updateSubCntById(count, deptId);
+    private void updateSubCnt(Collection<Long> deptIds){
+        Set<Long> ids = deptIds.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        if(!ids.isEmpty()){
+            deptRepository.updateSubCntByIds(ids);
+            ids.forEach(id -> entityCacheSync.evict(Dept.class, id));
         }
     }
 
     private List<DeptDto> deduplication(List<DeptDto> list) {
-        List<DeptDto> deptDtos = new ArrayList<>();
-        for (DeptDto deptDto : list) {
-            boolean flag = true;
-            for (DeptDto dto : list) {
-                if (dto.getId().equals(deptDto.getPid())) {
-                    flag = false;
-                    break;
-                }
-            }
-            if (flag){
-                deptDtos.add(deptDto);
-            }
-        }
-        return deptDtos;
+        return TREE.roots(list);
     }
 
     /**
@@ -275,9 +259,8 @@ public class DeptServiceImpl implements DeptService {
      * @param id /
      */
     public void delCaches(Long id){
-        List<User> users = userRepository.findByRoleDeptId(id);
-        // 删除数据权限
-        redisUtils.delByKeys(CacheKey.DATA_USER, users.stream().map(User::getId).collect(Collectors.toSet()));
-        redisUtils.del(CacheKey.DEPT_ID + id);
+        // 递增部门树版本号，数据权限缓存随之失效
+        cacheVersionManager.incrDept();
+        cacheCleaner.del(CacheKey.DEPT_ID + id);
     }
 }
@@ -0,0 +1,108 @@
+/*
+ *  Copyright 2019-2020 Zheng Jie
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package me.zhengjie.modules.system.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import me.zhengjie.modules.system.domain.Dept;
+import me.zhengjie.modules.system.repository.DeptRepository;
+import me.zhengjie.utils.IndexVersionManager;
+import me.zhengjie.utils.TreeIndex;
+import me.zhengjie.utils.VersionedIndex;
+import org.springframework.stereotype.Component;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 部门树的进程内索引，查询子孙、上级与启用的子树不再逐级查询数据库。
+ * 首次使用时一次查询加载所有部门，部门变更时在事务提交后增量更新；
+ * 版本号保存在 cache::version 中，其他节点变更导致版本号不一致时重新加载，见 {@link VersionedIndex}
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+@Slf4j
+@Component
+public class DeptTreeIndex {
+
+    private static final String VERSION = "tree:dept";
+
+    private final IndexVersionManager indexVersionManager;
+
+    private final VersionedIndex<TreeIndex> index;
+
+    public DeptTreeIndex(DeptRepository deptRepository, IndexVersionManager indexVersionManager) {
+        this.indexVersionManager = indexVersionManager;
+        this.index = new VersionedIndex<>(new TreeIndex(), tree -> {
+            tree.clear();
+            for (Object[] row : deptRepository.findTreeNodes()) {
+                tree.put((Long) row[0], (Long) row[1], Boolean.TRUE.equals(row[2]), (Integer) row[3]);
+            }
+            log.debug("加载部门树索引，共 {} 个部门", tree.size());
+        });
+    }
+
+    /**
+     * 自身及启用的子孙，停用部门的子树整体跳过
+     * @param id 部门ID
+     * @return /
+     */
+    public List<Long> enabledSubtree(Long id) {
+        return index.read(indexVersionManager.current(VERSION), tree -> tree.enabledSubtree(id));
+    }
+
+    /**
+     * 所有子孙，不包括自身
+     * @param id 部门ID
+     * @return /
+     */
+    public List<Long> descendants(Long id) {
+        return index.read(indexVersionManager.current(VERSION), tree -> tree.descendants(id));
+    }
+
+    /**
+     * 所有上级，从直接上级到顶级部门
+     * @param id 部门ID
+     * @return /
+     */
+    public List<Long> ancestors(Long id) {
+        return index.read(indexVersionManager.current(VERSION), tree -> tree.ancestors(id));
+    }
+
+    /**
+     * 部门新增或修改，事务中调用时在提交后更新索引
+     * @param dept 部门
+     */
+    public void onSave(Dept dept) {
+        // 在调用时读取字段值，提交时实体可能已被修改
+        Long id = dept.getId();
+        Long pid = dept.getPid();
+        boolean enabled = Boolean.TRUE.equals(dept.getEnabled());
+        Integer sort = dept.getDeptSort();
+        apply(tree -> tree.put(id, pid, enabled, sort));
+    }
+
+    /**
+     * 部门删除，事务中调用时在提交后更新索引
+     * @param id 部门ID
+     */
+    public void onDelete(Long id) {
+        apply(tree -> tree.remove(id));
+    }
+
+    private void apply(Consumer<TreeIndex> change) {
+        indexVersionManager.change(VERSION, Collections.singletonMap(index, change));
+    }
+}
@@ -17,6 +17,7 @@ package me.zhengjie.modules.system.service.impl;
 
 import cn.hutool.core.collection.CollectionUtil;
 import lombok.RequiredArgsConstructor;
+import me.zhengjie.annotation.ReadReplica;
 import me.zhengjie.utils.PageResult;
 import me.zhengjie.modules.system.domain.Dict;
 import me.zhengjie.modules.system.service.dto.DictDetailDto;
@@ -49,12 +50,16 @@ public class DictServiceImpl implements DictService {
     private final RedisUtils redisUtils;
 
     @Override
+    @ReadReplica
+    @Transactional(readOnly = true)
     public PageResult<DictDto> queryAll(DictQueryCriteria dict, Pageable pageable){
         Page<Dict> page = dictRepository.findAll((root, query, cb) -> QueryHelp.getPredicate(root, dict, cb), pageable);
         return PageUtil.toPage(page.map(dictMapper::toDto));
     }
 
     @Override
+    @ReadReplica
+    @Transactional(readOnly = true)
     public List<DictDto> queryAll(DictQueryCriteria dict) {
         List<Dict> list = dictRepository.findAll((root, query, cb) -> QueryHelp.getPredicate(root, dict, cb));
         return dictMapper.toDto(list);
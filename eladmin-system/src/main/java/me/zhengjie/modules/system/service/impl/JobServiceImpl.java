@@ -16,6 +16,7 @@
 package me.zhengjie.modules.system.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import me.zhengjie.annotation.ReadReplica;
 import me.zhengjie.utils.PageResult;
 import me.zhengjie.exception.BadRequestException;
 import me.zhengjie.exception.EntityExistException;
@@ -30,10 +31,12 @@ import me.zhengjie.modules.system.service.mapstruct.JobMapper;
 import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.*;
@@ -47,21 +50,29 @@ import java.util.*;
 @CacheConfig(cacheNames = "job")
 public class JobServiceImpl implements JobService {
 
+    /** 列表需要的列 */
+    private static final String[] LIST_COLUMNS = {"id", "jobSort", "name", "enabled",
+            "createBy", "updateBy", "createTime", "updateTime"};
+
     private final JobRepository jobRepository;
     private final JobMapper jobMapper;
     private final RedisUtils redisUtils;
     private final UserRepository userRepository;
+    @PersistenceContext
+    private EntityManager em;
 
     @Override
+    @ReadReplica
+    @Transactional(readOnly = true)
     public PageResult<JobDto> queryAll(JobQueryCriteria criteria, Pageable pageable) {
-        Page<Job> page = jobRepository.findAll((root, criteriaQuery, criteriaBuilder) -> QueryHelp.getPredicate(root,criteria,criteriaBuilder),pageable);
-        return PageUtil.toPage(page.map(jobMapper::toDto).getContent(),page.getTotalElements());
+        return ProjectionUtil.page(em, Job.class, criteria, pageable, CountStrategy.EXACT, JobDto.class, LIST_COLUMNS);
     }
 
     @Override
+    @ReadReplica
+    @Transactional(readOnly = true)
     public List<JobDto> queryAll(JobQueryCriteria criteria) {
-        List<Job> list = jobRepository.findAll((root, criteriaQuery, criteriaBuilder) -> QueryHelp.getPredicate(root,criteria,criteriaBuilder));
-        return jobMapper.toDto(list);
+        return ProjectionUtil.list(em, Job.class, criteria, Sort.unsorted(), JobDto.class, LIST_COLUMNS);
     }
 
     @Override
@@ -20,18 +20,19 @@ import cn.hutool.core.util.ObjectUtil;
 import lombok.RequiredArgsConstructor;
 import me.zhengjie.modules.system.domain.Menu;
 import me.zhengjie.modules.system.domain.Role;
-import me.zhengjie.modules.system.domain.User;
+import me.zhengjie.modules.security.service.CacheVersionManager;
 import me.zhengjie.modules.system.domain.vo.MenuMetaVo;
 import me.zhengjie.modules.system.domain.vo.MenuVo;
+import me.zhengjie.config.EntityCacheSync;
 import me.zhengjie.exception.BadRequestException;
 import me.zhengjie.exception.EntityExistException;
 import me.zhengjie.modules.system.repository.MenuRepository;
-import me.zhengjie.modules.system.repository.UserRepository;
 import me.zhengjie.modules.system.service.MenuService;
 import me.zhengjie.modules.system.service.RoleService;
 import me.zhengjie.modules.system.service.dto.MenuDto;
 import me.zhengjie.modules.system.service.dto.MenuQueryCriteria;
 import me.zhengjie.modules.system.service.dto.RoleSmallDto;
+import me.zhengjie.modules.system.service.dto.UserDto;
 import me.zhengjie.modules.system.service.mapstruct.MenuMapper;
 import me.zhengjie.utils.*;
 import org.springframework.cache.annotation.CacheConfig;
@@ -41,7 +42,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.lang.reflect.Field;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -54,34 +54,27 @@ import java.util.stream.Collectors;
 public class MenuServiceImpl implements MenuService {
 
     private final MenuRepository menuRepository;
-    private final UserRepository userRepository;
     private final MenuMapper menuMapper;
     private final RoleService roleService;
-    private final RedisUtils redisUtils;
+    private final CacheCleaner cacheCleaner;
+    private final CacheVersionManager cacheVersionManager;
+    private final EntityCacheSync entityCacheSync;
 
     private static final String HTTP_PRE = "http://";
     private static final String HTTPS_PRE = "https://";
     private static final String YES_STR = "是";
     private static final String NO_STR = "否";
     private static final String BAD_REQUEST = "外链必须以http://或者https://开头";
+    private static final TreeBuilder<MenuDto, Long> TREE = TreeBuilder.of(MenuDto::getId, MenuDto::getPid, MenuDto::getMenuSort);
     
     @Override
     public List<MenuDto> queryAll(MenuQueryCriteria criteria, Boolean isQuery) throws Exception {
         Sort sort = Sort.by(Sort.Direction.ASC, "menuSort");
         if(Boolean.TRUE.equals(isQuery)){
             criteria.setPidIsNull(true);
-            List<Field> fields = QueryHelp.getAllFields(criteria.getClass(), new ArrayList<>());
-            for (Field field : fields) {
-                //设置对象的访问权限，保证对private的属性的访问
-                field.setAccessible(true);
-                Object val = field.get(criteria);
-                if("pidIsNull".equals(field.getName())){
-                    continue;
-                }
-                if (ObjectUtil.isNotNull(val)) {
-                    criteria.setPidIsNull(null);
-                    break;
-                }
+            // 有其他查询条件时不限制只查顶级菜单
+            if (!QueryHelp.isAllNull(criteria, Collections.singleton("pidIsNull"))) {
+                criteria.setPidIsNull(null);
             }
         }
         return menuMapper.toDto(menuRepository.findAll((root, criteriaQuery, criteriaBuilder) -> QueryHelp.getPredicate(root,criteria,criteriaBuilder),sort));
@@ -96,15 +89,14 @@ public class MenuServiceImpl implements MenuService {
     }
 
     /**
-     * 用户角色改变时需清理缓存
-     * @param currentUserId /
+     * 缓存 key 带有用户角色的版本号，用户角色或角色菜单改变时自动失效
+     * @param user /
      * @return /
      */
     @Override
-    @Cacheable(key = "'user:' + #p0")
-    public List<MenuDto> findByUser(Long currentUserId) {
-        List<RoleSmallDto> roles = roleService.findByUsersId(currentUserId);
-        Set<Long> roleIds = roles.stream().map(RoleSmallDto::getId).collect(Collectors.toSet());
+    @Cacheable(key = "'user:' + #p0.id + ':' + @cacheVersionManager.roleVersion(#p0)")
+    public List<MenuDto> findByUser(UserDto user) {
+        Set<Long> roleIds = user.getRoles().stream().map(RoleSmallDto::getId).collect(Collectors.toSet());
         LinkedHashSet<Menu> menus = menuRepository.findByRoleIdsAndTypeNot(roleIds, 2);
         return menus.stream().map(menuMapper::toDto).collect(Collectors.toList());
     }
@@ -129,10 +121,11 @@ public class MenuServiceImpl implements MenuService {
             }
         }
         menuRepository.save(resources);
+        menuRepository.insertClosure(resources.getId(), resources.getPid());
         // 计算子节点数目
         resources.setSubCount(0);
         // 更新父节点菜单数目
-        updateSubCnt(resources.getPid());
+        updateSubCnt(Collections.singleton(resources.getPid()));
     }
 
     @Override
@@ -162,6 +155,10 @@ public class MenuServiceImpl implements MenuService {
         // 记录的父节点ID
         Long oldPid = menu.getPid();
         Long newPid = resources.getPid();
+        boolean moved = !Objects.equals(oldPid, newPid);
+        if(moved && newPid != null && menuRepository.countClosure(menu.getId(), newPid) > 0) {
+            throw new BadRequestException("上级不能为自己的下级");
+        }
 
         if(StringUtils.isNotBlank(resources.getComponentName())){
             menu1 = menuRepository.findByComponentName(resources.getComponentName());
@@ -182,35 +179,45 @@ public class MenuServiceImpl implements MenuService {
         menu.setPermission(resources.getPermission());
         menu.setType(resources.getType());
         menuRepository.save(menu);
+        if (moved) {
+            // 子树整体移动到新的上级下
+            menuRepository.deleteClosureAncestors(menu.getId());
+            if (newPid != null) {
+                menuRepository.insertClosureAncestors(menu.getId(), newPid);
+            }
+        }
         // 计算父级菜单节点数目
-        updateSubCnt(oldPid);
-        updateSubCnt(newPid);
+        updateSubCnt(Arrays.asList(oldPid, newPid));
         // 清理缓存
         delCaches(resources.getId());
     }
 
     @Override
     public Set<Menu> getChildMenus(List<Menu> menuList, Set<Menu> menuSet) {
-        for (Menu menu : menuList) {
-            menuSet.add(menu);
-            List<Menu> menus = menuRepository.findByPidOrderByMenuSort(menu.getId());
-            if(menus!=null && menus.size()!=0){
-                getChildMenus(menus, menuSet);
-            }
+        if (menuList.isEmpty()) {
+            return menuSet;
         }
+        Set<Long> ids = menuList.stream().map(Menu::getId).collect(Collectors.toSet());
+        menuSet.addAll(menuRepository.findSubtree(ids));
         return menuSet;
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void delete(Set<Menu> menuSet) {
+        Set<Long> ids = new HashSet<>();
+        Set<Long> pids = new HashSet<>();
         for (Menu menu : menuSet) {
             // 清理缓存
             delCaches(menu.getId());
             roleService.untiedMenu(menu.getId());
             menuRepository.deleteById(menu.getId());
-            updateSubCnt(menu.getPid());
+            menuRepository.deleteClosure(menu.getId());
+            ids.add(menu.getId());
+            pids.add(menu.getPid());
         }
+        pids.removeAll(ids);
+        updateSubCnt(pids);
     }
 
     @Override
@@ -228,34 +235,15 @@ public class MenuServiceImpl implements MenuService {
     public List<MenuDto> getSuperior(MenuDto menuDto, List<Menu> menus) {
         if(menuDto.getPid() == null){
             menus.addAll(menuRepository.findByPidIsNullOrderByMenuSort());
-            return menuMapper.toDto(menus);
+        } else {
+            menus.addAll(menuRepository.findSuperior(menuDto.getPid()));
         }
-        menus.addAll(menuRepository.findByPidOrderByMenuSort(menuDto.getPid()));
-        return getSuperior(findById(menuDto.getPid()), menus);
+        return menuMapper.toDto(menus);
     }
 
     @Override
     public List<MenuDto> buildTree(List<MenuDto> menuDtos) {
-        List<MenuDto> trees = new ArrayList<>();
-        Set<Long> ids = new HashSet<>();
-        for (MenuDto menuDTO : menuDtos) {
-            if (menuDTO.getPid() == null) {
-                trees.add(menuDTO);
-            }
-            for (MenuDto it : menuDtos) {
-                if (menuDTO.getId().equals(it.getPid())) {
-                    if (menuDTO.getChildren() == null) {
-                        menuDTO.setChildren(new ArrayList<>());
-                    }
-                    menuDTO.getChildren().add(it);
-                    ids.add(it.getId());
-                }
-            }
-        }
-        if(trees.size() == 0){
-            trees = menuDtos.stream().filter(s -> !ids.contains(s.getId())).collect(Collectors.toList());
-        }
-        return trees;
+        return TREE.build(menuDtos, MenuDto::setChildren);
     }
 
     @Override
@@ -311,6 +299,19 @@ public class MenuServiceImpl implements MenuService {
         return list;
     }
 
+    /**
+     * 缓存 key 只包含角色及其版本号，不包含用户ID，角色组合相同的用户共用渲染好的路由；
+     * 角色的菜单或菜单本身变更时递增角色版本号，缓存随之失效
+     * @param user /
+     * @param version /
+     * @return /
+     */
+    @Override
+    @Cacheable(key = "'build:' + #p1")
+    public List<MenuVo> buildMenus(UserDto user, String version) {
+        return buildMenus(buildTree(findByUser(user)));
+    }
+
     @Override
     public Menu findOne(Long id) {
         Menu menu = menuRepository.findById(id).orElseGet(Menu::new);
@@ -335,10 +336,11 @@ public class MenuServiceImpl implements MenuService {
         FileUtil.downloadExcel(list, response);
     }
 
-    private void updateSubCnt(Long menuId){
-        if(menuId != null){
-            int count = menuRepository.countByPid(menuId);
-            menuRepository.updateSubCntById(count, menuId);
+    private void updateSubCnt(Collection<Long> menuIds){
+        Set<Long> ids = menuIds.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        if(!ids.isEmpty()){
+            menuRepository.updateSubCntByIds(ids);
+            ids.forEach(id -> entityCacheSync.evict(Menu.class, id));
         }
     }
 
@@ -347,13 +349,14 @@ public class MenuServiceImpl implements MenuService {
      * @param id 菜单ID
      */
     public void delCaches(Long id){
-        List<User> users = userRepository.findByMenuId(id);
-        redisUtils.del(CacheKey.MENU_ID + id);
-        redisUtils.delByKeys(CacheKey.MENU_USER, users.stream().map(User::getId).collect(Collectors.toSet()));
+        cacheCleaner.del(CacheKey.MENU_ID + id);
         // 清除 Role 缓存
         List<Role> roles = roleService.findInMenuId(new ArrayList<Long>(){{
             add(id);
         }});
-        redisUtils.delByKeys(CacheKey.ROLE_ID, roles.stream().map(Role::getId).collect(Collectors.toSet()));
+        Set<Long> roleIds = roles.stream().map(Role::getId).collect(Collectors.toSet());
+        cacheCleaner.delByIds(CacheKey.ROLE_ID, roleIds);
+        // 递增相关角色的版本号，用户菜单与权限缓存随之失效
+        cacheVersionManager.incrRoles(roleIds);
     }
 }
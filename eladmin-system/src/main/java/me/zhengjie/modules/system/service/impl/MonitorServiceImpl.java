@@ -17,10 +17,18 @@ package me.zhengjie.modules.system.service.impl;
 
 import cn.hutool.core.date.BetweenFormatter.Level;
 import cn.hutool.core.date.DateUtil;
+import lombok.RequiredArgsConstructor;
+import me.zhengjie.config.CompressRedisSerializer;
+import me.zhengjie.config.EntityCacheSync;
+import me.zhengjie.config.SqlMetricsFilter;
+import me.zhengjie.config.TwoLevelCacheManager;
 import me.zhengjie.modules.system.service.MonitorService;
+import me.zhengjie.utils.CircuitBreakerCacheBackend;
 import me.zhengjie.utils.ElConstant;
 import me.zhengjie.utils.FileUtil;
+import me.zhengjie.utils.KeyspaceAnalyzer;
 import me.zhengjie.utils.StringUtils;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import oshi.SystemInfo;
 import oshi.hardware.*;
@@ -38,9 +46,53 @@ import java.util.*;
 * @date 2020-05-02
 */
 @Service
+@RequiredArgsConstructor
 public class MonitorServiceImpl implements MonitorService {
 
     private final DecimalFormat df = new DecimalFormat("0.00");
+    private final CompressRedisSerializer compressRedisSerializer;
+    private final ObjectProvider<TwoLevelCacheManager> twoLevelCacheManager;
+    private final ObjectProvider<CircuitBreakerCacheBackend> circuitBreakerCacheBackend;
+    private final ObjectProvider<KeyspaceAnalyzer> keyspaceAnalyzer;
+    private final EntityCacheSync entityCacheSync;
+    private final SqlMetricsFilter sqlMetricsFilter;
+
+    @Override
+    public Map<String,Object> getCaches(){
+        Map<String, Object> resultMap = new LinkedHashMap<>(8);
+        // 缓存压缩统计
+        resultMap.put("compress", compressRedisSerializer.getStats());
+        // 二级缓存命中统计，redis.embedded=true 时没有二级缓存
+        twoLevelCacheManager.ifAvailable(manager -> resultMap.put("caches", manager.getStats()));
+        // Hibernate 二级缓存各区域的命中统计
+        resultMap.put("entityCaches", entityCacheSync.getStats());
+        // Redis 熔断状态
+        circuitBreakerCacheBackend.ifAvailable(backend -> resultMap.put("circuitBreaker", backend.getStats()));
+        resultMap.put("time", DateUtil.format(new Date(), "HH:mm:ss"));
+        return resultMap;
+    }
+
+    @Override
+    public Map<String,Object> getKeyspace(){
+        KeyspaceAnalyzer analyzer = keyspaceAnalyzer.getIfAvailable();
+        return analyzer == null ? Collections.singletonMap("status", "disabled") : analyzer.getReport();
+    }
+
+    @Override
+    public boolean analyzeKeyspace(){
+        KeyspaceAnalyzer analyzer = keyspaceAnalyzer.getIfAvailable();
+        return analyzer != null && analyzer.start();
+    }
+
+    @Override
+    public List<Map<String,Object>> getSqlStats(int top){
+        return sqlMetricsFilter.getStats(top);
+    }
+
+    @Override
+    public void resetSqlStats(){
+        sqlMetricsFilter.reset();
+    }
 
     @Override
     public Map<String,Object> getServers(){
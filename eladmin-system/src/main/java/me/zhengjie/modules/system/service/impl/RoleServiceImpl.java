@@ -15,18 +15,19 @@
  */
 package me.zhengjie.modules.system.service.impl;
 
-import cn.hutool.core.collection.CollectionUtil;
 import lombok.RequiredArgsConstructor;
+import me.zhengjie.annotation.ReadReplica;
+import me.zhengjie.config.EntityCacheSync;
 import me.zhengjie.exception.BadRequestException;
-import me.zhengjie.modules.security.service.UserCacheManager;
+import me.zhengjie.modules.security.service.CacheVersionManager;
 import me.zhengjie.modules.security.service.dto.AuthorityDto;
-import me.zhengjie.modules.system.domain.Menu;
 import me.zhengjie.modules.system.domain.Role;
 import me.zhengjie.exception.EntityExistException;
-import me.zhengjie.modules.system.domain.User;
 import me.zhengjie.modules.system.repository.RoleRepository;
 import me.zhengjie.modules.system.repository.UserRepository;
 import me.zhengjie.modules.system.service.RoleService;
+import me.zhengjie.modules.system.service.dto.DeptDto;
+import me.zhengjie.modules.system.service.dto.MenuDto;
 import me.zhengjie.modules.system.service.dto.RoleDto;
 import me.zhengjie.modules.system.service.dto.RoleQueryCriteria;
 import me.zhengjie.modules.system.service.dto.RoleSmallDto;
@@ -36,11 +37,12 @@ import me.zhengjie.modules.system.service.mapstruct.RoleSmallMapper;
 import me.zhengjie.utils.*;
 import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.*;
@@ -55,28 +57,74 @@ import java.util.stream.Collectors;
 @CacheConfig(cacheNames = "role")
 public class RoleServiceImpl implements RoleService {
 
+    /** 列表需要的列 */
+    private static final String[] LIST_COLUMNS = {"id", "name", "dataScope", "level", "description",
+            "createBy", "updateBy", "createTime", "updateTime"};
+
     private final RoleRepository roleRepository;
     private final RoleMapper roleMapper;
     private final RoleSmallMapper roleSmallMapper;
-    private final RedisUtils redisUtils;
+    private final CacheCleaner cacheCleaner;
     private final UserRepository userRepository;
-    private final UserCacheManager userCacheManager;
+    private final CacheVersionManager cacheVersionManager;
+    private final EntityCacheSync entityCacheSync;
+    @PersistenceContext
+    private EntityManager em;
 
     @Override
+    @ReadReplica
+    @Transactional(readOnly = true)
     public List<RoleDto> queryAll() {
         Sort sort = Sort.by(Sort.Direction.ASC, "level");
         return roleMapper.toDto(roleRepository.findAll(sort));
     }
 
     @Override
+    @ReadReplica
+    @Transactional(readOnly = true)
     public List<RoleDto> queryAll(RoleQueryCriteria criteria) {
         return roleMapper.toDto(roleRepository.findAll((root, criteriaQuery, criteriaBuilder) -> QueryHelp.getPredicate(root, criteria, criteriaBuilder)));
     }
 
     @Override
+    @ReadReplica
+    @Transactional(readOnly = true)
     public PageResult<RoleDto> queryAll(RoleQueryCriteria criteria, Pageable pageable) {
-        Page<Role> page = roleRepository.findAll((root, criteriaQuery, criteriaBuilder) -> QueryHelp.getPredicate(root, criteria, criteriaBuilder), pageable);
-        return PageUtil.toPage(page.map(roleMapper::toDto));
+        PageResult<RoleDto> page = ProjectionUtil.page(em, Role.class, criteria, pageable, CountStrategy.EXACT, RoleDto.class, LIST_COLUMNS);
+        fillMenusAndDepts(page.getContent());
+        return page;
+    }
+
+    /**
+     * 一次性查询列表中所有角色的菜单与部门，只包含前端分配权限时需要的属性
+     * @param roles /
+     */
+    private void fillMenusAndDepts(List<RoleDto> roles) {
+        if (roles.isEmpty()) {
+            return;
+        }
+        Map<Long, RoleDto> roleMap = new HashMap<>(roles.size());
+        for (RoleDto role : roles) {
+            role.setMenus(new HashSet<>());
+            role.setDepts(new HashSet<>());
+            roleMap.put(role.getId(), role);
+        }
+        for (Object[] row : roleRepository.findMenusByRoleIds(roleMap.keySet())) {
+            MenuDto menu = new MenuDto();
+            menu.setId((Long) row[1]);
+            menu.setTitle((String) row[2]);
+            menu.setPid((Long) row[3]);
+            menu.setSubCount((Integer) row[4]);
+            roleMap.get((Long) row[0]).getMenus().add(menu);
+        }
+        for (Object[] row : roleRepository.findDeptsByRoleIds(roleMap.keySet())) {
+            DeptDto dept = new DeptDto();
+            dept.setId((Long) row[1]);
+            dept.setName((String) row[2]);
+            dept.setPid((Long) row[3]);
+            dept.setSubCount((Integer) row[4]);
+            roleMap.get((Long) row[0]).getDepts().add(dept);
+        }
     }
 
     @Override
@@ -115,16 +163,15 @@ public class RoleServiceImpl implements RoleService {
         role.setLevel(resources.getLevel());
         roleRepository.save(role);
         // 更新相关缓存
-        delCaches(role.getId(), null);
+        delCaches(role.getId());
     }
 
     @Override
     public void updateMenu(Role resources, RoleDto roleDTO) {
         Role role = roleMapper.toEntity(roleDTO);
-        List<User> users = userRepository.findByRoleId(role.getId());
         // 更新菜单
         role.setMenus(resources.getMenus());
-        delCaches(resources.getId(), users);
+        delCaches(resources.getId());
         roleRepository.save(role);
     }
 
@@ -133,6 +180,7 @@ public class RoleServiceImpl implements RoleService {
     public void untiedMenu(Long menuId) {
         // 更新菜单
         roleRepository.untiedMenu(menuId);
+        entityCacheSync.evictAll(Role.class);
     }
 
     @Override
@@ -140,7 +188,7 @@ public class RoleServiceImpl implements RoleService {
     public void delete(Set<Long> ids) {
         for (Long id : ids) {
             // 更新相关缓存
-            delCaches(id, null);
+            delCaches(id);
         }
         roleRepository.deleteAllByIdIn(ids);
     }
@@ -163,7 +211,7 @@ public class RoleServiceImpl implements RoleService {
     }
 
     @Override
-    @Cacheable(key = "'auth:' + #p0.id")
+    @Cacheable(key = "'auth:' + (#p0.isAdmin ? 'admin' : @cacheVersionManager.roleVersion(#p0))")
     public List<AuthorityDto> mapToGrantedAuthorities(UserDto user) {
         Set<String> permissions = new HashSet<>();
         // 如果是管理员直接返回
@@ -172,9 +220,12 @@ public class RoleServiceImpl implements RoleService {
             return permissions.stream().map(AuthorityDto::new)
                     .collect(Collectors.toList());
         }
-        Set<Role> roles = roleRepository.findByUserId(user.getId());
-        permissions = roles.stream().flatMap(role -> role.getMenus().stream())
-                .map(Menu::getPermission)
+        // 按角色查询，缓存 key 不包含用户ID，角色组合相同的用户共用
+        Set<Long> roleIds = user.getRoles().stream().map(RoleSmallDto::getId).collect(Collectors.toSet());
+        if (roleIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        permissions = roleRepository.findPermissionsByRoleIds(roleIds).stream()
                 .filter(StringUtils::isNotBlank).collect(Collectors.toSet());
         return permissions.stream().map(AuthorityDto::new)
                 .collect(Collectors.toList());
@@ -207,18 +258,11 @@ public class RoleServiceImpl implements RoleService {
     }
 
     /**
-     * 清理缓存
+     * 清理缓存，递增角色版本号后，拥有该角色的用户的登录、菜单、权限及数据权限缓存随之失效
      * @param id /
      */
-    public void delCaches(Long id, List<User> users) {
-        users = CollectionUtil.isEmpty(users) ? userRepository.findByRoleId(id) : users;
-        if (CollectionUtil.isNotEmpty(users)) {
-            users.forEach(item -> userCacheManager.cleanUserCache(item.getUsername()));
-            Set<Long> userIds = users.stream().map(User::getId).collect(Collectors.toSet());
-            redisUtils.delByKeys(CacheKey.DATA_USER, userIds);
-            redisUtils.delByKeys(CacheKey.MENU_USER, userIds);
-            redisUtils.delByKeys(CacheKey.ROLE_AUTH, userIds);
-        }
-        redisUtils.del(CacheKey.ROLE_ID + id);
+    public void delCaches(Long id) {
+        cacheVersionManager.incrRoles(Collections.singleton(id));
+        cacheCleaner.del(CacheKey.ROLE_ID + id);
     }
 }
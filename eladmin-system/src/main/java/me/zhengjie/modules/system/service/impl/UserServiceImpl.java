@@ -16,6 +16,7 @@
 package me.zhengjie.modules.system.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import me.zhengjie.annotation.ReadReplica;
 import me.zhengjie.utils.PageResult;
 import me.zhengjie.config.FileProperties;
 import me.zhengjie.exception.BadRequestException;
@@ -32,11 +33,13 @@ import me.zhengjie.modules.system.service.mapstruct.UserMapper;
 import me.zhengjie.utils.*;
 import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.constraints.NotBlank;
 import java.io.File;
@@ -53,24 +56,68 @@ import java.util.stream.Collectors;
 @CacheConfig(cacheNames = "user")
 public class UserServiceImpl implements UserService {
 
+    /** 列表需要的列，不包括密码 */
+    private static final String[] LIST_COLUMNS = {"id", "username", "nickName", "email", "phone", "gender",
+            "avatarName", "avatarPath", "enabled", "isAdmin", "pwdResetTime", "createBy", "updateBy",
+            "createTime", "updateTime", "dept.id", "dept.name"};
+
     private final UserRepository userRepository;
     private final UserMapper userMapper;
     private final FileProperties properties;
-    private final RedisUtils redisUtils;
+    private final CacheCleaner cacheCleaner;
     private final UserCacheManager userCacheManager;
     private final OnlineUserService onlineUserService;
     private final UserLoginMapper userLoginMapper;
+    private final BlurryIndex blurryIndex;
+    @PersistenceContext
+    private EntityManager em;
 
     @Override
+    @ReadReplica
+    @Transactional(readOnly = true)
     public PageResult<UserDto> queryAll(UserQueryCriteria criteria, Pageable pageable) {
-        Page<User> page = userRepository.findAll((root, criteriaQuery, criteriaBuilder) -> QueryHelp.getPredicate(root, criteria, criteriaBuilder), pageable);
-        return PageUtil.toPage(page.map(userMapper::toDto));
+        PageResult<UserDto> page = ProjectionUtil.page(em, User.class, criteria, pageable, CountStrategy.EXACT, UserDto.class, LIST_COLUMNS);
+        fillRolesAndJobs(page.getContent());
+        return page;
     }
 
     @Override
+    @ReadReplica
+    @Transactional(readOnly = true)
     public List<UserDto> queryAll(UserQueryCriteria criteria) {
-        List<User> users = userRepository.findAll((root, criteriaQuery, criteriaBuilder) -> QueryHelp.getPredicate(root, criteria, criteriaBuilder));
-        return userMapper.toDto(users);
+        List<UserDto> users = ProjectionUtil.list(em, User.class, criteria, Sort.unsorted(), UserDto.class, LIST_COLUMNS);
+        fillRolesAndJobs(users);
+        return users;
+    }
+
+    /**
+     * 一次性查询列表中所有用户的角色与岗位
+     * @param users /
+     */
+    private void fillRolesAndJobs(List<UserDto> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        Map<Long, UserDto> userMap = new HashMap<>(users.size());
+        for (UserDto user : users) {
+            user.setRoles(new HashSet<>());
+            user.setJobs(new HashSet<>());
+            userMap.put(user.getId(), user);
+        }
+        for (Object[] row : userRepository.findRolesByUserIds(userMap.keySet())) {
+            RoleSmallDto role = new RoleSmallDto();
+            role.setId((Long) row[1]);
+            role.setName((String) row[2]);
+            role.setLevel((Integer) row[3]);
+            role.setDataScope((String) row[4]);
+            userMap.get((Long) row[0]).getRoles().add(role);
+        }
+        for (Object[] row : userRepository.findJobsByUserIds(userMap.keySet())) {
+            JobSmallDto job = new JobSmallDto();
+            job.setId((Long) row[1]);
+            job.setName((String) row[2]);
+            userMap.get((Long) row[0]).getJobs().add(job);
+        }
     }
 
     @Override
@@ -114,16 +161,7 @@ public class UserServiceImpl implements UserService {
         if (user3 != null && !user.getId().equals(user3.getId())) {
             throw new EntityExistException(User.class, "phone", resources.getPhone());
         }
-        // 如果用户的角色改变
-        if (!resources.getRoles().equals(user.getRoles())) {
-            redisUtils.del(CacheKey.DATA_USER + resources.getId());
-            redisUtils.del(CacheKey.MENU_USER + resources.getId());
-            redisUtils.del(CacheKey.ROLE_AUTH + resources.getId());
-        }
-        // 修改部门会影响 数据权限
-        if (!Objects.equals(resources.getDept(),user.getDept())) {
-            redisUtils.del(CacheKey.DATA_USER + resources.getId());
-        }
+        // 用户的角色、部门改变时，菜单、权限与数据权限缓存的 key 随之改变，无需手动清理
         // 如果用户被禁用，则清除用户登录信息
         if(!resources.getEnabled()){
             onlineUserService.kickOutForUsername(resources.getUsername());
@@ -233,6 +271,8 @@ public class UserServiceImpl implements UserService {
     @Transactional(rollbackFor = Exception.class)
     public void updateEmail(String username, String email) {
         userRepository.updateEmail(username, email);
+        // 通过 SQL 更新了模糊搜索的字段
+        blurryIndex.invalidate(User.class);
         flushCache(username);
     }
 
@@ -262,7 +302,7 @@ public class UserServiceImpl implements UserService {
      * @param id /
      */
     public void delCaches(Long id, String username) {
-        redisUtils.del(CacheKey.USER_ID + id);
+        cacheCleaner.del(CacheKey.USER_ID + id);
         flushCache(username);
     }
 
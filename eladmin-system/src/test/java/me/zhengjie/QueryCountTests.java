@@ -0,0 +1,91 @@
+package me.zhengjie;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 各接口执行的 SQL 数量上限，防止关联查询退化为 N+1；
+ * 每个接口先请求一次预热缓存，再统计第二次请求的 SQL 数量
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=me.zhengjie.SqlStatementCounter")
+@AutoConfigureMockMvc(addFilters = false)
+public class QueryCountTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    @BeforeEach
+    public void login() {
+        UserDetails user = userDetailsService.loadUserByUsername("admin");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    @AfterEach
+    public void logout() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void userList() throws Exception {
+        // 当前用户、分页、总数、角色、岗位
+        assertMaxStatements("/api/users?page=0&size=10", 6);
+    }
+
+    @Test
+    public void roleList() throws Exception {
+        // 分页、总数、菜单、部门
+        assertMaxStatements("/api/roles?page=0&size=10", 4);
+    }
+
+    @Test
+    public void roleAll() throws Exception {
+        // 角色、按批加载的菜单与部门
+        assertMaxStatements("/api/roles/all", 3);
+    }
+
+    @Test
+    public void jobList() throws Exception {
+        assertMaxStatements("/api/job?page=0&size=10", 2);
+    }
+
+    @Test
+    public void deptList() throws Exception {
+        assertMaxStatements("/api/dept", 2);
+    }
+
+    @Test
+    public void logList() throws Exception {
+        assertMaxStatements("/api/logs?page=0&size=10", 2);
+    }
+
+    private void assertMaxStatements(String url, int max) throws Exception {
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        SqlStatementCounter.start();
+        int count;
+        try {
+            mockMvc.perform(get(url)).andExpect(status().isOk());
+        } finally {
+            count = SqlStatementCounter.stop();
+        }
+        assertTrue(count <= max, url + " 执行了 " + count + " 条 SQL，上限为 " + max);
+    }
+}
@@ -0,0 +1,85 @@
+package me.zhengjie;
+
+import me.zhengjie.config.ReadWriteRoutingDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 读写分离，需要本地的两个数据库：主库 DB_NAME(默认 eladmin) 与从库 DB_REPLICA_NAME(默认 eladmin_replica)，
+ * 从库不需要配置复制与导入数据；另配置一个无法连接的从库，验证读请求不会分配到该库
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+@SpringBootTest(properties = {
+        "datasource.routing.enabled=true",
+        "datasource.routing.replicas[0].url=jdbc:mysql://${DB_HOST:localhost}:${DB_PORT:3306}/${DB_REPLICA_NAME:eladmin_replica}?serverTimezone=Asia/Shanghai&useSSL=false",
+        "datasource.routing.replicas[1].url=jdbc:mysql://127.0.0.1:1/eladmin?connectTimeout=500&useSSL=false"
+})
+public class ReadWriteRoutingTests {
+
+    private static final String DATABASE = "select database()";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    @Value("${DB_NAME:eladmin}")
+    private String primary;
+
+    @Value("${DB_REPLICA_NAME:eladmin_replica}")
+    private String replica;
+
+    @Test
+    public void markedReadOnlyTransactionUsesReplica() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        boolean previous = ReadWriteRoutingDataSource.setReplica(true);
+        try {
+            for (int i = 0; i < 10; i++) {
+                assertEquals(replica, template.execute(status -> jdbcTemplate.queryForObject(DATABASE, String.class)));
+            }
+            // 标记的方法中的写事务使用主库
+            assertEquals(primary, new TransactionTemplate(transactionManager)
+                    .execute(status -> jdbcTemplate.queryForObject(DATABASE, String.class)));
+        } finally {
+            ReadWriteRoutingDataSource.setReplica(previous);
+        }
+    }
+
+    @Test
+    public void unmarkedReadOnlyTransactionUsesPrimary() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        assertEquals(primary, template.execute(status -> jdbcTemplate.queryForObject(DATABASE, String.class)));
+    }
+
+    @Test
+    public void writeUsesPrimary() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        assertEquals(primary, template.execute(status -> jdbcTemplate.queryForObject(DATABASE, String.class)));
+        assertEquals(primary, jdbcTemplate.queryForObject(DATABASE, String.class));
+    }
+
+    @Test
+    public void unreachableReplicaIsSkipped() {
+        List<Map<String, Object>> replicas = routingDataSource.getReplicas();
+        assertTrue((Boolean) replicas.get(0).get("available"));
+        assertFalse((Boolean) replicas.get(1).get("available"));
+    }
+}
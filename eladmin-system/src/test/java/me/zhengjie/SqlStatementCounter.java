@@ -0,0 +1,40 @@
+package me.zhengjie;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * 统计当前线程执行的 SQL 语句数量，通过
+ * spring.jpa.properties.hibernate.session_factory.statement_inspector 注册
+ * @author Zheng Jie
+ * @date 2026-10-19
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+
+    /**
+     * 开始统计
+     */
+    public static void start() {
+        COUNT.set(new int[1]);
+    }
+
+    /**
+     * 结束统计
+     * @return 开始统计后执行的 SQL 数量
+     */
+    public static int stop() {
+        int[] count = COUNT.get();
+        COUNT.remove();
+        return count == null ? 0 : count[0];
+    }
+}
@@ -35,7 +35,9 @@ public class QiniuContent implements Serializable {
     @Id
     @Column(name = "content_id")
     @ApiModelProperty(value = "ID", hidden = true)
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "tool_qiniu_content")
+    @TableGenerator(name = "tool_qiniu_content", table = "sys_id_generator", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "tool_qiniu_content", allocationSize = 50)
     private Long id;
 
     @Column(name = "name")
@@ -18,6 +18,9 @@ package me.zhengjie.repository;
 import me.zhengjie.domain.QiniuContent;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import java.util.Collection;
+import java.util.Set;
 
 /**
  * @author Zheng Jie
@@ -31,4 +34,12 @@ public interface QiniuContentRepository extends JpaRepository<QiniuContent,Long>
      * @return QiniuContent
      */
     QiniuContent findByKey(String key);
+
+    /**
+     * 查询已存在的文件名
+     * @param keys 文件名
+     * @return /
+     */
+    @Query("select q.key from QiniuContent q where q.key in ?1")
+    Set<String> findKeysByKeyIn(Collection<String> keys);
 }
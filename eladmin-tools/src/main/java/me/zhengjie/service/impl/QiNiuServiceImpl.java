@@ -184,21 +184,32 @@ public class QiNiuServiceImpl implements QiNiuService {
         //列举空间文件列表
         BucketManager.FileListIterator fileListIterator = bucketManager.createFileListIterator(config.getBucket(), prefix, limit, delimiter);
         while (fileListIterator.hasNext()) {
-            //处理获取的file list结果
-            QiniuContent qiniuContent;
+            //处理获取的file list结果，每批文件只查询一次已存在的文件，新文件批量插入
             FileInfo[] items = fileListIterator.next();
+            if (items == null || items.length == 0) {
+                continue;
+            }
+            Set<String> keys = new HashSet<>(items.length);
+            for (FileInfo item : items) {
+                keys.add(FileUtil.getFileNameNoEx(item.key));
+            }
+            Set<String> existKeys = new HashSet<>(qiniuContentRepository.findKeysByKeyIn(keys));
+            List<QiniuContent> contents = new ArrayList<>();
             for (FileInfo item : items) {
-                if(qiniuContentRepository.findByKey(FileUtil.getFileNameNoEx(item.key)) == null){
-                    qiniuContent = new QiniuContent();
+                String key = FileUtil.getFileNameNoEx(item.key);
+                // 同一批中文件名相同的只保存一个
+                if (existKeys.add(key)) {
+                    QiniuContent qiniuContent = new QiniuContent();
                     qiniuContent.setSize(FileUtil.getSize(Integer.parseInt(String.valueOf(item.fsize))));
                     qiniuContent.setSuffix(FileUtil.getExtensionName(item.key));
-                    qiniuContent.setKey(FileUtil.getFileNameNoEx(item.key));
+                    qiniuContent.setKey(key);
                     qiniuContent.setType(config.getType());
                     qiniuContent.setBucket(config.getBucket());
                     qiniuContent.setUrl(config.getHost()+"/"+item.key);
-                    qiniuContentRepository.save(qiniuContent);
+                    contents.add(qiniuContent);
                 }
             }
+            qiniuContentRepository.saveAll(contents);
         }
     }
 
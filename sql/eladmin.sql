@@ -140,7 +140,8 @@ CREATE TABLE `mnt_deploy_history` (
   `deploy_user` varchar(50) NOT NULL COMMENT '部署用户',
   `ip` varchar(20) NOT NULL COMMENT '服务器IP',
   `deploy_id` bigint(20) DEFAULT NULL COMMENT '部署编号',
-  PRIMARY KEY (`history_id`) USING BTREE
+  PRIMARY KEY (`history_id`) USING BTREE,
+  KEY `idx_deploy_date` (`deploy_date`,`history_id`)
 ) ENGINE=InnoDB ROW_FORMAT=COMPACT COMMENT='部署历史管理';
 
 -- ----------------------------
@@ -185,6 +186,27 @@ CREATE TABLE `mnt_server` (
   KEY `idx_ip` (`ip`)
 ) ENGINE=InnoDB AUTO_INCREMENT=2 ROW_FORMAT=COMPACT COMMENT='服务器管理';
 
+-- ----------------------------
+-- Table structure for sys_data_scope
+-- ----------------------------
+DROP TABLE IF EXISTS `sys_data_scope`;
+CREATE TABLE `sys_data_scope` (
+  `scope_key` char(32) NOT NULL COMMENT '部门ID集合的摘要',
+  `dept_id` bigint(20) NOT NULL COMMENT '部门ID',
+  PRIMARY KEY (`scope_key`,`dept_id`) USING BTREE
+) ENGINE=InnoDB ROW_FORMAT=COMPACT COMMENT='数据权限物化表';
+
+-- ----------------------------
+-- Table structure for sys_data_scope_key
+-- ----------------------------
+DROP TABLE IF EXISTS `sys_data_scope_key`;
+CREATE TABLE `sys_data_scope_key` (
+  `scope_key` char(32) NOT NULL COMMENT '部门ID集合的摘要',
+  `last_used` datetime NOT NULL COMMENT '最近使用时间',
+  PRIMARY KEY (`scope_key`) USING BTREE,
+  KEY `idx_last_used` (`last_used`) USING BTREE
+) ENGINE=InnoDB ROW_FORMAT=COMPACT COMMENT='数据权限物化表的 key 与使用时间';
+
 -- ----------------------------
 -- Table structure for sys_dept
 -- ----------------------------
@@ -218,6 +240,37 @@ INSERT INTO `sys_dept` VALUES (15, 8, 0, 'UI部门', 7, b'1', 'admin', 'admin',
 INSERT INTO `sys_dept` VALUES (17, 2, 0, '研发一组', 999, b'1', 'admin', 'admin', '2020-08-02 14:49:07', '2020-08-02 14:49:07');
 COMMIT;
 
+-- ----------------------------
+-- Table structure for sys_dept_closure
+-- ----------------------------
+DROP TABLE IF EXISTS `sys_dept_closure`;
+CREATE TABLE `sys_dept_closure` (
+  `ancestor` bigint(20) NOT NULL COMMENT '上级部门ID',
+  `descendant` bigint(20) NOT NULL COMMENT '下级部门ID',
+  `depth` int(5) NOT NULL COMMENT '层级差，自身为0',
+  PRIMARY KEY (`ancestor`,`descendant`) USING BTREE,
+  KEY `inx_descendant` (`descendant`,`depth`)
+) ENGINE=InnoDB ROW_FORMAT=COMPACT COMMENT='部门层级闭包表';
+
+-- ----------------------------
+-- Records of sys_dept_closure
+-- ----------------------------
+BEGIN;
+INSERT INTO `sys_dept_closure` VALUES (2, 2, 0);
+INSERT INTO `sys_dept_closure` VALUES (2, 17, 1);
+INSERT INTO `sys_dept_closure` VALUES (5, 5, 0);
+INSERT INTO `sys_dept_closure` VALUES (6, 6, 0);
+INSERT INTO `sys_dept_closure` VALUES (7, 2, 1);
+INSERT INTO `sys_dept_closure` VALUES (7, 5, 1);
+INSERT INTO `sys_dept_closure` VALUES (7, 7, 0);
+INSERT INTO `sys_dept_closure` VALUES (7, 17, 2);
+INSERT INTO `sys_dept_closure` VALUES (8, 6, 1);
+INSERT INTO `sys_dept_closure` VALUES (8, 8, 0);
+INSERT INTO `sys_dept_closure` VALUES (8, 15, 1);
+INSERT INTO `sys_dept_closure` VALUES (15, 15, 0);
+INSERT INTO `sys_dept_closure` VALUES (17, 17, 0);
+COMMIT;
+
 -- ----------------------------
 -- Table structure for sys_dict
 -- ----------------------------
@@ -272,6 +325,26 @@ INSERT INTO `sys_dict_detail` VALUES (5, 5, '启用', 'true', 1, NULL, NULL, NUL
 INSERT INTO `sys_dict_detail` VALUES (6, 5, '停用', 'false', 2, NULL, NULL, '2019-10-27 20:31:36', NULL);
 COMMIT;
 
+-- ----------------------------
+-- Table structure for sys_id_generator
+-- ----------------------------
+DROP TABLE IF EXISTS `sys_id_generator`;
+CREATE TABLE `sys_id_generator` (
+  `sequence_name` varchar(64) NOT NULL COMMENT '表名',
+  `next_val` bigint(20) NOT NULL COMMENT '下一个号段的起始ID',
+  PRIMARY KEY (`sequence_name`) USING BTREE
+) ENGINE=InnoDB ROW_FORMAT=COMPACT COMMENT='ID号段分配';
+
+-- ----------------------------
+-- Records of sys_id_generator
+-- ----------------------------
+BEGIN;
+INSERT INTO `sys_id_generator` VALUES ('code_column_config', 191);
+INSERT INTO `sys_id_generator` VALUES ('sys_log', 3537);
+INSERT INTO `sys_id_generator` VALUES ('sys_quartz_log', 151);
+INSERT INTO `sys_id_generator` VALUES ('tool_qiniu_content', 1);
+COMMIT;
+
 -- ----------------------------
 -- Table structure for sys_job
 -- ----------------------------
@@ -433,6 +506,209 @@ INSERT INTO `sys_menu` VALUES (114, 98, 0, 2, '数据库删除', NULL, '', 999,
 INSERT INTO `sys_menu` VALUES (116, 36, 0, 1, '生成预览', 'Preview', 'generator/preview', 999, 'java', 'generator/preview/:tableName', b'0', b'1', b'1', NULL, NULL, NULL, '2019-11-26 14:54:36', NULL);
 COMMIT;
 
+-- ----------------------------
+-- Table structure for sys_menu_closure
+-- ----------------------------
+DROP TABLE IF EXISTS `sys_menu_closure`;
+CREATE TABLE `sys_menu_closure` (
+  `ancestor` bigint(20) NOT NULL COMMENT '上级菜单ID',
+  `descendant` bigint(20) NOT NULL COMMENT '下级菜单ID',
+  `depth` int(5) NOT NULL COMMENT '层级差，自身为0',
+  PRIMARY KEY (`ancestor`,`descendant`) USING BTREE,
+  KEY `inx_descendant` (`descendant`,`depth`)
+) ENGINE=InnoDB ROW_FORMAT=COMPACT COMMENT='菜单层级闭包表';
+
+-- ----------------------------
+-- Records of sys_menu_closure
+-- ----------------------------
+BEGIN;
+INSERT INTO `sys_menu_closure` VALUES (1, 1, 0);
+INSERT INTO `sys_menu_closure` VALUES (1, 2, 1);
+INSERT INTO `sys_menu_closure` VALUES (1, 3, 1);
+INSERT INTO `sys_menu_closure` VALUES (1, 5, 1);
+INSERT INTO `sys_menu_closure` VALUES (1, 28, 1);
+INSERT INTO `sys_menu_closure` VALUES (1, 35, 1);
+INSERT INTO `sys_menu_closure` VALUES (1, 37, 1);
+INSERT INTO `sys_menu_closure` VALUES (1, 39, 1);
+INSERT INTO `sys_menu_closure` VALUES (1, 44, 2);
+INSERT INTO `sys_menu_closure` VALUES (1, 45, 2);
+INSERT INTO `sys_menu_closure` VALUES (1, 46, 2);
+INSERT INTO `sys_menu_closure` VALUES (1, 48, 2);
+INSERT INTO `sys_menu_closure` VALUES (1, 49, 2);
+INSERT INTO `sys_menu_closure` VALUES (1, 50, 2);
+INSERT INTO `sys_menu_closure` VALUES (1, 52, 2);
+INSERT INTO `sys_menu_closure` VALUES (1, 53, 2);
+INSERT INTO `sys_menu_closure` VALUES (1, 54, 2);
+INSERT INTO `sys_menu_closure` VALUES (1, 56, 2);
+INSERT INTO `sys_menu_closure` VALUES (1, 57, 2);
+INSERT INTO `sys_menu_closure` VALUES (1, 58, 2);
+INSERT INTO `sys_menu_closure` VALUES (1, 60, 2);
+INSERT INTO `sys_menu_closure` VALUES (1, 61, 2);
+INSERT INTO `sys_menu_closure` VALUES (1, 62, 2);
+INSERT INTO `sys_menu_closure` VALUES (1, 64, 2);
+INSERT INTO `sys_menu_closure` VALUES (1, 65, 2);
+INSERT INTO `sys_menu_closure` VALUES (1, 66, 2);
+INSERT INTO `sys_menu_closure` VALUES (1, 73, 2);
+INSERT INTO `sys_menu_closure` VALUES (1, 74, 2);
+INSERT INTO `sys_menu_closure` VALUES (1, 75, 2);
+INSERT INTO `sys_menu_closure` VALUES (2, 2, 0);
+INSERT INTO `sys_menu_closure` VALUES (2, 44, 1);
+INSERT INTO `sys_menu_closure` VALUES (2, 45, 1);
+INSERT INTO `sys_menu_closure` VALUES (2, 46, 1);
+INSERT INTO `sys_menu_closure` VALUES (3, 3, 0);
+INSERT INTO `sys_menu_closure` VALUES (3, 48, 1);
+INSERT INTO `sys_menu_closure` VALUES (3, 49, 1);
+INSERT INTO `sys_menu_closure` VALUES (3, 50, 1);
+INSERT INTO `sys_menu_closure` VALUES (5, 5, 0);
+INSERT INTO `sys_menu_closure` VALUES (5, 52, 1);
+INSERT INTO `sys_menu_closure` VALUES (5, 53, 1);
+INSERT INTO `sys_menu_closure` VALUES (5, 54, 1);
+INSERT INTO `sys_menu_closure` VALUES (6, 6, 0);
+INSERT INTO `sys_menu_closure` VALUES (6, 7, 1);
+INSERT INTO `sys_menu_closure` VALUES (6, 9, 1);
+INSERT INTO `sys_menu_closure` VALUES (6, 32, 1);
+INSERT INTO `sys_menu_closure` VALUES (6, 41, 1);
+INSERT INTO `sys_menu_closure` VALUES (6, 80, 1);
+INSERT INTO `sys_menu_closure` VALUES (7, 7, 0);
+INSERT INTO `sys_menu_closure` VALUES (9, 9, 0);
+INSERT INTO `sys_menu_closure` VALUES (10, 10, 0);
+INSERT INTO `sys_menu_closure` VALUES (10, 11, 1);
+INSERT INTO `sys_menu_closure` VALUES (10, 15, 1);
+INSERT INTO `sys_menu_closure` VALUES (10, 33, 1);
+INSERT INTO `sys_menu_closure` VALUES (10, 34, 1);
+INSERT INTO `sys_menu_closure` VALUES (10, 83, 1);
+INSERT INTO `sys_menu_closure` VALUES (11, 11, 0);
+INSERT INTO `sys_menu_closure` VALUES (14, 14, 0);
+INSERT INTO `sys_menu_closure` VALUES (15, 15, 0);
+INSERT INTO `sys_menu_closure` VALUES (18, 18, 0);
+INSERT INTO `sys_menu_closure` VALUES (18, 77, 1);
+INSERT INTO `sys_menu_closure` VALUES (18, 78, 1);
+INSERT INTO `sys_menu_closure` VALUES (18, 79, 1);
+INSERT INTO `sys_menu_closure` VALUES (19, 19, 0);
+INSERT INTO `sys_menu_closure` VALUES (21, 21, 0);
+INSERT INTO `sys_menu_closure` VALUES (21, 22, 1);
+INSERT INTO `sys_menu_closure` VALUES (21, 23, 1);
+INSERT INTO `sys_menu_closure` VALUES (21, 24, 2);
+INSERT INTO `sys_menu_closure` VALUES (21, 27, 2);
+INSERT INTO `sys_menu_closure` VALUES (22, 22, 0);
+INSERT INTO `sys_menu_closure` VALUES (22, 24, 1);
+INSERT INTO `sys_menu_closure` VALUES (22, 27, 1);
+INSERT INTO `sys_menu_closure` VALUES (23, 23, 0);
+INSERT INTO `sys_menu_closure` VALUES (24, 24, 0);
+INSERT INTO `sys_menu_closure` VALUES (27, 27, 0);
+INSERT INTO `sys_menu_closure` VALUES (28, 28, 0);
+INSERT INTO `sys_menu_closure` VALUES (28, 73, 1);
+INSERT INTO `sys_menu_closure` VALUES (28, 74, 1);
+INSERT INTO `sys_menu_closure` VALUES (28, 75, 1);
+INSERT INTO `sys_menu_closure` VALUES (30, 30, 0);
+INSERT INTO `sys_menu_closure` VALUES (32, 32, 0);
+INSERT INTO `sys_menu_closure` VALUES (33, 33, 0);
+INSERT INTO `sys_menu_closure` VALUES (34, 34, 0);
+INSERT INTO `sys_menu_closure` VALUES (35, 35, 0);
+INSERT INTO `sys_menu_closure` VALUES (35, 56, 1);
+INSERT INTO `sys_menu_closure` VALUES (35, 57, 1);
+INSERT INTO `sys_menu_closure` VALUES (35, 58, 1);
+INSERT INTO `sys_menu_closure` VALUES (36, 14, 1);
+INSERT INTO `sys_menu_closure` VALUES (36, 18, 1);
+INSERT INTO `sys_menu_closure` VALUES (36, 19, 1);
+INSERT INTO `sys_menu_closure` VALUES (36, 30, 1);
+INSERT INTO `sys_menu_closure` VALUES (36, 36, 0);
+INSERT INTO `sys_menu_closure` VALUES (36, 38, 1);
+INSERT INTO `sys_menu_closure` VALUES (36, 77, 2);
+INSERT INTO `sys_menu_closure` VALUES (36, 78, 2);
+INSERT INTO `sys_menu_closure` VALUES (36, 79, 2);
+INSERT INTO `sys_menu_closure` VALUES (36, 82, 1);
+INSERT INTO `sys_menu_closure` VALUES (36, 116, 1);
+INSERT INTO `sys_menu_closure` VALUES (37, 37, 0);
+INSERT INTO `sys_menu_closure` VALUES (37, 60, 1);
+INSERT INTO `sys_menu_closure` VALUES (37, 61, 1);
+INSERT INTO `sys_menu_closure` VALUES (37, 62, 1);
+INSERT INTO `sys_menu_closure` VALUES (38, 38, 0);
+INSERT INTO `sys_menu_closure` VALUES (39, 39, 0);
+INSERT INTO `sys_menu_closure` VALUES (39, 64, 1);
+INSERT INTO `sys_menu_closure` VALUES (39, 65, 1);
+INSERT INTO `sys_menu_closure` VALUES (39, 66, 1);
+INSERT INTO `sys_menu_closure` VALUES (41, 41, 0);
+INSERT INTO `sys_menu_closure` VALUES (44, 44, 0);
+INSERT INTO `sys_menu_closure` VALUES (45, 45, 0);
+INSERT INTO `sys_menu_closure` VALUES (46, 46, 0);
+INSERT INTO `sys_menu_closure` VALUES (48, 48, 0);
+INSERT INTO `sys_menu_closure` VALUES (49, 49, 0);
+INSERT INTO `sys_menu_closure` VALUES (50, 50, 0);
+INSERT INTO `sys_menu_closure` VALUES (52, 52, 0);
+INSERT INTO `sys_menu_closure` VALUES (53, 53, 0);
+INSERT INTO `sys_menu_closure` VALUES (54, 54, 0);
+INSERT INTO `sys_menu_closure` VALUES (56, 56, 0);
+INSERT INTO `sys_menu_closure` VALUES (57, 57, 0);
+INSERT INTO `sys_menu_closure` VALUES (58, 58, 0);
+INSERT INTO `sys_menu_closure` VALUES (60, 60, 0);
+INSERT INTO `sys_menu_closure` VALUES (61, 61, 0);
+INSERT INTO `sys_menu_closure` VALUES (62, 62, 0);
+INSERT INTO `sys_menu_closure` VALUES (64, 64, 0);
+INSERT INTO `sys_menu_closure` VALUES (65, 65, 0);
+INSERT INTO `sys_menu_closure` VALUES (66, 66, 0);
+INSERT INTO `sys_menu_closure` VALUES (73, 73, 0);
+INSERT INTO `sys_menu_closure` VALUES (74, 74, 0);
+INSERT INTO `sys_menu_closure` VALUES (75, 75, 0);
+INSERT INTO `sys_menu_closure` VALUES (77, 77, 0);
+INSERT INTO `sys_menu_closure` VALUES (78, 78, 0);
+INSERT INTO `sys_menu_closure` VALUES (79, 79, 0);
+INSERT INTO `sys_menu_closure` VALUES (80, 80, 0);
+INSERT INTO `sys_menu_closure` VALUES (82, 82, 0);
+INSERT INTO `sys_menu_closure` VALUES (83, 83, 0);
+INSERT INTO `sys_menu_closure` VALUES (90, 90, 0);
+INSERT INTO `sys_menu_closure` VALUES (90, 92, 1);
+INSERT INTO `sys_menu_closure` VALUES (90, 93, 1);
+INSERT INTO `sys_menu_closure` VALUES (90, 94, 1);
+INSERT INTO `sys_menu_closure` VALUES (90, 97, 1);
+INSERT INTO `sys_menu_closure` VALUES (90, 98, 1);
+INSERT INTO `sys_menu_closure` VALUES (90, 102, 2);
+INSERT INTO `sys_menu_closure` VALUES (90, 103, 2);
+INSERT INTO `sys_menu_closure` VALUES (90, 104, 2);
+INSERT INTO `sys_menu_closure` VALUES (90, 105, 2);
+INSERT INTO `sys_menu_closure` VALUES (90, 106, 2);
+INSERT INTO `sys_menu_closure` VALUES (90, 107, 2);
+INSERT INTO `sys_menu_closure` VALUES (90, 108, 2);
+INSERT INTO `sys_menu_closure` VALUES (90, 109, 2);
+INSERT INTO `sys_menu_closure` VALUES (90, 110, 2);
+INSERT INTO `sys_menu_closure` VALUES (90, 111, 2);
+INSERT INTO `sys_menu_closure` VALUES (90, 112, 2);
+INSERT INTO `sys_menu_closure` VALUES (90, 113, 2);
+INSERT INTO `sys_menu_closure` VALUES (90, 114, 2);
+INSERT INTO `sys_menu_closure` VALUES (92, 92, 0);
+INSERT INTO `sys_menu_closure` VALUES (92, 103, 1);
+INSERT INTO `sys_menu_closure` VALUES (92, 104, 1);
+INSERT INTO `sys_menu_closure` VALUES (92, 105, 1);
+INSERT INTO `sys_menu_closure` VALUES (93, 93, 0);
+INSERT INTO `sys_menu_closure` VALUES (93, 106, 1);
+INSERT INTO `sys_menu_closure` VALUES (93, 107, 1);
+INSERT INTO `sys_menu_closure` VALUES (93, 108, 1);
+INSERT INTO `sys_menu_closure` VALUES (94, 94, 0);
+INSERT INTO `sys_menu_closure` VALUES (94, 109, 1);
+INSERT INTO `sys_menu_closure` VALUES (94, 110, 1);
+INSERT INTO `sys_menu_closure` VALUES (94, 111, 1);
+INSERT INTO `sys_menu_closure` VALUES (97, 97, 0);
+INSERT INTO `sys_menu_closure` VALUES (97, 102, 1);
+INSERT INTO `sys_menu_closure` VALUES (98, 98, 0);
+INSERT INTO `sys_menu_closure` VALUES (98, 112, 1);
+INSERT INTO `sys_menu_closure` VALUES (98, 113, 1);
+INSERT INTO `sys_menu_closure` VALUES (98, 114, 1);
+INSERT INTO `sys_menu_closure` VALUES (102, 102, 0);
+INSERT INTO `sys_menu_closure` VALUES (103, 103, 0);
+INSERT INTO `sys_menu_closure` VALUES (104, 104, 0);
+INSERT INTO `sys_menu_closure` VALUES (105, 105, 0);
+INSERT INTO `sys_menu_closure` VALUES (106, 106, 0);
+INSERT INTO `sys_menu_closure` VALUES (107, 107, 0);
+INSERT INTO `sys_menu_closure` VALUES (108, 108, 0);
+INSERT INTO `sys_menu_closure` VALUES (109, 109, 0);
+INSERT INTO `sys_menu_closure` VALUES (110, 110, 0);
+INSERT INTO `sys_menu_closure` VALUES (111, 111, 0);
+INSERT INTO `sys_menu_closure` VALUES (112, 112, 0);
+INSERT INTO `sys_menu_closure` VALUES (113, 113, 0);
+INSERT INTO `sys_menu_closure` VALUES (114, 114, 0);
+INSERT INTO `sys_menu_closure` VALUES (116, 116, 0);
+COMMIT;
+
 -- ----------------------------
 -- Table structure for sys_quartz_job
 -- ----------------------------
@@ -483,7 +759,8 @@ CREATE TABLE `sys_quartz_log` (
   `method_name` varchar(255) DEFAULT NULL,
   `params` varchar(255) DEFAULT NULL,
   `time` bigint(20) DEFAULT NULL,
-  PRIMARY KEY (`log_id`) USING BTREE
+  PRIMARY KEY (`log_id`) USING BTREE,
+  KEY `idx_create_time` (`create_time`)
 ) ENGINE=InnoDB AUTO_INCREMENT=151 ROW_FORMAT=COMPACT COMMENT='定时任务日志';
 
 -- ----------------------------